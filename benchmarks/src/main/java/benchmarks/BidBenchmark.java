@@ -0,0 +1,84 @@
+package benchmarks;
+
+import core.Database;
+import core.InMemoryDatabase;
+import core.ShardedDatabase;
+import core.metrics.Metrics;
+import model.Auction;
+import model.BidResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// InMemoryDatabase.placeBid under contention. With auctions=1 every thread races on one auction's
+// compare-and-set; with more, bids spread over a catalogue and the threads rarely meet. Each bid
+// offers the current price plus the increment, so a bid that loses a race is rejected, as it
+// would be for a client. Auctions are rebuilt every iteration so their histories stay bounded.
+// engine=sharded hands every bid to the auction's shard and waits for it, as a worker thread's
+// reply would; one shard per benchmark thread.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class BidBenchmark {
+    @Param({"1", "1024"})
+    public int auctions;
+
+    @Param({"shared", "sharded"})
+    public String engine;
+
+    private Database database;
+    private List<Auction> catalogue;
+
+    @Setup(Level.Trial)
+    public void silence() {
+        Fixtures.quietLogs();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryDatabase memory = Fixtures.database(auctions, 0);
+        catalogue = Fixtures.auctions(memory);
+        database = engine.equals("sharded") ? new ShardedDatabase(memory, 4, new Metrics()) : memory;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public BidResult placeBid() {
+        Auction auction = pick();
+        return database.placeBid(Fixtures.bid(auction, "bidder", auction.getCurrentPrice() + Fixtures.INCREMENT)).join();
+    }
+
+    // The path of a bid that was already outbid when it arrived: no state change, no history.
+    @Benchmark
+    public BidResult placeLosingBid() {
+        Auction auction = pick();
+        return database.placeBid(Fixtures.bid(auction, "bidder", auction.getCurrentPrice())).join();
+    }
+
+    private Auction pick() {
+        return auctions == 1 ? catalogue.get(0) : catalogue.get(ThreadLocalRandom.current().nextInt(catalogue.size()));
+    }
+}
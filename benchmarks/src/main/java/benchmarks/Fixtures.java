@@ -0,0 +1,109 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import core.InMemoryDatabase;
+import core.log.Level;
+import core.log.Log;
+import core.message.AuctionSerializer;
+import core.message.BidMessage;
+import core.message.BidMessageAdapter;
+import core.message.BidSerializer;
+import core.net.Connection;
+import core.net.OutboundLimits;
+import model.Auction;
+import model.Bid;
+import model.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Builds the objects the benchmarks share, the same way the server builds them.
+final class Fixtures {
+    static final int SCALE = 2;
+    static final long STARTING_PRICE = 100;
+    static final long INCREMENT = 1;
+
+    private Fixtures() {
+    }
+
+    // The same adapters as AuctionHandler's Gson.
+    static Gson gson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Auction.class, new AuctionSerializer())
+                .registerTypeAdapter(Bid.class, new BidSerializer())
+                .registerTypeAdapter(BidMessage.class, new BidMessageAdapter())
+                .create();
+    }
+
+    // Per-message logs are DEBUG and off, as in production; this keeps the INFO lines of setup out of JMH's output.
+    static void quietLogs() {
+        Log.setLevel(Level.WARN);
+    }
+
+    static Auction activeAuction(int number) {
+        Auction auction = new Auction("auction-" + number, SCALE, STARTING_PRICE,
+                System.currentTimeMillis() / 1000 + 86_400, "seller-" + (number % 100), INCREMENT);
+        auction.setId(new UUID(0, number));
+        auction.activate();
+        return auction;
+    }
+
+    // A database of active auctions with bidsPerAuction accepted bids each, from 20 distinct bidders.
+    static InMemoryDatabase database(int auctions, int bidsPerAuction) {
+        InMemoryDatabase database = new InMemoryDatabase(new ConcurrentHashMap<>());
+        for (int i = 0; i < auctions; i++) {
+            Auction auction = activeAuction(i);
+            database.createAuction(auction);
+            for (int b = 0; b < bidsPerAuction; b++) {
+                database.placeBid(bid(auction, "bidder-" + (b % 20), auction.getCurrentPrice() + INCREMENT)).join();
+            }
+        }
+        return database;
+    }
+
+    static List<Auction> auctions(InMemoryDatabase database) {
+        return new ArrayList<>(database.loadActiveAuctions());
+    }
+
+    static Bid bid(Auction auction, String bidder, long price) {
+        return new Bid(new UUID(System.nanoTime(), price), bidder, auction.getId(), price, SCALE);
+    }
+
+    static String placeBidLine(UUID auctionId, String bidder, long price) {
+        return "{\"type\":\"PLACE_BID\",\"data\":{\"productId\":\"" + auctionId + "\",\"bidder\":\"" + bidder
+                + "\",\"price\":" + Money.toDecimal(price, SCALE).toPlainString() + "}}";
+    }
+
+    // A connection whose frames are counted and dropped, standing in for a socket that keeps up.
+    static final class NullConnection extends Connection {
+        private final List<byte[]> drained = new ArrayList<>();
+        long bytes;
+
+        NullConnection() {
+            super(new OutboundLimits(1 << 20, 60_000));
+        }
+
+        @Override
+        protected void onFramesQueued() {
+            synchronized (drained) {
+                outbound.drainTo(drained, Integer.MAX_VALUE);
+                for (byte[] frame : drained) {
+                    bytes += frame.length;
+                }
+                drained.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import core.AuctionHandler;
+import core.InMemoryDatabase;
+import core.lifecycle.AuctionLifecycle;
+import core.metrics.Metrics;
+import model.Auction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// A PLACE_BID line through AuctionHandler.onMessage: parse, bid, reply, and AUCTION_UPDATED to every
+// watcher of the auction. Connections drop their frames as soon as they are queued, so the
+// numbers leave out the socket but include encoding and queueing for each recipient.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class HandlerBenchmark {
+    @Param({"1", "1024"})
+    public int auctions;
+
+    @Param({"0", "100"})
+    public int watchers;
+
+    private AuctionLifecycle lifecycle;
+    private AuctionHandler handler;
+    private List<Auction> catalogue;
+
+    @State(Scope.Thread)
+    public static class Client {
+        final Fixtures.NullConnection connection = new Fixtures.NullConnection();
+        final String bidder = "bidder-" + ThreadLocalRandom.current().nextInt(1000);
+    }
+
+    @Setup(Level.Trial)
+    public void silence() {
+        Fixtures.quietLogs();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryDatabase database = Fixtures.database(auctions, 0);
+        lifecycle = new AuctionLifecycle(database);
+        handler = new AuctionHandler(database, lifecycle, new Metrics());
+        catalogue = Fixtures.auctions(database);
+        for (Auction auction : catalogue) {
+            lifecycle.track(auction);
+        }
+        for (int i = 0; i < watchers; i++) {
+            Fixtures.NullConnection watcher = new Fixtures.NullConnection();
+            handler.onConnect(watcher);
+            for (Auction auction : catalogue) {
+                handler.onMessage(watcher, "{\"type\":\"SUBSCRIBE\",\"data\":{\"auctionId\":\"" + auction.getId() + "\"}}");
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        lifecycle.close();
+    }
+
+    @Benchmark
+    public long placeBid(Client client) {
+        Auction auction = auctions == 1 ? catalogue.get(0) : catalogue.get(ThreadLocalRandom.current().nextInt(catalogue.size()));
+        handler.onMessage(client.connection,
+                Fixtures.placeBidLine(auction.getId(), client.bidder, auction.getCurrentPrice() + Fixtures.INCREMENT));
+        return client.connection.bytes;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import core.AuctionListingCache;
+import core.AuctionPage;
+import core.AuctionQuery;
+import core.InMemoryDatabase;
+import core.message.AuctionMessage;
+import core.message.MessageType;
+import core.net.WireProtocol;
+import model.Auction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Producing the auction listing at different catalogue and history sizes: loading it, encoding
+// it whole with Gson, serving it from AuctionListingCache with and without a change since the
+// last request, and answering one page of an AuctionQuery from the indexes.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+    @Param({"100", "10000"})
+    public int auctions;
+
+    @Param({"0", "20", "200"})
+    public int bidsPerAuction;
+
+    private InMemoryDatabase database;
+    private Gson gson;
+    private AuctionListingCache cache;
+    private Auction hot;
+    private AuctionQuery firstPage;
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogs();
+        database = Fixtures.database(auctions, bidsPerAuction);
+        gson = Fixtures.gson();
+        cache = new AuctionListingCache(database, gson);
+        hot = Fixtures.auctions(database).get(0);
+        firstPage = new AuctionQuery(null, null, null, null, AuctionQuery.Sort.PRICE_DESCENDING, null, 50);
+    }
+
+    @Benchmark
+    public List<Auction> loadActiveAuctions() {
+        return database.loadActiveAuctions();
+    }
+
+    // What every LIST_AUCTIONS cost before the listing was cached.
+    @Benchmark
+    public String encodeWithGson() {
+        return gson.toJson(new AuctionMessage(MessageType.LIST_AUCTIONS, database.loadActiveAuctions()));
+    }
+
+    @Benchmark
+    public byte[] cachedListing() {
+        return cache.get(WireProtocol.JSON);
+    }
+
+    // One bid lands between two requests, so the cache re-encodes one auction and reuses the rest.
+    @Benchmark
+    public byte[] cachedListingAfterBid() {
+        database.placeBid(Fixtures.bid(hot, "bidder", hot.getCurrentPrice() + Fixtures.INCREMENT)).join();
+        return cache.get(WireProtocol.JSON);
+    }
+
+    @Benchmark
+    public AuctionPage queryFirstPage() {
+        return database.queryAuctions(firstPage);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import core.message.AuctionMessage;
+import core.message.AuctionUpdate;
+import core.message.BidMessage;
+import core.message.BinaryCodec;
+import core.message.MessageType;
+import core.net.Connection;
+import model.Auction;
+import model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Decoding and encoding single messages: PLACE_BID as a JSON line and as a binary frame,
+// AUCTION_UPDATED both ways, and one auction's JSON at the history size given.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageBenchmark {
+    @Param({"0", "20", "200"})
+    public int bidsPerAuction;
+
+    private Gson gson;
+    private String placeBidLine;
+    private byte[] placeBidFrame;
+    private AuctionUpdate update;
+    private Auction auction;
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogs();
+        gson = Fixtures.gson();
+        UUID auctionId = UUID.randomUUID();
+        placeBidLine = Fixtures.placeBidLine(auctionId, "bidder-42", 123450);
+        placeBidFrame = BinaryCodec.placeBid(new BidMessage(auctionId, "bidder-42", 123450, Fixtures.SCALE));
+        update = new AuctionUpdate(auctionId, Money.toDecimal(123450, Fixtures.SCALE), 87, "bidder-42");
+        auction = Fixtures.auctions(Fixtures.database(1, bidsPerAuction)).get(0);
+    }
+
+    // The way AuctionHandler.onMessage reads a line: one tree, the payload bound from it.
+    @Benchmark
+    public BidMessage decodePlaceBidJson() {
+        JsonObject root = JsonParser.parseString(placeBidLine).getAsJsonObject();
+        gson.fromJson(root.get("type"), MessageType.class);
+        return gson.fromJson(root.get("data"), BidMessage.class);
+    }
+
+    @Benchmark
+    public BidMessage decodePlaceBidBinary() {
+        return BinaryCodec.readPlaceBid(ByteBuffer.wrap(placeBidFrame, 5, placeBidFrame.length - 5));
+    }
+
+    @Benchmark
+    public byte[] encodeAuctionUpdatedJson() {
+        return Connection.encodeLine(gson.toJson(new AuctionMessage(MessageType.AUCTION_UPDATED, update)));
+    }
+
+    @Benchmark
+    public byte[] encodeAuctionUpdatedBinary() {
+        return BinaryCodec.auctionUpdated(update);
+    }
+
+    @Benchmark
+    public byte[] encodeAuction() {
+        return gson.toJson(auction, Auction.class).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import model.Auction;
+import model.Bid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Auction.addBid, the path every bid takes when a snapshot or the journal is replayed at startup.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class RestoreBenchmark {
+    private Auction auction;
+    private Bid[] bids;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        Fixtures.quietLogs();
+        Auction source = Fixtures.activeAuction(0);
+        bids = new Bid[4096];
+        for (int i = 0; i < bids.length; i++) {
+            bids[i] = Fixtures.bid(source, "bidder-" + (i % 20), Fixtures.STARTING_PRICE + (i + 1) * Fixtures.INCREMENT);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        auction = Fixtures.activeAuction(0);
+        sequence = 0;
+    }
+
+    @Benchmark
+    public boolean addBid() {
+        int next = ++sequence;
+        return auction.addBid(bids[(next - 1) & (bids.length - 1)], next);
+    }
+}
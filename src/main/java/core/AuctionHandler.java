@@ -2,86 +2,308 @@ package core;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import core.admission.AdmissionControl;
+import core.admission.AdmissionLimits;
+import core.cluster.Cluster;
+import core.cluster.Node;
+import core.cluster.PeerLink;
+import core.lifecycle.AuctionLifecycle;
+import core.log.Level;
+import core.log.Log;
+import core.log.Logger;
+import core.message.AuctionClosed;
 import core.message.AuctionMessage;
+import core.message.AuctionSerializer;
+import core.message.AuctionUpdate;
+import core.message.BinaryCodec;
 import core.message.BidMessage;
+import core.message.BidMessageAdapter;
+import core.message.BidOutcome;
+import core.message.BidSerializer;
 import core.message.MessageType;
+import core.message.SubscriptionMessage;
+import core.message.Throttled;
+import core.metrics.Histogram;
+import core.metrics.Metrics;
+import core.net.Connection;
+import core.net.ConnectionListener;
+import core.net.WireProtocol;
 import model.Auction;
+import model.AuctionOutcome;
 import model.Bid;
-import utils.CountingSemaphore;
+import model.BidResult;
+import model.Money;
+import model.PriceState;
 
 import java.io.*;
 import java.math.BigDecimal;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.LongAdder;
 
-public class AuctionHandler extends Thread {
-    private final Socket socket;
-    private final BufferedReader input;
-    private static PrintWriter output = null;
-    private static Database database = null;
-    private final ConcurrentHashMap<UUID, CountingSemaphore> auctionSemaphores;
-    private static Gson gson = null;
-
-    private static final ConcurrentHashMap<UUID, PrintWriter> connectedClients = new ConcurrentHashMap<>();
-    private final UUID clientId;
-
-    public AuctionHandler(Socket socket, Database database, ConcurrentHashMap<UUID, CountingSemaphore> auctionSemaphores) throws IOException {
-        this.socket = socket;
-        this.input = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        output = new PrintWriter(socket.getOutputStream(), true);
-        this.auctionSemaphores = auctionSemaphores;
-        AuctionHandler.database = database;
-        gson = new GsonBuilder()
+// Protocol logic shared by every connection. The transport decides which thread calls in;
+// messages of one connection are always delivered one at a time. A client may pipeline requests
+// without waiting for replies: bid replies are sent once the store settles the bid and can overtake
+// or trail other replies, so a client that pipelines tags its requests with a requestId.
+// In a cluster, requests about another node's auctions are forwarded to that node over its link and
+// its reply is passed on; the events of its auctions come back over the same link and are passed on
+// to the watchers here. Requests arriving over a link from another node are always answered locally.
+public class AuctionHandler implements ConnectionListener, AuctionLifecycle.Listener, PeerLink.Listener {
+    private static final Logger log = Log.get(AuctionHandler.class);
+    private static final int DEFAULT_HISTORY_LIMIT = 100;
+    private static final int MAX_HISTORY_LIMIT = 1000;
+    private static final int MAX_BATCH_BIDS = 100;
+    private static final int MAX_REQUEST_ID_LENGTH = 128;
+
+    private final Database database;
+    private final AuctionLifecycle lifecycle;
+    private final Cluster cluster;
+    private final AdmissionControl admission;
+    private final Gson gson;
+
+    private final ConcurrentHashMap<UUID, Connection> connectedClients = new ConcurrentHashMap<>();
+    private final SubscriptionRegistry subscriptions = new SubscriptionRegistry();
+    // Connections that other nodes of the cluster opened to this one.
+    private final Set<UUID> peerConnections = ConcurrentHashMap.newKeySet();
+    private final AuctionListingCache listingCache;
+
+    private final Metrics metrics;
+    private final Metrics.Labeled<Histogram> messageTime;
+    private final LongAdder malformedMessages;
+    private final Histogram bidSettleTime;
+    private final Metrics.Labeled<LongAdder> bidOutcomes;
+    private final Metrics.Labeled<Histogram> broadcastTime;
+    private final Metrics.Labeled<Histogram> broadcastRecipients;
+    private final LongAdder connectionsOpened;
+    private final LongAdder connectionsClosed;
+    private final Metrics.Labeled<Histogram> forwardTime;
+
+    public AuctionHandler(Database database, AuctionLifecycle lifecycle, Metrics metrics) {
+        this(database, lifecycle, metrics, null);
+    }
+
+    public AuctionHandler(Database database, AuctionLifecycle lifecycle, Metrics metrics, Cluster cluster) {
+        this(database, lifecycle, metrics, cluster, AdmissionLimits.UNLIMITED);
+    }
+
+    // Without a cluster every auction is local. Links from other nodes draw on no connection's
+    // buckets, since their clients' connections were charged where they are connected; bidders are
+    // charged on the node that settles their bids, forwarded or not.
+    public AuctionHandler(Database database, AuctionLifecycle lifecycle, Metrics metrics, Cluster cluster,
+                          AdmissionLimits limits) {
+        this.database = database;
+        this.lifecycle = lifecycle;
+        this.cluster = cluster;
+        this.metrics = metrics;
+        this.admission = new AdmissionControl(limits, metrics);
+        this.messageTime = metrics.timer("bidly_message_duration_seconds",
+                "Time to decode and handle a client message on its worker, by type", "type");
+        this.malformedMessages = metrics.counter("bidly_messages_malformed_total", "Client messages that could not be decoded");
+        // Bids are applied without locks; what a bid waits on is the store settling it, journal or Redis included.
+        this.bidSettleTime = metrics.timer("bidly_bid_settle_duration_seconds",
+                "Time from submitting a bid to the store until its outcome is known");
+        this.bidOutcomes = metrics.counter("bidly_bids_total", "Settled bids, by outcome", "outcome");
+        this.broadcastTime = metrics.timer("bidly_broadcast_duration_seconds",
+                "Time to encode a broadcast and queue it for every recipient, by message type", "type");
+        this.broadcastRecipients = metrics.distribution("bidly_broadcast_recipients",
+                "Clients a broadcast was queued for, by message type", "type");
+        this.connectionsOpened = metrics.counter("bidly_connections_opened_total", "Client connections accepted");
+        this.connectionsClosed = metrics.counter("bidly_connections_closed_total", "Client connections closed");
+        this.forwardTime = metrics.timer("bidly_cluster_forward_duration_seconds",
+                "Time from forwarding a request to the node that owns it until its reply, by message type", "type");
+        metrics.gauge("bidly_connections_open", "Client connections currently open", connectedClients::size);
+        metrics.gauge("bidly_outbound_queued_frames", "Frames waiting to be written, over all connections",
+                () -> sumOverConnections(false));
+        metrics.gauge("bidly_outbound_queued_frames_max", "Frames waiting to be written on the most backed-up connection",
+                () -> connectedClients.values().stream().mapToLong(Connection::queuedFrames).max().orElse(0));
+        metrics.gauge("bidly_inbound_queued_messages", "Messages read but not yet handled, over all connections",
+                () -> sumOverConnections(true));
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(Auction.class, new AuctionSerializer())
+                .registerTypeAdapter(Bid.class, new BidSerializer())
+                .registerTypeAdapter(BidMessage.class, new BidMessageAdapter())
                 .create();
+        this.listingCache = new AuctionListingCache(database, gson);
+    }
 
-        this.clientId = UUID.randomUUID();
-        System.out.println("NEW CLIENT: " + clientId + "| CLIENT COUNT: " + connectedClients.size());
-        connectedClients.put(clientId, output);
-        this.start();
+    private long sumOverConnections(boolean inbound) {
+        long total = 0;
+        for (Connection connection : connectedClients.values()) {
+            total += inbound ? connection.queuedMessages() : connection.queuedFrames();
+        }
+        return total;
+    }
+
+    @Override
+    public void onConnect(Connection connection) {
+        connectedClients.put(connection.getId(), connection);
+        log.debug("New client {}, {} connected", connection.getId(), connectedClients.size());
+        connectionsOpened.increment();
     }
 
     @Override
-    public void run() {
+    public void onMessage(Connection connection, String jsonMessage) {
+        long start = System.nanoTime();
+        MessageType type = null;
+        String requestId = null;
         try {
-            while (!socket.isClosed()) {
-                String jsonMessage = input.readLine();
-                if (jsonMessage == null) {
-                    System.out.println("Connection closed by client");
-                    break;
-                }
+            // Parsed once into a tree; each handler binds its payload straight from it.
+            JsonObject root = JsonParser.parseString(jsonMessage).getAsJsonObject();
+            requestId = requestId(root);
+            type = gson.fromJson(root.get("type"), MessageType.class);
+            if (type == null) {
+                throw new IllegalArgumentException("Invalid message type");
+            }
+            AuctionMessage message = new AuctionMessage(type, root.get("data"), requestId);
+            log.debugSampled("Received {}", message);
+            handleMessage(connection, message);
+        } catch (Exception e) {
+            log.warn("Error handling message from {}: {}", connection, e.getMessage());
+            writeResponse(connection, new AuctionMessage(MessageType.ERROR, "Error processing message: " + e.getMessage(), requestId));
+        }
+        if (type != null) {
+            messageTime.get(type.name()).recordNanos(System.nanoTime() - start);
+        } else {
+            malformedMessages.increment();
+        }
+    }
+
+    // A string or a number, echoed back as a string. Anything else is ignored.
+    private static String requestId(JsonObject root) {
+        JsonElement id = root.get("requestId");
+        if (id == null || !id.isJsonPrimitive() || id.getAsJsonPrimitive().isBoolean()) {
+            return null;
+        }
+        String requestId = id.getAsString();
+        if (requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            throw new IllegalArgumentException("requestId is longer than " + MAX_REQUEST_ID_LENGTH + " characters");
+        }
+        return requestId;
+    }
 
+    @Override
+    public void onFrame(Connection connection, byte type, ByteBuffer payload) {
+        switch (type) {
+            case BinaryCodec.JSON -> onMessage(connection, StandardCharsets.UTF_8.decode(payload).toString());
+            case BinaryCodec.PLACE_BID -> {
+                long start = System.nanoTime();
                 try {
-                    AuctionMessage message = gson.fromJson(jsonMessage, AuctionMessage.class);
-                    System.out.println("Received message: " + message);
-                    handleMessage(message);
-                } catch (Exception e) {
-                    System.err.println("Error handling message: " + e.getMessage());
-                    writeResponse(new AuctionMessage(MessageType.ERROR, "Error processing message: " + e.getMessage()));
+                    // Binary bids carry no request id; they are matched to replies by auction.
+                    placeBid(connection, BinaryCodec.readPlaceBid(payload), null);
+                    messageTime.get(MessageType.PLACE_BID.name()).recordNanos(System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    malformedMessages.increment();
+                    log.warn("Error handling message from {}: {}", connection, e.getMessage());
+                    writeResponse(connection, new AuctionMessage(MessageType.ERROR, "Error processing message: " + e.getMessage()));
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Connection error: " + e.getMessage());
-        } finally {
-            connectedClients.remove(clientId);
-            closeConnection();
+            default -> writeResponse(connection, new AuctionMessage(MessageType.ERROR, "Unknown frame type: " + type));
+        }
+    }
+
+    @Override
+    public void onDisconnect(Connection connection) {
+        if (connectedClients.remove(connection.getId()) != null) {
+            connectionsClosed.increment();
+        }
+        subscriptions.removeConnection(connection);
+        peerConnections.remove(connection.getId());
+        admission.forget(connection.getId());
+    }
+
+    // Whether this connection's requests are sent on to the node owning their auction. Only a
+    // client's are; what another node forwards here is already at its owner.
+    private boolean routes(Connection connection) {
+        return cluster != null && !peerConnections.contains(connection.getId());
+    }
+
+    private boolean isRemote(Connection connection, UUID auctionId) {
+        return auctionId != null && routes(connection) && !cluster.isLocal(auctionId);
+    }
+
+    // Only links that passed PEER_HELLO skip the per-connection limits.
+    private boolean isLimited(Connection connection) {
+        return !peerConnections.contains(connection.getId());
+    }
+
+    // Draws on the connection's bucket and, if the bid is settled here, on the bidder's; a bid on
+    // another node's auction is charged to its bidder by that node. Answers THROTTLED if either is empty.
+    private boolean admitBid(Connection connection, MessageType type, BidMessage bid, String requestId) {
+        long wait = isLimited(connection) ? admission.admitBid(connection.getId()) : 0;
+        String limit = AdmissionControl.CONNECTION_BIDS;
+        if (wait == 0 && !isRemote(connection, bid.getProductId())) {
+            wait = admission.admitBidder(bid.getBidder());
+            limit = AdmissionControl.BIDDER_BIDS;
+        }
+        if (wait == 0) {
+            return true;
         }
+        refuseBid(connection, type, bid, requestId, limit, wait);
+        return false;
     }
 
+    // A binary bid without a request id gets the compact rejection instead of THROTTLED.
+    private void refuseBid(Connection connection, MessageType type, BidMessage bid, String requestId, String limit,
+                           long retryAfterMillis) {
+        if (connection.getProtocol() == WireProtocol.BINARY && requestId == null && bid.getProductId() != null) {
+            connection.send(BinaryCodec.bidRejected(bid.getProductId(), BinaryCodec.REJECTED_THROTTLED, 0, 0));
+        } else {
+            throttle(connection, type, requestId, limit, retryAfterMillis);
+        }
+    }
 
-    private void handleMessage(AuctionMessage message) throws IOException {
-        System.out.println("Handling message: " + message.getType());
+    private void throttle(Connection connection, MessageType type, String requestId, String limit, long retryAfterMillis) {
+        writeResponse(connection, new AuctionMessage(MessageType.THROTTLED,
+                new Throttled(type.name(), limit, retryAfterMillis), requestId));
+    }
+
+    private void handleMessage(Connection connection, AuctionMessage message) throws IOException {
         switch (message.getType()) {
             case LIST_AUCTIONS -> {
-                handleListAuctions(message);
+                handleListAuctions(connection, message);
             }
             case PLACE_BID -> {
-                handlePlaceBid(message);
+                handlePlaceBid(connection, message);
+            }
+            case PLACE_BIDS -> {
+                handlePlaceBids(connection, message);
+            }
+            case SET_MAX_BID -> {
+                handleSetMaxBid(connection, message);
             }
             case CREATE_AUCTION -> {
-                handleCreateAuction(message);
+                handleCreateAuction(connection, message);
+            }
+            case GET_BID_HISTORY -> {
+                handleGetBidHistory(connection, message);
+            }
+            case SUBSCRIBE -> {
+                handleSubscribe(connection, message, true);
+            }
+            case UNSUBSCRIBE -> {
+                handleSubscribe(connection, message, false);
+            }
+            case PEER_HELLO -> {
+                handlePeerHello(connection, message);
+            }
+            case STATS -> {
+                writeResponse(connection, message.reply(MessageType.STATS, metrics.toJson()));
             }
             default -> {
                 throw new IllegalArgumentException("Invalid message type");
@@ -89,119 +311,819 @@ public class AuctionHandler extends Thread {
         }
     }
 
-    private void handleListAuctions(AuctionMessage message) {
+    // Another node's link announcing itself as {node, secret}. Only a member of the cluster that knows
+    // its secret is taken as a peer; it is told so with a PEER_HELLO reply and nothing else is sent
+    // over the link until then.
+    private void handlePeerHello(Connection connection, AuctionMessage message) {
+        JsonElement data = data(message);
+        JsonObject hello = data != null && data.isJsonObject() ? data.getAsJsonObject() : new JsonObject();
+        String address = stringField(hello, "node");
+        String secret = stringField(hello, "secret");
+        Node node = null;
+        if (address != null) {
+            try {
+                node = Node.parse(address);
+            } catch (IllegalArgumentException e) {
+                // Not a member either way.
+            }
+        }
+        if (cluster == null || node == null || secret == null || !cluster.admitsPeer(node, secret)) {
+            log.warn("Refused PEER_HELLO as node {} on {}", address, connection);
+            writeResponse(connection, message.reply(MessageType.ERROR, "Not a peer of this node"));
+            return;
+        }
+        peerConnections.add(connection.getId());
+        writeResponse(connection, message.reply(MessageType.PEER_HELLO, cluster.getSelf().address()));
+        log.info("Node {} linked in on {}", node, connection);
+    }
+
+    private static String stringField(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isString() ? value.getAsString() : null;
+    }
+
+    // Without data this is the whole catalogue, shared by every client. With data it is one page of
+    // an AuctionQuery, sent as {auctions, nextCursor}.
+    // The whole catalogue and anything gathered from the cluster count as expensive, and hold one of
+    // the admission permits until they are answered.
+    private void handleListAuctions(Connection connection, AuctionMessage message) {
+        JsonElement data = data(message);
+        boolean query = data != null && !data.isJsonNull();
+        boolean expensive = !query || routes(connection);
+        if (isLimited(connection)) {
+            long wait = admission.admitListing(connection.getId());
+            if (wait > 0) {
+                throttle(connection, message.getType(), message.getRequestId(), AdmissionControl.CONNECTION_LISTINGS, wait);
+                return;
+            }
+            if (expensive && !admission.beginListing()) {
+                throttle(connection, message.getType(), message.getRequestId(), AdmissionControl.CONCURRENT_LISTINGS, 0);
+                return;
+            }
+        } else {
+            expensive = false;
+        }
+        if (routes(connection)) {
+            CompletableFuture<Void> answered;
+            try {
+                answered = query ? gatherQuery(connection, message, data) : gatherCatalogue(connection, message);
+            } catch (RuntimeException e) {
+                admission.endListing();
+                throw e;
+            }
+            answered.whenComplete((ignored, error) -> admission.endListing());
+            return;
+        }
+        if (query) {
+            handleQueryAuctions(connection, message, data);
+            return;
+        }
         try {
-            List<Auction> auctions = database.loadActiveAuctions();
-            writeResponse(new AuctionMessage(MessageType.LIST_AUCTIONS, auctions));
+            // Too large to log in full, and the same bytes go to every client asking at this version.
+            byte[] listing = listingCache.get(connection.getProtocol(), message.getRequestId());
+            if (log.isEnabled(Level.DEBUG)) {
+                log.debugSampled("Sending LIST_AUCTIONS ({} bytes)", listing.length);
+            }
+            connection.send(listing);
         } catch (Exception e) {
-            writeResponse(new AuctionMessage(MessageType.ERROR_LIST_AUCTIONS, "Error listing auctions: " + e.getMessage()));
+            writeResponse(connection, message.reply(MessageType.ERROR_LIST_AUCTIONS, "Error listing auctions: " + e.getMessage()));
+        } finally {
+            if (expensive) {
+                admission.endListing();
+            }
         }
     }
 
-    private void handlePlaceBid(AuctionMessage message) {
-        JsonObject data = gson.toJsonTree(message.getData()).getAsJsonObject();
-        BidMessage bidMessage = gson.fromJson(data, BidMessage.class);
+    private void handleQueryAuctions(Connection connection, AuctionMessage message, JsonElement data) {
+        try {
+            AuctionQuery query = gson.fromJson(data, AuctionQuery.class);
+            query.validate();
+            AuctionPage page = database.queryAuctions(query);
+            String json = gson.toJson(message.reply(MessageType.LIST_AUCTIONS, page));
+            log.debugSampled("Sending LIST_AUCTIONS ({} auctions)", page.auctions().size());
+            connection.send(encode(connection.getProtocol(), json));
+        } catch (Exception e) {
+            writeResponse(connection, message.reply(MessageType.ERROR_LIST_AUCTIONS, "Error listing auctions: " + e.getMessage()));
+        }
+    }
+
+    private void handlePlaceBid(Connection connection, AuctionMessage message) {
+        BidMessage bidMessage = gson.fromJson(data(message), BidMessage.class);
 
         if (bidMessage == null) {
-            writeResponse(new AuctionMessage(MessageType.BID_REJECTED, "Bid data cannot be null"));
+            writeResponse(connection, message.reply(MessageType.BID_REJECTED, "Bid data cannot be null"));
             return;
         }
+        placeBid(connection, bidMessage, message.getRequestId());
+    }
+
+    // Every bid entry point checks its bids here, before admission, so no store ever sees a bid
+    // without an auction or a bidder.
+    private static boolean isWellFormed(BidMessage bid) {
+        return bid != null && bid.getProductId() != null && bid.getBidder() != null && !bid.getBidder().isBlank()
+                && bid.getPrice() > 0;
+    }
 
+    private void placeBid(Connection connection, BidMessage bidMessage, String requestId) {
+        if (!isWellFormed(bidMessage)) {
+            replyToBid(connection, requestId, bidMessage.getProductId(), BidResult.invalidBid());
+            return;
+        }
+        if (!admitBid(connection, MessageType.PLACE_BID, bidMessage, requestId)) {
+            return;
+        }
         UUID auctionId = bidMessage.getProductId();
-        CountingSemaphore cs = auctionSemaphores.computeIfAbsent(auctionId, k -> new CountingSemaphore(1));
+        if (isRemote(connection, auctionId)) {
+            forwardBid(connection, bidMessage, requestId);
+            return;
+        }
+        // The reply and the fan-out wait for the database to settle the bid, but the worker thread does not.
+        submitBid(connection, bidMessage, false).whenComplete((result, error) -> {
+            if (error != null) {
+                writeResponse(connection, new AuctionMessage(MessageType.ERROR, storeFailure(error, "Bid could not be saved"), requestId));
+                return;
+            }
+            replyToBid(connection, requestId, auctionId, result);
+            if (result.moved()) {
+                broadcastUpdate(auctionId, result);
+            }
+        });
+    }
+
+    // Payload as in PLACE_BID, its price the bidder's maximum. A contest between maximum bids is
+    // settled in one step, so it costs one reply and at most one update however many increments it spans.
+    private void handleSetMaxBid(Connection connection, AuctionMessage message) {
+        BidMessage maxBid = gson.fromJson(data(message), BidMessage.class);
+        if (!isWellFormed(maxBid)) {
+            writeResponse(connection, message.reply(MessageType.MAX_BID_REJECTED,
+                    "A maximum bid needs an auction, a bidder and a price above zero"));
+            return;
+        }
+        if (!admitBid(connection, message.getType(), maxBid, message.getRequestId())) {
+            return;
+        }
+        UUID auctionId = maxBid.getProductId();
+        if (isRemote(connection, auctionId)) {
+            relayTo(cluster.ownerOf(auctionId), connection, message, reply -> {
+                if (replyType(reply) == MessageType.MAX_BID_ACCEPTED) {
+                    subscriptions.subscribe(connection, auctionId);
+                }
+            });
+            return;
+        }
+        submitBid(connection, maxBid, true).whenComplete((result, error) -> {
+            if (error != null) {
+                writeResponse(connection, message.reply(MessageType.ERROR, storeFailure(error, "Maximum bid could not be saved")));
+                return;
+            }
+            boolean leads = result.accepted() || result.status() == BidResult.Status.MAXIMUM_RAISED;
+            writeResponse(connection, message.reply(leads ? MessageType.MAX_BID_ACCEPTED : MessageType.MAX_BID_REJECTED,
+                    describeMaxBid(result, maxBid.getBidder())));
+            if (result.moved()) {
+                broadcastUpdate(auctionId, result);
+            }
+        });
+    }
+
+    // {bids: [bid, ...]}, each bid as in PLACE_BID. The bids are submitted in order, so each is settled
+    // against what the earlier ones left, and the outcomes come back together in one BID_RESULTS.
+    private void handlePlaceBids(Connection connection, AuctionMessage message) {
+        JsonElement data = data(message);
+        BidMessage[] bids = data != null && data.isJsonObject()
+                ? gson.fromJson(data.getAsJsonObject().get("bids"), BidMessage[].class) : null;
+        if (bids == null || bids.length == 0 || bids.length > MAX_BATCH_BIDS) {
+            writeResponse(connection, message.reply(MessageType.BID_REJECTED,
+                    "A batch must hold between 1 and " + MAX_BATCH_BIDS + " bids"));
+            return;
+        }
+        // The connection pays per bid, in order, and the bids beyond what its bucket holds are refused;
+        // each bid settled here then draws on its bidder's bucket, and the owners of the others charge theirs.
+        int admitted = isLimited(connection) ? admission.admitBidsUpTo(connection.getId(), bids.length) : bids.length;
+
+        // Bids on other nodes' auctions go to their owners, one batch per owner, in their order here.
+        BidOutcome[] outcomes = new BidOutcome[bids.length];
+        List<CompletableFuture<BidResult>> settled = new ArrayList<>(bids.length);
+        Map<Node, List<Integer>> forwarded = new LinkedHashMap<>();
+        for (int i = 0; i < bids.length; i++) {
+            BidMessage bid = bids[i];
+            if (!isWellFormed(bid)) {
+                outcomes[i] = outcome(bid != null ? bid.getProductId() : null, BidResult.invalidBid());
+                settled.add(null);
+                continue;
+            }
+            if (i >= admitted) {
+                outcomes[i] = throttledOutcome(bid != null ? bid.getProductId() : null,
+                        "Bid refused. This connection is sending bids faster than allowed",
+                        admission.connectionBidRefillMillis(i - admitted + 1));
+                settled.add(null);
+                continue;
+            }
+            if (isRemote(connection, bid.getProductId())) {
+                forwarded.computeIfAbsent(cluster.ownerOf(bid.getProductId()), owner -> new ArrayList<>()).add(i);
+                settled.add(null);
+                continue;
+            }
+            long bidderWait = admission.admitBidder(bid.getBidder());
+            if (bidderWait > 0) {
+                outcomes[i] = throttledOutcome(bid.getProductId(),
+                        "Bid refused. " + bid.getBidder() + " is bidding faster than allowed", bidderWait);
+                settled.add(null);
+                continue;
+            }
+            // A bad entry fails on its own; the bids before it are already in.
+            try {
+                settled.add(submitBid(connection, bid, false));
+            } catch (RuntimeException e) {
+                settled.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<CompletableFuture<?>> waits = new ArrayList<>(settled.size());
+        settled.stream().filter(bid -> bid != null).forEach(waits::add);
+        forwarded.forEach((owner, indexes) -> waits.add(
+                forwardBids(owner, indexes.stream().map(i -> bids[i]).toList()).handle((results, error) -> {
+                    for (int j = 0; j < indexes.size(); j++) {
+                        int i = indexes.get(j);
+                        outcomes[i] = error == null && j < results.size()
+                                ? results.get(j) : failedOutcome(bids[i], "Bid could not be saved");
+                    }
+                    return null;
+                })));
+        CompletableFuture.allOf(waits.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            // Watchers only need the last state of each auction the batch moved; they would conflate the rest away.
+            Map<UUID, BidResult> updates = new LinkedHashMap<>();
+            for (int i = 0; i < bids.length; i++) {
+                CompletableFuture<BidResult> bid = settled.get(i);
+                if (bid == null) {
+                    if (outcomes[i].getStatus().equals(BidResult.Status.ACCEPTED.name())) {
+                        subscriptions.subscribe(connection, bids[i].getProductId());
+                    }
+                    continue;
+                }
+                BidResult result;
+                try {
+                    result = bid.join();
+                } catch (CompletionException e) {
+                    outcomes[i] = failedOutcome(bids[i], storeFailure(e, "Bid could not be saved"));
+                    continue;
+                }
+                UUID auctionId = bids[i].getProductId();
+                outcomes[i] = outcome(auctionId, result);
+                if (result.moved()) {
+                    updates.merge(auctionId, result, (earlier, later) ->
+                            later.state().bidCount() > earlier.state().bidCount() ? later : earlier);
+                }
+            }
+            writeResponse(connection, message.reply(MessageType.BID_RESULTS, Arrays.asList(outcomes)));
+            updates.forEach(this::broadcastUpdate);
+        });
+    }
+
+    private static BidOutcome throttledOutcome(UUID auctionId, String message, long retryAfterMillis) {
+        return new BidOutcome(auctionId, MessageType.THROTTLED.name(), message, null, null, 0, null, retryAfterMillis);
+    }
+
+    private static BidOutcome failedOutcome(BidMessage bid, String message) {
+        return new BidOutcome(bid.getProductId(), "ERROR", message, null, null, 0, null);
+    }
+
+    // What to tell a client whose bid the store failed to settle. The store's message is passed on
+    // when it is one the client can act on: maximum bids are not supported there, or the journal
+    // failed, before the bid or while saving it.
+    private static String storeFailure(Throwable error, String fallback) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof UnsupportedOperationException || cause instanceof IllegalStateException
+                ? cause.getMessage() : fallback;
+    }
+
+    // A bid on another node's auction is settled there as a batch of one, whose outcome carries what
+    // this node needs to answer in either protocol. The owner broadcasts the update, which reaches
+    // the watchers here over the link.
+    private void forwardBid(Connection connection, BidMessage bidMessage, String requestId) {
+        UUID auctionId = bidMessage.getProductId();
+        forwardBids(cluster.ownerOf(auctionId), List.of(bidMessage)).whenComplete((outcomes, error) -> {
+            BidOutcome outcome = error == null ? outcomes.get(0) : null;
+            if (outcome != null && outcome.getStatus().equals(MessageType.THROTTLED.name())) {
+                Long retryAfterMillis = outcome.getRetryAfterMillis();
+                refuseBid(connection, MessageType.PLACE_BID, bidMessage, requestId, AdmissionControl.BIDDER_BIDS,
+                        retryAfterMillis != null ? retryAfterMillis : 0);
+                return;
+            }
+            BidResult result = outcome != null ? toResult(outcome) : null;
+            if (result == null) {
+                writeResponse(connection, new AuctionMessage(MessageType.ERROR, "Bid could not be saved", requestId));
+                return;
+            }
+            if (result.accepted()) {
+                subscriptions.subscribe(connection, auctionId);
+            }
+            replyToBid(connection, requestId, auctionId, result);
+        });
+    }
+
+    private CompletableFuture<List<BidOutcome>> forwardBids(Node owner, List<BidMessage> bids) {
+        JsonArray batch = new JsonArray(bids.size());
+        bids.forEach(bid -> batch.add(gson.toJsonTree(bid, BidMessage.class)));
+        JsonObject data = new JsonObject();
+        data.add("bids", batch);
+        return forward(owner, MessageType.PLACE_BIDS, data).thenApply(reply -> {
+            if (replyType(reply) != MessageType.BID_RESULTS)
+                throw new IllegalStateException("Node " + owner + " answered " + reply.get("data"));
+            return Arrays.asList(gson.fromJson(reply.get("data"), BidOutcome[].class));
+        });
+    }
+
+    // The result a forwarded bid's outcome stands for, or null if the owner failed to settle it.
+    private static BidResult toResult(BidOutcome outcome) {
+        if (outcome.getStatus().equals("ERROR")) {
+            return null;
+        }
+        BidResult.Status status = BidResult.Status.valueOf(outcome.getStatus());
+        if (outcome.getCurrentPrice() == null) {
+            return new BidResult(status, null, 0, 0);
+        }
+        int scale = outcome.getCurrentPrice().scale();
+        long price = Money.toMinorUnits(outcome.getCurrentPrice(), scale);
+        long increment = Money.toMinorUnits(outcome.getMinimumAllowedBid(), scale) - price;
+        return new BidResult(status, new PriceState(price, outcome.getTopBidder(), outcome.getBidCount(), false), increment, scale);
+    }
+
+    // Hands the bid, or the maximum bid, to the store. Once it is settled the outcome is counted and
+    // a leading bidder starts watching the auction; the reply and the broadcast are left to the caller.
+    private CompletableFuture<BidResult> submitBid(Connection connection, BidMessage bidMessage, boolean maximum) {
+        UUID auctionId = bidMessage.getProductId();
+        Bid bid = new Bid(
+                UUID.randomUUID(),
+                bidMessage.getBidder(),
+                bidMessage.getProductId(),
+                bidMessage.getPrice(),
+                bidMessage.getScale()
+        );
+        long submitted = System.nanoTime();
+        return (maximum ? database.setMaxBid(bid) : database.placeBid(bid)).whenComplete((result, error) -> {
+            bidSettleTime.recordNanos(System.nanoTime() - submitted);
+            bidOutcomes.get(error != null ? "ERROR" : result.status().name()).increment();
+            if (error != null) {
+                log.error("Error saving bid {}: {}", bid.getId(), error.getMessage());
+                return;
+            }
+
+            if (result.accepted()) {
+                if (log.isEnabled(Level.DEBUG)) {
+                    log.debugSampled("Bid accepted on {} at {}", auctionId, Money.toDecimal(bid.getPrice(), bid.getScale()));
+                }
+                subscriptions.subscribe(connection, auctionId);
+                if (!lifecycle.isTracked(auctionId)) {
+                    // Opened by another instance sharing the store; this one still tells its own watchers when it closes.
+                    track(database.getAuction(auctionId));
+                }
+            }
+        });
+    }
+
+    private void broadcastUpdate(UUID auctionId, BidResult result) {
+        PriceState state = result.state();
+        broadcastToWatchers(auctionId, new AuctionMessage(MessageType.AUCTION_UPDATED,
+                new AuctionUpdate(auctionId, Money.toDecimal(state.price(), result.scale()), state.bidCount(), state.topBidder())));
+    }
+
+    private void replyToBid(Connection connection, String requestId, UUID auctionId, BidResult result) {
+        PriceState state = result.state();
+        if (connection.getProtocol() == WireProtocol.BINARY && requestId == null && auctionId != null) {
+            connection.send(switch (result.status()) {
+                case ACCEPTED, MAXIMUM_RAISED -> BinaryCodec.bidAccepted(auctionId, state.price(), result.scale(), state.bidCount());
+                case REJECTED -> BinaryCodec.bidRejected(auctionId, BinaryCodec.REJECTED_TOO_LOW,
+                        result.minimumAllowedBid(), result.scale());
+                case OUTBID -> BinaryCodec.bidRejected(auctionId, BinaryCodec.REJECTED_OUTBID,
+                        result.minimumAllowedBid(), result.scale());
+                case INVALID_PRICE -> BinaryCodec.bidRejected(auctionId, BinaryCodec.REJECTED_INVALID_PRICE,
+                        result.minimumAllowedBid(), result.scale());
+                case NOT_OPEN -> BinaryCodec.bidRejected(auctionId, BinaryCodec.REJECTED_NOT_OPEN,
+                        result.minimumAllowedBid(), result.scale());
+                case AUCTION_NOT_FOUND -> BinaryCodec.bidRejected(auctionId, BinaryCodec.REJECTED_AUCTION_NOT_FOUND, 0, 0);
+                case INVALID_BID -> BinaryCodec.bidRejected(auctionId, BinaryCodec.REJECTED_INVALID_BID, 0, 0);
+            });
+            return;
+        }
+        writeResponse(connection, new AuctionMessage(result.accepted() ? MessageType.BID_ACCEPTED : MessageType.BID_REJECTED,
+                describe(result), requestId));
+    }
+
+    private static BidOutcome outcome(UUID auctionId, BidResult result) {
+        PriceState state = result.state();
+        if (state == null) {
+            return new BidOutcome(auctionId, result.status().name(), describe(result), null, null, 0, null);
+        }
+        return new BidOutcome(auctionId, result.status().name(), describe(result),
+                Money.toDecimal(state.price(), result.scale()),
+                Money.toDecimal(result.minimumAllowedBid(), result.scale()), state.bidCount(), state.topBidder());
+    }
+
+    private static String describe(BidResult result) {
+        PriceState state = result.state();
+        return switch (result.status()) {
+            case AUCTION_NOT_FOUND -> "Auction not found";
+            case INVALID_BID -> "Bid rejected. A bid needs an auction, a bidder and a price above zero";
+            case REJECTED -> String.format(
+                    "Bid rejected. Minimum allowed bid is %s (current price %s + minimum increment %s)",
+                    Money.toDecimal(result.minimumAllowedBid(), result.scale()),
+                    Money.toDecimal(state.price(), result.scale()),
+                    Money.toDecimal(result.minimumBidIncrement(), result.scale())
+            );
+            case NOT_OPEN -> "Auction is not open for bidding";
+            case INVALID_PRICE -> "Bid rejected. Prices in this auction have at most " + result.scale() + " decimal places";
+            case OUTBID -> String.format(
+                    "Bid rejected. Another bidder's maximum bid covers it; the price is now %s and the minimum allowed bid %s",
+                    Money.toDecimal(state.price(), result.scale()),
+                    Money.toDecimal(result.minimumAllowedBid(), result.scale())
+            );
+            case ACCEPTED -> "Bid accepted";
+            case MAXIMUM_RAISED -> "Maximum bid raised";
+        };
+    }
+
+    // The leader's own maximum is never told to anyone else, so a losing maximum only learns the price it drove up.
+    private static String describeMaxBid(BidResult result, String bidder) {
+        PriceState state = result.state();
+        return switch (result.status()) {
+            case ACCEPTED -> "Maximum bid set. You lead at " + Money.toDecimal(state.price(), result.scale());
+            case MAXIMUM_RAISED -> "Maximum bid raised. You still lead at " + Money.toDecimal(state.price(), result.scale());
+            case OUTBID -> String.format("Maximum bid outbid by another bidder's maximum; the price is now %s",
+                    Money.toDecimal(state.price(), result.scale()));
+            case REJECTED -> bidder.equals(state.topBidder())
+                    ? "Maximum bid rejected. You already lead with a maximum at least this high"
+                    : describe(result);
+            case INVALID_PRICE, NOT_OPEN, AUCTION_NOT_FOUND, INVALID_BID -> describe(result);
+        };
+    }
+
+    private void handleCreateAuction(Connection connection, AuctionMessage message) {
+        JsonObject data = data(message).getAsJsonObject();
+
+        String auctionName = data.get("name").getAsString();
+        if (routes(connection) && !cluster.ownerOfName(auctionName).equals(cluster.getSelf())) {
+            relayTo(cluster.ownerOfName(auctionName), connection, message, reply -> {
+                if (replyType(reply) == MessageType.AUCTION_CREATION_ACCEPTED) {
+                    subscriptions.subscribe(connection, UUID.fromString(reply.get("data").getAsString()));
+                }
+            });
+            return;
+        }
+        if (database.isAuctionNameTaken(auctionName)) {
+            writeResponse(connection, message.reply(MessageType.AUCTION_CREATION_REJECTED, "Auction name already taken"));
+            return;
+        }
+        BigDecimal startingPrice = data.get("startingPrice").getAsBigDecimal();
+        BigDecimal minimumBidIncrement = data.get("minimumBidIncrement").getAsBigDecimal();
+        int scale = Money.currencyScale(startingPrice, minimumBidIncrement);
+        Auction auction = new Auction(
+                auctionName,
+                scale,
+                Money.toMinorUnits(startingPrice, scale),
+                data.get("endTime").getAsLong(),
+                data.get("seller").getAsString(),
+                Money.toMinorUnits(minimumBidIncrement, scale)
+        );
+
+        auction.setId(cluster != null ? cluster.newLocalId() : UUID.randomUUID());
+        // Optional; without it bidding opens as soon as the auction is created.
+        if (data.has("startTime")) {
+            long startTime = data.get("startTime").getAsLong();
+            if (startTime >= auction.getEndTime()) {
+                writeResponse(connection, message.reply(MessageType.AUCTION_CREATION_REJECTED, "Start time must be before end time"));
+                return;
+            }
+            auction.setStartTime(Math.max(startTime, auction.getCreatedAt()));
+        }
 
-        cs.P();
         try {
-            Auction auction = database.getAuction(auctionId);
-            if (auction == null) {
-                writeResponse(new AuctionMessage(MessageType.BID_REJECTED, "Auction not found"));
+            // The check above is only a shortcut; createAuction reserves the name atomically.
+            if (!database.createAuction(auction)) {
+                writeResponse(connection, message.reply(MessageType.AUCTION_CREATION_REJECTED, "Auction name already taken"));
                 return;
             }
+            lifecycle.track(auction);
+            subscriptions.subscribe(connection, auction.getId());
+            writeResponse(connection, message.reply(MessageType.AUCTION_CREATION_ACCEPTED, auction.getId()));
+            broadcastToFirehose(new AuctionMessage(MessageType.AUCTION_CREATED, auction));
+        } catch (Exception e) {
+            writeResponse(connection, message.reply(MessageType.AUCTION_CREATION_REJECTED, "Error creating auction: " + e.getMessage()));
+        }
+    }
+
+    // {auctionId, offset, limit}: bids oldest first, offset counting from the first bid.
+    private void handleGetBidHistory(Connection connection, AuctionMessage message) {
+        JsonObject data = data(message).getAsJsonObject();
+        UUID auctionId = UUID.fromString(data.get("auctionId").getAsString());
+        if (isRemote(connection, auctionId)) {
+            relayTo(cluster.ownerOf(auctionId), connection, message, reply -> {
+            });
+            return;
+        }
+        int offset = data.has("offset") ? data.get("offset").getAsInt() : 0;
+        int limit = data.has("limit") ? data.get("limit").getAsInt() : DEFAULT_HISTORY_LIMIT;
+        if (offset < 0 || limit <= 0 || limit > MAX_HISTORY_LIMIT) {
+            writeResponse(connection, message.reply(MessageType.ERROR_BID_HISTORY,
+                    "Offset must not be negative and limit must be between 1 and " + MAX_HISTORY_LIMIT));
+            return;
+        }
+        BidHistoryPage page = database.getBidHistory(auctionId, offset, limit);
+        if (page == null) {
+            writeResponse(connection, message.reply(MessageType.ERROR_BID_HISTORY, "Auction not found"));
+            return;
+        }
+        writeResponse(connection, message.reply(MessageType.BID_HISTORY, page));
+    }
+
+    private void handleSubscribe(Connection connection, AuctionMessage message, boolean subscribe) {
+        SubscriptionMessage request = gson.fromJson(data(message), SubscriptionMessage.class);
+        if (request == null || (!request.isAll() && request.getAuctionId() == null)) {
+            writeResponse(connection, message.reply(MessageType.SUBSCRIPTION_REJECTED, "Either auctionId or all must be given"));
+            return;
+        }
+
+        // The owner checks the auction and starts sending its events to this node; unsubscribing stays here.
+        if (subscribe && !request.isAll() && isRemote(connection, request.getAuctionId())) {
+            relayTo(cluster.ownerOf(request.getAuctionId()), connection, message, reply -> {
+                if (replyType(reply) == MessageType.SUBSCRIPTION_ACCEPTED) {
+                    subscriptions.subscribe(connection, request.getAuctionId());
+                }
+            });
+            return;
+        }
 
-            if (auction.canBid(bidMessage.getPrice())) {
-                Bid bid = new Bid(
-                        UUID.randomUUID(),
-                        bidMessage.getBidder(),
-                        bidMessage.getProductId(),
-                        bidMessage.getPrice()
-                );
-                System.out.println("Bid accepted: " + bid.getPrice());
-                database.saveBid(bid);
-                writeResponse(new AuctionMessage(MessageType.BID_ACCEPTED, "Bid accepted"));
-                broadcastAuctionUpdate();
+        // The firehose covers the auctions of this node, and those of other nodes only as far as they are watched here.
+        if (request.isAll()) {
+            if (subscribe) {
+                subscriptions.subscribeAll(connection);
             } else {
-                BigDecimal minimumAllowedBid = auction.getMinimumBidIncrement().add(auction.getCurrentPrice());
-                String rejectionMessage = String.format(
-                        "Bid rejected. Minimum allowed bid is %s (current price %s + minimum increment %s)",
-                        minimumAllowedBid,
-                        auction.getCurrentPrice().toString(),
-                        auction.getMinimumBidIncrement().toString()
-                );
-                writeResponse(new AuctionMessage(MessageType.BID_REJECTED, rejectionMessage));
+                subscriptions.unsubscribeAll(connection);
             }
-        } finally {
-            cs.V();
+        } else if (subscribe) {
+            Auction auction = database.getAuction(request.getAuctionId());
+            if (auction == null) {
+                writeResponse(connection, message.reply(MessageType.SUBSCRIPTION_REJECTED, "Auction not found"));
+                return;
+            }
+            if (auction.getStatus().isClosed()) {
+                writeResponse(connection, message.reply(MessageType.SUBSCRIPTION_REJECTED, "Auction has ended"));
+                return;
+            }
+            track(auction);
+            subscriptions.subscribe(connection, request.getAuctionId());
+        } else {
+            subscriptions.unsubscribe(connection, request.getAuctionId());
         }
+        writeResponse(connection, message.reply(MessageType.SUBSCRIPTION_ACCEPTED, request));
     }
 
-    private void handleCreateAuction(AuctionMessage message) {
-        JsonObject data = gson.toJsonTree(message.getData()).getAsJsonObject();
+    private void track(Auction auction) {
+        if (auction != null) {
+            lifecycle.track(auction);
+        }
+    }
 
-        String auctionName = data.get("name").getAsString().toLowerCase();
+    // Tells everyone watching the auction how it ended, then forgets them. Not conflated: this must
+    // not be replaced or dropped like a price update.
+    @Override
+    public void onAuctionClosed(AuctionOutcome outcome) {
+        UUID auctionId = outcome.auctionId();
+        broadcastClosed(auctionId, new AuctionMessage(MessageType.AUCTION_CLOSED, new AuctionClosed(auctionId, outcome.status(),
+                Money.toDecimal(outcome.finalPrice(), outcome.scale()), outcome.bidCount(), outcome.winner())));
+    }
+
+    private void broadcastClosed(UUID auctionId, AuctionMessage message) {
+        try {
+            long start = System.nanoTime();
+            byte[][] frames = new byte[WireProtocol.values().length][];
+            int recipients = subscriptions.forEachWatcher(auctionId,
+                    client -> client.send(frameFor(client.getProtocol(), message, frames)));
+            recordBroadcast(message.getType(), recipients, start);
+            if (log.isEnabled(Level.DEBUG)) {
+                log.debugSampled("Broadcasting {} to {}", message.getType(), recipients);
+            }
+        } catch (Exception e) {
+            log.error("Error broadcasting auction close: {}", e.getMessage());
+        }
+        subscriptions.removeAuction(auctionId);
+    }
 
-        synchronized (auctionName.intern()){
-            if (database.isAuctionNameTaken(auctionName)) {
-                writeResponse(new AuctionMessage(MessageType.AUCTION_CREATION_REJECTED, "Auction name already taken"));
+    // A link to another node is up: that node lost what this one watched there, so it is asked again
+    // for the events of every auction it owns that someone here watches.
+    @Override
+    public void onConnected(PeerLink link) {
+        for (UUID auctionId : subscriptions.watchedAuctions()) {
+            if (cluster.ownerOf(auctionId).equals(link.getPeer())) {
+                link.send(MessageType.SUBSCRIBE, gson.toJsonTree(new SubscriptionMessage(auctionId, false)));
+            }
+        }
+    }
+
+    // Events of another node's auctions, passed on to the watchers here as if they were local.
+    @Override
+    public void onBroadcast(PeerLink link, JsonObject message) {
+        try {
+            MessageType type = replyType(message);
+            if (type == MessageType.AUCTION_UPDATED) {
+                AuctionUpdate update = gson.fromJson(message.get("data"), AuctionUpdate.class);
+                broadcastToWatchers(update.getAuctionId(), new AuctionMessage(type, update));
+            } else if (type == MessageType.AUCTION_CLOSED) {
+                AuctionClosed closed = gson.fromJson(message.get("data"), AuctionClosed.class);
+                broadcastClosed(closed.getAuctionId(), new AuctionMessage(type, closed));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error relaying an event from node {}: {}", link.getPeer(), e.getMessage());
+        }
+    }
+
+    // Sends the request to the node that owns its auction. Fails if that node cannot be reached or does not answer.
+    private CompletableFuture<JsonObject> forward(Node owner, MessageType type, JsonElement data) {
+        long start = System.nanoTime();
+        return cluster.link(owner).request(type, data)
+                .whenComplete((reply, error) -> forwardTime.get(type.name()).recordNanos(System.nanoTime() - start));
+    }
+
+    // Forwards a client's request as it is and answers with the owner's reply under the client's request id.
+    private void relayTo(Node owner, Connection connection, AuctionMessage message, Consumer<JsonObject> onReply) {
+        forward(owner, message.getType(), data(message)).whenComplete((reply, error) -> {
+            if (error != null) {
+                writeResponse(connection, message.reply(MessageType.ERROR, unreachable(owner, error)));
                 return;
             }
-            Auction auction = new Auction(
-                    data.get("name").getAsString(),
-                    data.get("startingPrice").getAsBigDecimal(),
-                    data.get("endTime").getAsLong(),
-                    data.get("seller").getAsString(),
-                    data.get("minimumBidIncrement").getAsBigDecimal()
-            );
+            onReply.accept(reply);
+            writeResponse(connection, message.reply(replyType(reply), reply.get("data")));
+        });
+    }
 
-            auction.setId(UUID.randomUUID());
+    private static String unreachable(Node owner, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return "Node " + owner + " did not answer: " + cause;
+    }
 
+    private MessageType replyType(JsonObject reply) {
+        return gson.fromJson(reply.get("type"), MessageType.class);
+    }
+
+    // The catalogue of the whole cluster: this node's cached listing followed by every other node's.
+    // Fails rather than list part of the catalogue when a node does not answer.
+    private CompletableFuture<Void> gatherCatalogue(Connection connection, AuctionMessage message) {
+        List<CompletableFuture<JsonObject>> replies = new ArrayList<>();
+        for (PeerLink peer : cluster.peers()) {
+            replies.add(forward(peer.getPeer(), MessageType.LIST_AUCTIONS, null));
+        }
+        byte[] local = listingCache.auctions();
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
             try {
-                database.createAuction(auction);
-                writeResponse(new AuctionMessage(MessageType.AUCTION_CREATION_ACCEPTED, auction.getId()));
-                broadcastAuctionUpdate();
-            } catch (Exception e) {
-                writeResponse(new AuctionMessage(MessageType.AUCTION_CREATION_REJECTED, "Error creating auction: " + e.getMessage()));
+                if (error != null) {
+                    throw error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                }
+                StringBuilder head = new StringBuilder("{\"type\":\"LIST_AUCTIONS\",");
+                if (message.getRequestId() != null) {
+                    head.append("\"requestId\":").append(gson.toJson(message.getRequestId())).append(',');
+                }
+                head.append("\"data\":[");
+                ByteArrayOutputStream json = new ByteArrayOutputStream(local.length + 1024);
+                json.writeBytes(head.toString().getBytes(StandardCharsets.UTF_8));
+                json.writeBytes(local);
+                boolean empty = local.length == 0;
+                for (CompletableFuture<JsonObject> reply : replies) {
+                    for (JsonElement auction : reply.join().getAsJsonArray("data")) {
+                        if (!empty) {
+                            json.write(',');
+                        }
+                        json.writeBytes(auction.toString().getBytes(StandardCharsets.UTF_8));
+                        empty = false;
+                    }
+                }
+                json.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+                connection.send(encode(connection.getProtocol(), json.toByteArray()));
+            } catch (Throwable e) {
+                writeResponse(connection, message.reply(MessageType.ERROR_LIST_AUCTIONS, "Error listing auctions: " + e.getMessage()));
             }
+        });
+    }
+
+    // One page of a query over the whole cluster. Every node answers with its own first page from the
+    // same cursor; the merged pages are cut to the limit, and the cursor of the last auction kept is
+    // valid on every node, since a cursor is a position in the sort order rather than in one node's list.
+    private CompletableFuture<Void> gatherQuery(Connection connection, AuctionMessage message, JsonElement data) {
+        AuctionQuery query = gson.fromJson(data, AuctionQuery.class);
+        try {
+            query.validate();
+        } catch (IllegalArgumentException e) {
+            writeResponse(connection, message.reply(MessageType.ERROR_LIST_AUCTIONS, "Error listing auctions: " + e.getMessage()));
+            return CompletableFuture.completedFuture(null);
         }
+        List<CompletableFuture<JsonObject>> replies = new ArrayList<>();
+        for (PeerLink peer : cluster.peers()) {
+            replies.add(forward(peer.getPeer(), MessageType.LIST_AUCTIONS, data));
+        }
+        AuctionPage local = database.queryAuctions(query);
+        return CompletableFuture.allOf(replies.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            try {
+                if (error != null) {
+                    throw error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                }
+                List<JsonObject> auctions = new ArrayList<>();
+                local.auctions().forEach(auction -> auctions.add(gson.toJsonTree(auction, Auction.class).getAsJsonObject()));
+                boolean more = local.nextCursor() != null;
+                for (CompletableFuture<JsonObject> reply : replies) {
+                    JsonObject page = reply.join().getAsJsonObject("data");
+                    page.getAsJsonArray("auctions").forEach(auction -> auctions.add(auction.getAsJsonObject()));
+                    more |= page.has("nextCursor");
+                }
+
+                AuctionQuery.Sort sort = query.getSort();
+                Comparator<JsonObject> order = Comparator.<JsonObject>comparingLong(auction -> AuctionQuery.sortValue(sort, auction))
+                        .thenComparing(auction -> UUID.fromString(auction.get("id").getAsString()));
+                auctions.sort(sort.isDescending() ? order.reversed() : order);
+
+                JsonObject page = new JsonObject();
+                JsonArray kept = new JsonArray();
+                auctions.stream().limit(query.getLimit()).forEach(kept::add);
+                page.add("auctions", kept);
+                if ((more || auctions.size() > query.getLimit()) && !kept.isEmpty()) {
+                    JsonObject last = kept.get(kept.size() - 1).getAsJsonObject();
+                    page.addProperty("nextCursor", new AuctionQuery.Cursor(sort, AuctionQuery.sortValue(sort, last),
+                            last.get("id").getAsString()).encode());
+                }
+                connection.send(encode(connection.getProtocol(), gson.toJson(message.reply(MessageType.LIST_AUCTIONS, page))));
+            } catch (Throwable e) {
+                writeResponse(connection, message.reply(MessageType.ERROR_LIST_AUCTIONS, "Error listing auctions: " + e.getMessage()));
+            }
+        });
     }
 
-    private static void broadcastAuctionUpdate(){
+    // Auction deltas go only to the auction's watchers and the firehose. The full listing is only sent in reply to LIST_AUCTIONS.
+    private void broadcastToWatchers(UUID auctionId, AuctionMessage message){
         try {
-            List<Auction> auctions = database.loadActiveAuctions();
-            AuctionMessage message = new AuctionMessage(MessageType.LIST_AUCTIONS, auctions);
-            System.out.println("Broadcasting auction update to "+ connectedClients.size());
-            for (PrintWriter client : connectedClients.values()) {
-                client.println(gson.toJson(message));
+            long start = System.nanoTime();
+            byte[][] frames = new byte[WireProtocol.values().length][];
+            int recipients = subscriptions.forEachWatcher(auctionId,
+                    client -> client.sendConflated(auctionId, frameFor(client.getProtocol(), message, frames)));
+            recordBroadcast(message.getType(), recipients, start);
+            if (log.isEnabled(Level.DEBUG)) {
+                log.debugSampled("Broadcasting {} to {}", message.getType(), recipients);
             }
         } catch (Exception e) {
-            System.err.println("Error broadcasting auction update: " + e.getMessage());
+            log.error("Error broadcasting auction update: {}", e.getMessage());
         }
     }
-    private void closeConnection() {
+
+    private void broadcastToFirehose(AuctionMessage message){
         try {
-            input.close();
-            output.close();
-            socket.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            long start = System.nanoTime();
+            byte[][] frames = new byte[WireProtocol.values().length][];
+            int recipients = subscriptions.forEachFirehoseWatcher(
+                    client -> client.send(frameFor(client.getProtocol(), message, frames)));
+            recordBroadcast(message.getType(), recipients, start);
+            if (log.isEnabled(Level.DEBUG)) {
+                log.debugSampled("Broadcasting {} to {}", message.getType(), recipients);
+            }
+        } catch (Exception e) {
+            log.error("Error broadcasting auction update: {}", e.getMessage());
         }
     }
 
-    private static void writeResponse(AuctionMessage message) {
-        System.out.println("Sending message TYPE: " + message.getType());
-        System.out.println(gson.toJson(message));
-        output.println(gson.toJson(message));
+    private void recordBroadcast(MessageType type, int recipients, long start) {
+        broadcastTime.get(type.name()).recordNanos(System.nanoTime() - start);
+        broadcastRecipients.get(type.name()).record(recipients);
+    }
+
+    // Encodes a broadcast at most once per protocol, however many clients receive it.
+    private byte[] frameFor(WireProtocol protocol, AuctionMessage message, byte[][] frames) {
+        byte[] frame = frames[protocol.ordinal()];
+        if (frame == null) {
+            if (protocol == WireProtocol.BINARY && message.getData() instanceof AuctionUpdate update) {
+                frame = BinaryCodec.auctionUpdated(update);
+            } else {
+                frame = encode(protocol, gson.toJson(message));
+            }
+            frames[protocol.ordinal()] = frame;
+        }
+        return frame;
+    }
+
+    private static byte[] encode(WireProtocol protocol, String json) {
+        return protocol == WireProtocol.BINARY ? BinaryCodec.json(json) : Connection.encodeLine(json);
     }
-}
 
+    private static byte[] encode(WireProtocol protocol, byte[] json) {
+        if (protocol == WireProtocol.BINARY) {
+            return BinaryCodec.json(json);
+        }
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+        line[json.length] = '\n';
+        return line;
+    }
 
+    private static JsonElement data(AuctionMessage message) {
+        return (JsonElement) message.getData();
+    }
 
+    private void writeResponse(Connection connection, AuctionMessage message) {
+        String json = gson.toJson(message);
+        log.debugSampled("Sending {}: {}", message.getType(), json);
+        connection.send(encode(connection.getProtocol(), json));
+    }
+}
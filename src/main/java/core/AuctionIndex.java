@@ -0,0 +1,145 @@
+package core;
+
+import model.Auction;
+import model.Money;
+import model.PriceState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+// Secondary indexes over the active auctions of an InMemoryDatabase: sorted by end time, by
+// current price and by bid count, plus auction ids by seller. A query walks the index of its
+// sort order from the cursor and stops after one page, so it never scans the whole catalogue
+// unless its filters reject nearly everything.
+class AuctionIndex {
+    private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID HIGHEST_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final ConcurrentSkipListSet<Key> byEndTime = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Key> byPrice = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListSet<Key> byBidCount = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, Set<UUID>> bySeller = new ConcurrentHashMap<>();
+    // The price and bid count keys each auction is indexed under right now.
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    void add(Auction auction) {
+        UUID id = auction.getId();
+        entries.compute(id, (key, old) -> {
+            if (old == null) {
+                byEndTime.add(new Key(auction.getEndTime(), id));
+                bySeller.computeIfAbsent(auction.getSeller(), seller -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            return reindex(auction, old);
+        });
+    }
+
+    // Called after every accepted bid. Updates of one auction are serialized by the map, and each
+    // reads the latest state, so the index settles on the newest price however the bids interleave.
+    void update(Auction auction) {
+        entries.computeIfPresent(auction.getId(), (key, old) -> reindex(auction, old));
+    }
+
+    void remove(Auction auction) {
+        UUID id = auction.getId();
+        entries.computeIfPresent(id, (key, old) -> {
+            byPrice.remove(old.price());
+            byBidCount.remove(old.bidCount());
+            byEndTime.remove(new Key(auction.getEndTime(), id));
+            bySeller.computeIfPresent(auction.getSeller(), (seller, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+            return null;
+        });
+    }
+
+    private Entry reindex(Auction auction, Entry old) {
+        if (old != null) {
+            byPrice.remove(old.price());
+            byBidCount.remove(old.bidCount());
+        }
+        PriceState state = auction.getPriceState();
+        Entry entry = new Entry(new Key(Money.comparable(state.price(), auction.getScale()), auction.getId()),
+                new Key(state.bidCount(), auction.getId()));
+        byPrice.add(entry.price());
+        byBidCount.add(entry.bidCount());
+        return entry;
+    }
+
+    AuctionPage query(AuctionQuery query, Function<UUID, Auction> lookup) {
+        AuctionQuery.Sort sort = query.getSort();
+        NavigableSet<Key> keys = query.getSeller() != null ? sellerKeys(query, lookup) : index(sort);
+        keys = narrow(keys, query);
+        if (sort.isDescending()) {
+            keys = keys.descendingSet();
+        }
+        AuctionQuery.Cursor cursor = query.getCursor();
+        if (cursor != null) {
+            keys = keys.tailSet(new Key(cursor.value(), UUID.fromString(cursor.id())), false);
+        }
+
+        int limit = query.getLimit();
+        List<Auction> page = new ArrayList<>(Math.min(limit, 64));
+        Key last = null;
+        for (Key key : keys) {
+            Auction auction = lookup.apply(key.id());
+            if (auction == null || !query.matches(auction)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                return new AuctionPage(page, new AuctionQuery.Cursor(sort, last.value(), last.id().toString()).encode());
+            }
+            page.add(auction);
+            last = key;
+        }
+        return new AuctionPage(page, null);
+    }
+
+    private NavigableSet<Key> index(AuctionQuery.Sort sort) {
+        return switch (sort) {
+            case ENDING_SOONEST -> byEndTime;
+            case PRICE_ASCENDING, PRICE_DESCENDING -> byPrice;
+            case MOST_BIDS -> byBidCount;
+        };
+    }
+
+    // A seller has few auctions next to the whole catalogue, so they are ordered on the spot.
+    private NavigableSet<Key> sellerKeys(AuctionQuery query, Function<UUID, Auction> lookup) {
+        NavigableSet<Key> keys = new TreeSet<>();
+        for (UUID id : bySeller.getOrDefault(query.getSeller(), Set.of())) {
+            Auction auction = lookup.apply(id);
+            if (auction != null) {
+                keys.add(new Key(AuctionQuery.sortValue(query.getSort(), auction), id));
+            }
+        }
+        return keys;
+    }
+
+    // Applies the filter on the sort's own dimension as a range of the index.
+    private static NavigableSet<Key> narrow(NavigableSet<Key> keys, AuctionQuery query) {
+        return switch (query.getSort()) {
+            case ENDING_SOONEST -> keys.headSet(new Key(query.getEndingBefore(), LOWEST_ID), false);
+            case PRICE_ASCENDING, PRICE_DESCENDING -> keys.subSet(
+                    new Key(query.getMinPrice(), LOWEST_ID), true, new Key(query.getMaxPrice(), HIGHEST_ID), true);
+            case MOST_BIDS -> keys;
+        };
+    }
+
+    private record Key(long value, UUID id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byValue = Long.compare(value, other.value);
+            return byValue != 0 ? byValue : id.compareTo(other.id);
+        }
+    }
+
+    private record Entry(Key price, Key bidCount) {
+    }
+}
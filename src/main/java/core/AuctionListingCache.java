@@ -0,0 +1,142 @@
+package core;
+
+import com.google.gson.Gson;
+import core.message.BinaryCodec;
+import core.net.WireProtocol;
+import model.Auction;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// The LIST_AUCTIONS reply, already encoded and shared by every client. It is tagged with the
+// database version it was built at and rebuilt on the first request after that version moves on.
+// A rebuild re-serializes only the auctions that changed and reuses the JSON of all the others.
+public class AuctionListingCache {
+    private static final byte[] PREFIX = "{\"type\":\"LIST_AUCTIONS\",\"data\":[".getBytes(StandardCharsets.UTF_8);
+    private static final String TYPE = "{\"type\":\"LIST_AUCTIONS\",";
+    private static final byte[] SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final Database database;
+    private final Gson gson;
+    private volatile Listing current = new Listing(-1, new byte[0], Map.of());
+
+    public AuctionListingCache(Database database, Gson gson) {
+        this.database = database;
+        this.gson = gson;
+    }
+
+    public byte[] get(WireProtocol protocol) {
+        return listing().encoded(protocol);
+    }
+
+    // The listing as the reply to one request. Carrying the request id makes it a copy of its own;
+    // the id is spliced in ahead of the shared auction JSON rather than re-serializing it.
+    public byte[] get(WireProtocol protocol, String requestId) {
+        if (requestId == null) {
+            return get(protocol);
+        }
+        byte[] json = listing().json;
+        byte[] head = (TYPE + "\"requestId\":" + gson.toJson(requestId) + ",").getBytes(StandardCharsets.UTF_8);
+        int tail = json.length - TYPE.length();
+        boolean line = protocol != WireProtocol.BINARY;
+        byte[] reply = new byte[head.length + tail + (line ? 1 : 0)];
+        System.arraycopy(head, 0, reply, 0, head.length);
+        System.arraycopy(json, TYPE.length(), reply, head.length, tail);
+        if (!line) {
+            return BinaryCodec.json(reply);
+        }
+        reply[reply.length - 1] = '\n';
+        return reply;
+    }
+
+    // The listed auctions alone: their JSON objects separated by commas, without the enclosing array.
+    public byte[] auctions() {
+        byte[] json = listing().json;
+        return Arrays.copyOfRange(json, PREFIX.length, json.length - SUFFIX.length);
+    }
+
+    private Listing listing() {
+        // Read the version before the auctions: a listing may then be newer than its tag, never older.
+        long version = database.getVersion();
+        Listing listing = current;
+        if (listing.version != version) {
+            listing = rebuild(version);
+        }
+        return listing;
+    }
+
+    private synchronized Listing rebuild(long version) {
+        Listing listing = current;
+        if (listing.version == version) {
+            return listing;
+        }
+
+        List<Auction> auctions = database.loadActiveAuctions();
+        Map<UUID, Fragment> fragments = new HashMap<>(auctions.size() * 2);
+        ByteArrayOutputStream json = new ByteArrayOutputStream(Math.max(listing.json.length, 256));
+        json.writeBytes(PREFIX);
+        for (int i = 0; i < auctions.size(); i++) {
+            Auction auction = auctions.get(i);
+            Fragment fragment = listing.fragments.get(auction.getId());
+            if (fragment == null || !fragment.matches(auction)) {
+                fragment = new Fragment(auction.getBidCount(), auction.getStatus(),
+                        gson.toJson(auction, Auction.class).getBytes(StandardCharsets.UTF_8));
+            }
+            fragments.put(auction.getId(), fragment);
+            if (i > 0) {
+                json.write(',');
+            }
+            json.writeBytes(fragment.json);
+        }
+        json.writeBytes(SUFFIX);
+
+        listing = new Listing(version, json.toByteArray(), fragments);
+        current = listing;
+        return listing;
+    }
+
+    // One auction's JSON and the state it was encoded from. Only bids and status changes alter an auction.
+    private record Fragment(int bidCount, Auction.AuctionStatus status, byte[] json) {
+        boolean matches(Auction auction) {
+            return bidCount == auction.getBidCount() && status == auction.getStatus();
+        }
+    }
+
+    private static final class Listing {
+        private final long version;
+        private final byte[] json;
+        private final Map<UUID, Fragment> fragments;
+        // Framed lazily per protocol; racing threads at worst frame the same bytes twice.
+        private volatile byte[] line;
+        private volatile byte[] frame;
+
+        private Listing(long version, byte[] json, Map<UUID, Fragment> fragments) {
+            this.version = version;
+            this.json = json;
+            this.fragments = fragments;
+        }
+
+        byte[] encoded(WireProtocol protocol) {
+            if (protocol == WireProtocol.BINARY) {
+                byte[] encoded = frame;
+                if (encoded == null) {
+                    frame = encoded = BinaryCodec.json(json);
+                }
+                return encoded;
+            }
+            byte[] encoded = line;
+            if (encoded == null) {
+                encoded = new byte[json.length + 1];
+                System.arraycopy(json, 0, encoded, 0, json.length);
+                encoded[json.length] = '\n';
+                line = encoded;
+            }
+            return encoded;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package core;
+
+import model.Auction;
+
+import java.util.List;
+
+// One page of a query. nextCursor is null on the last page, so it is absent from that page's JSON.
+public record AuctionPage(List<Auction> auctions, String nextCursor) {
+}
@@ -0,0 +1,153 @@
+package core;
+
+import com.google.gson.JsonObject;
+import model.Auction;
+import model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// Parameters of a LIST_AUCTIONS request that asks for one page instead of the whole catalogue.
+// Every filter is optional. A page ends where the next one's cursor picks up, so auctions that
+// change between requests are neither skipped nor repeated unless their sort position moved.
+public class AuctionQuery {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    public enum Sort {
+        ENDING_SOONEST, PRICE_ASCENDING, PRICE_DESCENDING, MOST_BIDS;
+
+        public boolean isDescending() {
+            return this == PRICE_DESCENDING || this == MOST_BIDS;
+        }
+    }
+
+    private final String seller;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    // Epoch seconds, exclusive.
+    private final Long endingBefore;
+    private final Sort sort;
+    private final String cursor;
+    private final Integer limit;
+
+    public AuctionQuery(String seller, BigDecimal minPrice, BigDecimal maxPrice, Long endingBefore, Sort sort,
+                        String cursor, Integer limit) {
+        this.seller = seller;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.endingBefore = endingBefore;
+        this.sort = sort;
+        this.cursor = cursor;
+        this.limit = limit;
+    }
+
+    // Fields arrive straight from JSON, so the checks run here rather than in the constructor.
+    public void validate() {
+        if (limit != null && (limit <= 0 || limit > MAX_LIMIT))
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0)
+            throw new IllegalArgumentException("Minimum price is above maximum price");
+        getCursor();
+    }
+
+    public String getSeller() {
+        return seller;
+    }
+
+    public Sort getSort() {
+        return sort == null ? Sort.ENDING_SOONEST : sort;
+    }
+
+    public int getLimit() {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+
+    public long getEndingBefore() {
+        return endingBefore == null ? Long.MAX_VALUE : endingBefore;
+    }
+
+    // Price bounds as Money.comparable values, inclusive.
+    public long getMinPrice() {
+        return minPrice == null ? 0 : Money.comparable(minPrice, RoundingMode.CEILING);
+    }
+
+    public long getMaxPrice() {
+        return maxPrice == null ? Long.MAX_VALUE : Money.comparable(maxPrice, RoundingMode.FLOOR);
+    }
+
+    public Cursor getCursor() {
+        return cursor == null ? null : Cursor.decode(cursor, getSort());
+    }
+
+    public boolean matches(Auction auction) {
+        return matches(auction.getStatus(), auction.getSeller(),
+                Money.comparable(auction.getCurrentPrice(), auction.getScale()), auction.getEndTime());
+    }
+
+    // price is a Money.comparable value.
+    public boolean matches(Auction.AuctionStatus status, String seller, long price, long endTime) {
+        if (status.isClosed()) {
+            return false;
+        }
+        if (this.seller != null && !this.seller.equals(seller)) {
+            return false;
+        }
+        return price >= getMinPrice() && price <= getMaxPrice() && endTime < getEndingBefore();
+    }
+
+    // The value the auction is ordered by; ties are broken by auction id.
+    public static long sortValue(Sort sort, Auction auction) {
+        return switch (sort) {
+            case ENDING_SOONEST -> auction.getEndTime();
+            case PRICE_ASCENDING, PRICE_DESCENDING -> Money.comparable(auction.getCurrentPrice(), auction.getScale());
+            case MOST_BIDS -> auction.getBidCount();
+        };
+    }
+
+    // The same value read from an auction's JSON, as another node of a cluster sends it.
+    public static long sortValue(Sort sort, JsonObject auction) {
+        return switch (sort) {
+            case ENDING_SOONEST -> auction.get("endTime").getAsLong();
+            case PRICE_ASCENDING, PRICE_DESCENDING -> Money.comparable(auction.get("currentPrice").getAsBigDecimal(), RoundingMode.FLOOR);
+            case MOST_BIDS -> auction.get("bidCount").getAsLong();
+        };
+    }
+
+    // Position of the last auction on a page. Opaque to clients, and only valid for the sort it was made for.
+    public record Cursor(Sort sort, long value, String id) {
+
+        public String encode() {
+            String plain = sort.ordinal() + ":" + value + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded, Sort sort) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(":", 3);
+                if (parts.length == 3 && Integer.parseInt(parts[0]) == sort.ordinal()) {
+                    return new Cursor(sort, Long.parseLong(parts[1]), UUID.fromString(parts[2]).toString());
+                }
+            } catch (IllegalArgumentException e) {
+                // Falls through to the error below.
+            }
+            throw new IllegalArgumentException("Invalid cursor for sort " + sort);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AuctionQuery{" +
+                "seller='" + seller + '\'' +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", endingBefore=" + endingBefore +
+                ", sort=" + sort +
+                ", cursor='" + cursor + '\'' +
+                ", limit=" + limit +
+                '}';
+    }
+}
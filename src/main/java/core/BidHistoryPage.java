@@ -0,0 +1,11 @@
+package core;
+
+import model.Bid;
+
+import java.util.List;
+import java.util.UUID;
+
+// A range of an auction's bids, oldest first. offset counts from the auction's first bid and
+// total is the number of bids the auction had when the page was read.
+public record BidHistoryPage(UUID auctionId, int total, int offset, List<Bid> bids) {
+}
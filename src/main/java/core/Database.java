@@ -1,59 +1,54 @@
 package core;
 
 import model.Auction;
+import model.AuctionOutcome;
 import model.Bid;
-import java.util.*;
-
-public class Database {
-    private final Map<UUID, Auction> auctions;
-    private final Map<UUID, Set<Bid>> auctionBids;
-
-    public Database(Map<UUID, Auction> auctions, Map<UUID, Set<Bid>> auctionBids) {
-        this.auctions = auctions;
-        this.auctionBids = auctionBids;
-    }
-
-    public List<Auction> loadActiveAuctions() {
-        List<Auction> activeAuctions = new ArrayList<>(auctions.values());
-        activeAuctions.forEach(this::loadBidsForAuction);
-        return activeAuctions;
-    }
-
-    private void loadBidsForAuction(Auction auction) {
-        Set<Bid> bids = auctionBids.getOrDefault(auction.getId(), new HashSet<>());
-        bids.forEach(auction::addBid);
-    }
-
-    public Auction getAuction(UUID id) {
-        Auction auction = auctions.get(id);
-        if (auction != null) {
-            loadBidsForAuction(auction);
-        }
-        return auction;
-    }
-
-    public void createAuction(Auction auction) {
-        auctions.put(auction.getId(), auction);
-        auctionBids.putIfAbsent(auction.getId(), new HashSet<>());
-    }
-
-    public void saveBid(Bid bid) {
-        Auction auction = auctions.get(bid.getAuctionId());
-        if (auction != null) {
-            Set<Bid> bids = auctionBids.computeIfAbsent(bid.getAuctionId(), k -> new HashSet<>());
-            bids.add(bid);
-            auction.addBid(bid);
-        }
-    }
-
-    public boolean isAuctionNameTaken(String name){
-        String normalizedName = name.toLowerCase();
-
-        return auctions.values().stream().anyMatch(auction -> auction.getName().toLowerCase().equals(normalizedName));
-    }
-
-    public void shutdown() {
-        auctions.clear();
-        auctionBids.clear();
-    }
-}
\ No newline at end of file
+import model.BidResult;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Where auctions and bids live. InMemoryDatabase keeps them in this process,
+// RedisDatabase in a Redis server that several Bidly instances can share.
+public interface Database {
+    // Auctions that have not ended yet, pending or active. Closed auctions leave this working set.
+    List<Auction> loadActiveAuctions();
+
+    // One page of the active auctions that pass the query's filters, in its sort order. Served from
+    // secondary indexes, not by scanning every auction.
+    AuctionPage queryAuctions(AuctionQuery query);
+
+    // Up to limit bids of the auction starting at offset, without reading the rest of its history.
+    // Null if the auction does not exist.
+    BidHistoryPage getBidHistory(UUID auctionId, int offset, int limit);
+
+    // Also finds auctions that have ended.
+    Auction getAuction(UUID id);
+
+    // Changes whenever an auction is created, opened or closed or a bid accepted, so readers can tell whether
+    // anything they derived from loadActiveAuctions is still current.
+    long getVersion();
+
+    boolean isAuctionNameTaken(String name);
+
+    // Stores the auction if its name is still free. Returns false if another auction holds the name.
+    boolean createAuction(Auction auction);
+
+    // Validates the bid against the auction's current price and records it as one atomic step.
+    // The future completes once the outcome is final and, when accepted, the bid is stored.
+    CompletableFuture<BidResult> placeBid(Bid bid);
+
+    // Registers the bid's price as the most its bidder will pay and settles it against the leader's
+    // maximum in the same atomic step; see Auction.setMaxBid. Completes like placeBid.
+    CompletableFuture<BidResult> setMaxBid(Bid bid);
+
+    // Moves a pending auction to ACTIVE. Returns false if it was not pending or does not exist.
+    boolean activateAuction(UUID id);
+
+    // Ends the auction, settles its winner and drops it from the active set. Closing an auction
+    // that has already ended returns the same outcome again; an unknown auction gives null.
+    AuctionOutcome closeAuction(UUID id);
+
+    void shutdown();
+}
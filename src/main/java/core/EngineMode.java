@@ -0,0 +1,16 @@
+package core;
+
+public enum EngineMode {
+    // A bid is applied on the thread that read it, racing other threads on the auction's compare-and-set.
+    SHARED,
+    // Auctions are hashed over single-threaded shards that apply their bids in queue order.
+    SHARDED;
+
+    public static EngineMode parse(String value) {
+        try {
+            return EngineMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown engine mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package core;
+
+import core.persistence.Journal;
+import core.persistence.RecordCodec;
+import model.Auction;
+import model.AuctionOutcome;
+import model.Bid;
+import model.BidResult;
+import model.PriceState;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Auctions own their bidding history, so reads never replay bids and no bid is held twice.
+public class InMemoryDatabase implements Database {
+    private static final String JOURNAL_FAILED = "Bids are not being accepted: the server can no longer save them";
+    private static final String NOT_SAVED = "Bid took effect but could not be saved; it will be lost if the server restarts";
+
+    // The active working set; auctions move to closedAuctions when they end.
+    private final Map<UUID, Auction> auctions;
+    private final Map<UUID, Auction> closedAuctions = new ConcurrentHashMap<>();
+    // Normalized auction name -> id of the auction holding it.
+    private final ConcurrentHashMap<String, UUID> auctionNames = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AuctionIndex index = new AuctionIndex();
+    private volatile Journal journal;
+
+    public InMemoryDatabase(Map<UUID, Auction> auctions) {
+        this.auctions = auctions;
+        auctions.values().forEach(auction -> {
+            auctionNames.put(normalizeName(auction.getName()), auction.getId());
+            index.add(auction);
+        });
+    }
+
+    // Every later auction and bid is written to the journal; null turns journaling off.
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public List<Auction> loadActiveAuctions() {
+        return new ArrayList<>(auctions.values());
+    }
+
+    // Active and closed auctions, e.g. for snapshots.
+    public List<Auction> loadAllAuctions() {
+        List<Auction> all = new ArrayList<>(auctions.size() + closedAuctions.size());
+        all.addAll(auctions.values());
+        all.addAll(closedAuctions.values());
+        return all;
+    }
+
+    @Override
+    public Auction getAuction(UUID id) {
+        Auction auction = auctions.get(id);
+        return auction != null ? auction : closedAuctions.get(id);
+    }
+
+    @Override
+    public AuctionPage queryAuctions(AuctionQuery query) {
+        return index.query(query, auctions::get);
+    }
+
+    @Override
+    public BidHistoryPage getBidHistory(UUID auctionId, int offset, int limit) {
+        Auction auction = getAuction(auctionId);
+        if (auction == null) {
+            return null;
+        }
+        List<Bid> bids = auction.getBids(offset, limit);
+        return new BidHistoryPage(auctionId, auction.getHistory().size(), offset, bids);
+    }
+
+    // Bumped after each change is visible, so a reader that saw version v also sees every change up to v.
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Reserving the name and storing the auction is one atomic step per name, so two concurrent
+    // creations can never both succeed. With a journal this returns once the auction is as durable
+    // as the journal promises.
+    @Override
+    public boolean createAuction(Auction auction) {
+        if (!reserveAuctionName(auction.getName(), auction.getId())) {
+            return false;
+        }
+        try {
+            auctions.put(auction.getId(), auction);
+            index.add(auction);
+            version.incrementAndGet();
+            Journal journal = this.journal;
+            if (journal != null) {
+                journal.append(Journal.AUCTION_CREATED, RecordCodec.encodeAuction(auction)).join();
+            }
+        } catch (RuntimeException e) {
+            auctions.remove(auction.getId());
+            index.remove(auction);
+            releaseAuctionName(auction.getName(), auction.getId());
+            throw e;
+        }
+        return true;
+    }
+
+    // Acceptance is Auction.placeBid's compare-and-set; the future then waits for the journal, if any.
+    // Once the journal has failed bids are refused before they change anything, since nothing they
+    // change could be made durable. A bid whose own record fails was already seen by everyone; its
+    // future fails with a message saying so.
+    @Override
+    public CompletableFuture<BidResult> placeBid(Bid bid) {
+        Auction auction = getAuction(bid.getAuctionId());
+        if (auction == null) {
+            return CompletableFuture.completedFuture(BidResult.auctionNotFound());
+        }
+        if (journalFailed()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(JOURNAL_FAILED));
+        }
+        return settled(auction, bid, auction.placeBid(bid));
+    }
+
+    @Override
+    public CompletableFuture<BidResult> setMaxBid(Bid bid) {
+        Auction auction = getAuction(bid.getAuctionId());
+        if (auction == null) {
+            return CompletableFuture.completedFuture(BidResult.auctionNotFound());
+        }
+        if (journalFailed()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(JOURNAL_FAILED));
+        }
+        return settled(auction, bid, auction.setMaxBid(bid));
+    }
+
+    private boolean journalFailed() {
+        Journal journal = this.journal;
+        return journal != null && journal.isFailed();
+    }
+
+    private CompletableFuture<BidResult> settled(Auction auction, Bid bid, BidResult result) {
+        if (result.moved()) {
+            index.update(auction);
+            version.incrementAndGet();
+        } else if (result.status() != BidResult.Status.MAXIMUM_RAISED) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return save(auction, bid, result).handle((saved, error) -> {
+            if (error != null) {
+                throw new IllegalStateException(NOT_SAVED, error);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public boolean activateAuction(UUID id) {
+        Auction auction = auctions.get(id);
+        if (auction == null || !auction.activate()) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    // Nothing is journaled: a restored auction is closed again by the scheduler once its end time
+    // is seen to have passed, and snapshots record the final status.
+    @Override
+    public AuctionOutcome closeAuction(UUID id) {
+        Auction auction = getAuction(id);
+        if (auction == null) {
+            return null;
+        }
+        auction.close();
+        // Listed as closed before it leaves the active set, so lookups never miss it.
+        closedAuctions.put(id, auction);
+        if (auctions.remove(id, auction)) {
+            index.remove(auction);
+            version.incrementAndGet();
+        }
+        return AuctionOutcome.of(auction);
+    }
+
+    // Journals what the bid changed: the bid the history gained, if it moved the price, and the
+    // leader's maximum whenever it is above the price. The history holds the price the bid settled
+    // on, which is the bid itself unless a maximum bid was involved. The future completes once
+    // everything is as durable as the journal promises, right away without a journal.
+    private CompletableFuture<Void> save(Auction auction, Bid bid, BidResult result) {
+        Journal journal = this.journal;
+        if (journal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        PriceState state = result.state();
+        CompletableFuture<Void> saved = CompletableFuture.completedFuture(null);
+        if (result.moved()) {
+            Bid recorded = bid;
+            if (state.price() != bid.getPriceAt(auction.getScale()) || !Objects.equals(state.topBidder(), bid.getUserName())) {
+                recorded = new Bid(bid.getId(), state.topBidder(), auction.getId(), state.price(), auction.getScale());
+                recorded.setTimestamp(bid.getTimestamp());
+            }
+            saved = journal.append(Journal.BID_PLACED, RecordCodec.encodeBid(recorded, state.bidCount()));
+        }
+        if (state.maximum() > state.price()) {
+            saved = CompletableFuture.allOf(saved, journal.append(Journal.MAX_BID_SET,
+                    RecordCodec.encodeMaximum(auction.getId(), state.bidCount(), state.maximum())));
+        }
+        return saved;
+    }
+
+    public void restoreAuction(Auction auction) {
+        Map<UUID, Auction> target = auction.getStatus().isClosed() ? closedAuctions : auctions;
+        if (getAuction(auction.getId()) == null && target.putIfAbsent(auction.getId(), auction) == null) {
+            auctionNames.put(normalizeName(auction.getName()), auction.getId());
+            if (target == auctions) {
+                index.add(auction);
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    // Adds a previously accepted bid to its auction, e.g. when restoring state. A sequence number
+    // the auction already holds is ignored, which is how records both a snapshot and the journal hold are skipped.
+    public void restoreBid(Bid bid, int sequence) {
+        Auction auction = getAuction(bid.getAuctionId());
+        if (auction != null && auction.addBid(bid, sequence)) {
+            index.update(auction);
+            version.incrementAndGet();
+        }
+    }
+
+    // Re-applies a journaled or snapshotted maximum bid; see Auction.restoreMaximum.
+    public void restoreMaximum(UUID auctionId, int sequence, long maximum) {
+        Auction auction = getAuction(auctionId);
+        if (auction != null) {
+            auction.restoreMaximum(sequence, maximum);
+        }
+    }
+
+    @Override
+    public boolean isAuctionNameTaken(String name){
+        return auctionNames.containsKey(normalizeName(name));
+    }
+
+    public boolean reserveAuctionName(String name, UUID auctionId) {
+        return auctionNames.putIfAbsent(normalizeName(name), auctionId) == null;
+    }
+
+    public void releaseAuctionName(String name, UUID auctionId) {
+        auctionNames.remove(normalizeName(name), auctionId);
+    }
+
+    private static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void shutdown() {
+        journal = null;
+    }
+}
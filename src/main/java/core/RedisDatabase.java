@@ -0,0 +1,586 @@
+package core;
+
+import core.log.Log;
+import core.log.Logger;
+import model.Auction;
+import model.AuctionOutcome;
+import model.Bid;
+import model.BidResult;
+import model.Money;
+import model.PriceState;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.resps.Tuple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps auctions in Redis so several Bidly instances can share them.
+//   bidly:auctions              set of ids of auctions that have not ended
+//   bidly:closed-auctions       set of ids of auctions that have ended
+//   bidly:auction-names         hash of lower-cased name -> auction id
+//   bidly:auction:<id>          hash of the auction's fields, current price, top bidder and bid count
+//   bidly:auction:<id>:bids     list of bids, oldest first, as id|timestamp|price|scale|bidder
+// Prices are integer minor units, as in model.Money.
+//   bidly:index:end-time        sorted set of active auction ids by end time
+//   bidly:index:price           sorted set of active auction ids by current price, as Money.comparable
+//   bidly:index:bid-count       sorted set of active auction ids by bid count
+//   bidly:seller:<seller>       set of ids of every auction the seller created
+//   bidly:version               counter bumped by every auction created, opened or closed and bid accepted
+// Bids are validated and appended by a Lua script, so acceptance is atomic across instances. Status
+// changes are scripts too; whichever instance runs one first wins and the others see the result.
+public class RedisDatabase implements Database {
+    private static final Logger log = Log.get(RedisDatabase.class);
+
+    private static final String AUCTIONS = "bidly:auctions";
+    private static final String AUCTION_NAMES = "bidly:auction-names";
+    private static final String CLOSED_AUCTIONS = "bidly:closed-auctions";
+    private static final String VERSION = "bidly:version";
+    private static final String BY_END_TIME = "bidly:index:end-time";
+    private static final String BY_PRICE = "bidly:index:price";
+    private static final String BY_BID_COUNT = "bidly:index:bid-count";
+
+    // Prices are integer minor units at the auction's scale, compared as digit strings so Lua's
+    // doubles never round them. Java works out the next minimum bid, since only it knows the increment.
+    // KEYS: auction hash, bid list, version, price index, bid count index.
+    // ARGV: price, price + increment, encoded bid, bidder, now in seconds, comparable price, auction id.
+    private static final String PLACE_BID_SCRIPT = """
+            local function less(a, b)
+              if #a ~= #b then return #a < #b end
+              return a < b
+            end
+            local auction = redis.call('HMGET', KEYS[1], 'minimumNextBid', 'endTime', 'currentPrice', 'bidCount', 'topBidder', 'status')
+            if not auction[1] then return {'AUCTION_NOT_FOUND'} end
+            if auction[6] ~= 'ACTIVE' or tonumber(ARGV[5]) >= tonumber(auction[2]) then
+              return {'NOT_OPEN', auction[3], auction[4], auction[5] or ''}
+            end
+            if string.sub(ARGV[1], 1, 1) == '-' or less(ARGV[1], auction[1]) then
+              return {'REJECTED', auction[3], auction[4], auction[5] or ''}
+            end
+            local count = redis.call('HINCRBY', KEYS[1], 'bidCount', 1)
+            redis.call('HSET', KEYS[1], 'currentPrice', ARGV[1], 'minimumNextBid', ARGV[2], 'topBidder', ARGV[4])
+            redis.call('RPUSH', KEYS[2], ARGV[3])
+            redis.call('ZADD', KEYS[4], ARGV[6], ARGV[7])
+            redis.call('ZADD', KEYS[5], count, ARGV[7])
+            redis.call('INCR', KEYS[3])
+            return {'ACCEPTED', ARGV[1], tostring(count), ARGV[4]}
+            """;
+
+    // KEYS: auction hash, version. Returns 1 if the auction went from PENDING to ACTIVE.
+    private static final String ACTIVATE_SCRIPT = """
+            if redis.call('HGET', KEYS[1], 'status') ~= 'PENDING' then return 0 end
+            redis.call('HSET', KEYS[1], 'status', 'ACTIVE')
+            redis.call('INCR', KEYS[2])
+            return 1
+            """;
+
+    // KEYS: auction hash, active set, closed set, version, end time, price and bid count indexes. ARGV: auction id.
+    // Returns the final status, price, bid count and top bidder, whether or not this call closed it.
+    private static final String CLOSE_SCRIPT = """
+            local auction = redis.call('HMGET', KEYS[1], 'status', 'currentPrice', 'bidCount', 'topBidder')
+            if not auction[1] then return nil end
+            if auction[1] == 'PENDING' or auction[1] == 'ACTIVE' then
+              auction[1] = tonumber(auction[3]) > 0 and 'SOLD' or 'ENDED'
+              redis.call('HSET', KEYS[1], 'status', auction[1])
+              redis.call('SMOVE', KEYS[2], KEYS[3], ARGV[1])
+              for i = 5, 7 do redis.call('ZREM', KEYS[i], ARGV[1]) end
+              redis.call('INCR', KEYS[4])
+            end
+            return {auction[1], auction[2], auction[3], auction[4] or ''}
+            """;
+
+    private final JedisPool pool;
+    // Scale and increment never change, so each instance looks them up once per auction.
+    private final ConcurrentHashMap<UUID, Terms> terms = new ConcurrentHashMap<>();
+    private volatile String placeBidSha;
+    private volatile String activateSha;
+    private volatile String closeSha;
+
+    public RedisDatabase(String host, int port, int poolSize) {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(poolSize);
+        config.setMaxIdle(poolSize);
+        this.pool = new JedisPool(config, host, port);
+        try (Jedis jedis = pool.getResource()) {
+            placeBidSha = jedis.scriptLoad(PLACE_BID_SCRIPT);
+            activateSha = jedis.scriptLoad(ACTIVATE_SCRIPT);
+            closeSha = jedis.scriptLoad(CLOSE_SCRIPT);
+            if (!jedis.exists(BY_END_TIME) && jedis.scard(AUCTIONS) > 0) {
+                rebuildIndexes(jedis);
+            }
+        }
+        log.info("Using Redis at {}:{}", host, port);
+    }
+
+    private static String auctionKey(UUID id) {
+        return "bidly:auction:" + id;
+    }
+
+    private static String bidsKey(UUID id) {
+        return "bidly:auction:" + id + ":bids";
+    }
+
+    private static String sellerKey(String seller) {
+        return "bidly:seller:" + seller;
+    }
+
+    private static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public List<Auction> loadActiveAuctions() {
+        try (Jedis jedis = pool.getResource()) {
+            return loadAuctions(jedis, jedis.smembers(AUCTIONS));
+        }
+    }
+
+    // Fetches the auctions in one pipelined round trip, in the order of ids. Their bids are left in
+    // Redis; the hash holds the price, leader and count, and getBidHistory pages through the rest.
+    private static List<Auction> loadAuctions(Jedis jedis, Collection<String> ids) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<Map<String, String>>> fields = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            fields.add(pipeline.hgetAll(auctionKey(UUID.fromString(id))));
+        }
+        pipeline.sync();
+
+        List<Auction> auctions = new ArrayList<>(ids.size());
+        for (Response<Map<String, String>> response : fields) {
+            Map<String, String> auction = response.get();
+            if (!auction.isEmpty()) {
+                auctions.add(toAuction(auction));
+            }
+        }
+        return auctions;
+    }
+
+    // Walks the sorted set of the query's sort order from the cursor in batches, filtering each batch
+    // with one pipelined HMGET, until a page is full. Only the page's auctions are loaded in full.
+    // Scores are doubles, so prices above 2^53 comparable units (about 90 million) order approximately.
+    @Override
+    public AuctionPage queryAuctions(AuctionQuery query) {
+        try (Jedis jedis = pool.getResource()) {
+            List<Candidate> matches = query.getSeller() != null ? sellerCandidates(jedis, query) : indexCandidates(jedis, query);
+            int limit = query.getLimit();
+            String nextCursor = null;
+            if (matches.size() > limit) {
+                Candidate last = matches.get(limit - 1);
+                nextCursor = new AuctionQuery.Cursor(query.getSort(), last.sortValue(), last.id()).encode();
+                matches = matches.subList(0, limit);
+            }
+            List<String> ids = new ArrayList<>(matches.size());
+            for (Candidate candidate : matches) {
+                ids.add(candidate.id());
+            }
+            return new AuctionPage(loadAuctions(jedis, ids), nextCursor);
+        }
+    }
+
+    // Up to limit + 1 matching candidates in sort order, the extra one telling whether another page follows.
+    private List<Candidate> indexCandidates(Jedis jedis, AuctionQuery query) {
+        AuctionQuery.Sort sort = query.getSort();
+        AuctionQuery.Cursor cursor = query.getCursor();
+        String key;
+        String min = "-inf";
+        String max = "+inf";
+        switch (sort) {
+            case ENDING_SOONEST -> {
+                key = BY_END_TIME;
+                if (query.getEndingBefore() != Long.MAX_VALUE) {
+                    max = "(" + query.getEndingBefore();
+                }
+            }
+            case PRICE_ASCENDING, PRICE_DESCENDING -> {
+                key = BY_PRICE;
+                min = Long.toString(query.getMinPrice());
+                max = Long.toString(query.getMaxPrice());
+            }
+            default -> key = BY_BID_COUNT;
+        }
+        // Equal scores are ordered by member, so the cursor's score is included and its ties skipped below.
+        if (cursor != null) {
+            if (sort.isDescending()) {
+                max = Long.toString(cursor.value());
+            } else {
+                min = Long.toString(cursor.value());
+            }
+        }
+
+        int wanted = query.getLimit() + 1;
+        int batch = Math.max(wanted, 64);
+        List<Candidate> matches = new ArrayList<>(wanted);
+        for (int offset = 0; matches.size() < wanted; offset += batch) {
+            List<Tuple> entries = sort.isDescending()
+                    ? jedis.zrevrangeByScoreWithScores(key, max, min, offset, batch)
+                    : jedis.zrangeByScoreWithScores(key, min, max, offset, batch);
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            for (Tuple entry : entries) {
+                Candidate candidate = new Candidate(entry.getElement(), (long) entry.getScore());
+                if (cursor == null || candidate.after(cursor, sort.isDescending())) {
+                    candidates.add(candidate);
+                }
+            }
+            filter(jedis, query, candidates, matches, wanted);
+            if (entries.size() < batch) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    // A seller's auctions are few next to the whole catalogue, so they are filtered and sorted here.
+    private List<Candidate> sellerCandidates(Jedis jedis, AuctionQuery query) {
+        AuctionQuery.Sort sort = query.getSort();
+        List<String> ids = new ArrayList<>(jedis.smembers(sellerKey(query.getSeller())));
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<String>>> fields = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            fields.add(pipeline.hmget(auctionKey(UUID.fromString(id)), "status", "endTime", "currentPrice", "scale", "bidCount"));
+        }
+        pipeline.sync();
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            List<String> auction = fields.get(i).get();
+            if (auction.get(0) == null) {
+                continue;
+            }
+            long endTime = Long.parseLong(auction.get(1));
+            long price = Money.comparable(Long.parseLong(auction.get(2)), Integer.parseInt(auction.get(3)));
+            if (query.matches(Auction.AuctionStatus.valueOf(auction.get(0)), query.getSeller(), price, endTime)) {
+                long sortValue = switch (sort) {
+                    case ENDING_SOONEST -> endTime;
+                    case PRICE_ASCENDING, PRICE_DESCENDING -> price;
+                    case MOST_BIDS -> Long.parseLong(auction.get(4));
+                };
+                candidates.add(new Candidate(ids.get(i), sortValue));
+            }
+        }
+        Comparator<Candidate> order = Comparator.comparingLong(Candidate::sortValue).thenComparing(Candidate::id);
+        candidates.sort(sort.isDescending() ? order.reversed() : order);
+
+        AuctionQuery.Cursor cursor = query.getCursor();
+        List<Candidate> matches = new ArrayList<>(query.getLimit() + 1);
+        for (Candidate candidate : candidates) {
+            if (cursor == null || candidate.after(cursor, sort.isDescending())) {
+                matches.add(candidate);
+                if (matches.size() > query.getLimit()) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Adds the candidates that pass the query's filters to matches, in order, until it holds wanted.
+    private static void filter(Jedis jedis, AuctionQuery query, List<Candidate> candidates, List<Candidate> matches, int wanted) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<String>>> fields = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            fields.add(pipeline.hmget(auctionKey(UUID.fromString(candidate.id())), "status", "seller", "currentPrice", "scale", "endTime"));
+        }
+        pipeline.sync();
+        for (int i = 0; i < candidates.size() && matches.size() < wanted; i++) {
+            List<String> auction = fields.get(i).get();
+            if (auction.get(0) != null && query.matches(Auction.AuctionStatus.valueOf(auction.get(0)), auction.get(1),
+                    Money.comparable(Long.parseLong(auction.get(2)), Integer.parseInt(auction.get(3))),
+                    Long.parseLong(auction.get(4)))) {
+                matches.add(candidates.get(i));
+            }
+        }
+    }
+
+    // Indexes auctions stored before the indexes existed.
+    private static void rebuildIndexes(Jedis jedis) {
+        List<String> ids = new ArrayList<>(jedis.smembers(AUCTIONS));
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<String>>> fields = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            fields.add(pipeline.hmget(auctionKey(UUID.fromString(id)), "endTime", "currentPrice", "scale", "bidCount", "seller"));
+        }
+        pipeline.sync();
+
+        pipeline = jedis.pipelined();
+        for (int i = 0; i < ids.size(); i++) {
+            List<String> auction = fields.get(i).get();
+            if (auction.get(0) == null) {
+                continue;
+            }
+            String id = ids.get(i);
+            pipeline.zadd(BY_END_TIME, Long.parseLong(auction.get(0)), id);
+            pipeline.zadd(BY_PRICE, Money.comparable(Long.parseLong(auction.get(1)), Integer.parseInt(auction.get(2))), id);
+            pipeline.zadd(BY_BID_COUNT, Long.parseLong(auction.get(3)), id);
+            pipeline.sadd(sellerKey(auction.get(4)), id);
+        }
+        pipeline.sync();
+        log.info("Indexed {} auctions", ids.size());
+    }
+
+    @Override
+    public Auction getAuction(UUID id) {
+        try (Jedis jedis = pool.getResource()) {
+            Map<String, String> fields = jedis.hgetAll(auctionKey(id));
+            return fields.isEmpty() ? null : toAuction(fields);
+        }
+    }
+
+    @Override
+    public BidHistoryPage getBidHistory(UUID auctionId, int offset, int limit) {
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<Boolean> exists = pipeline.exists(auctionKey(auctionId));
+            Response<Long> total = pipeline.llen(bidsKey(auctionId));
+            Response<List<String>> encoded = pipeline.lrange(bidsKey(auctionId), offset, (long) offset + limit - 1);
+            pipeline.sync();
+            if (!exists.get()) {
+                return null;
+            }
+            List<Bid> bids = new ArrayList<>(encoded.get().size());
+            for (String bid : encoded.get()) {
+                bids.add(decodeBid(auctionId, bid));
+            }
+            return new BidHistoryPage(auctionId, total.get().intValue(), offset, bids);
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        try (Jedis jedis = pool.getResource()) {
+            String version = jedis.get(VERSION);
+            return version == null ? 0 : Long.parseLong(version);
+        }
+    }
+
+    @Override
+    public boolean isAuctionNameTaken(String name) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.hexists(AUCTION_NAMES, normalizeName(name));
+        }
+    }
+
+    @Override
+    public boolean createAuction(Auction auction) {
+        String id = auction.getId().toString();
+        String name = normalizeName(auction.getName());
+        try (Jedis jedis = pool.getResource()) {
+            if (jedis.hsetnx(AUCTION_NAMES, name, id) == 0) {
+                return false;
+            }
+            try {
+                Transaction transaction = jedis.multi();
+                transaction.hset(auctionKey(auction.getId()), toFields(auction));
+                transaction.sadd(AUCTIONS, id);
+                transaction.zadd(BY_END_TIME, auction.getEndTime(), id);
+                transaction.zadd(BY_PRICE, Money.comparable(auction.getCurrentPrice(), auction.getScale()), id);
+                transaction.zadd(BY_BID_COUNT, 0, id);
+                transaction.sadd(sellerKey(auction.getSeller()), id);
+                transaction.incr(VERSION);
+                transaction.exec();
+            } catch (RuntimeException e) {
+                jedis.hdel(AUCTION_NAMES, name);
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public CompletableFuture<BidResult> placeBid(Bid bid) {
+        // The handler already turns away bids without a bidder; the script needs a name to record.
+        if (bid.getUserName() == null) {
+            return CompletableFuture.completedFuture(BidResult.invalidBid());
+        }
+        UUID auctionId = bid.getAuctionId();
+        try (Jedis jedis = pool.getResource()) {
+            Terms auction = terms.get(auctionId);
+            if (auction == null) {
+                List<String> stored = jedis.hmget(auctionKey(auctionId), "scale", "minimumBidIncrement");
+                if (stored.get(0) == null) {
+                    return CompletableFuture.completedFuture(BidResult.auctionNotFound());
+                }
+                auction = new Terms(Integer.parseInt(stored.get(0)), Long.parseLong(stored.get(1)));
+                terms.put(auctionId, auction);
+            }
+
+            long price = bid.getPriceAt(auction.scale());
+            if (price == Money.UNREPRESENTABLE) {
+                return CompletableFuture.completedFuture(
+                        BidResult.invalidPrice(currentState(jedis, auctionId), auction.minimumBidIncrement(), auction.scale()));
+            }
+
+            List<String> keys = List.of(auctionKey(auctionId), bidsKey(auctionId), VERSION, BY_PRICE, BY_BID_COUNT);
+            List<String> args = List.of(
+                    Long.toString(price),
+                    Long.toString(price + auction.minimumBidIncrement()),
+                    encodeBid(bid),
+                    bid.getUserName(),
+                    Long.toString(System.currentTimeMillis() / 1000),
+                    Long.toString(Money.comparable(price, auction.scale())),
+                    auctionId.toString()
+            );
+            @SuppressWarnings("unchecked")
+            List<Object> reply = (List<Object>) evalPlaceBid(jedis, keys, args);
+
+            BidResult.Status status = BidResult.Status.valueOf((String) reply.get(0));
+            if (status == BidResult.Status.AUCTION_NOT_FOUND) {
+                return CompletableFuture.completedFuture(BidResult.auctionNotFound());
+            }
+            long currentPrice = Long.parseLong((String) reply.get(1));
+            int bidCount = Integer.parseInt((String) reply.get(2));
+            String topBidder = (String) reply.get(3);
+            PriceState state = new PriceState(currentPrice, topBidder.isEmpty() ? null : topBidder, bidCount,
+                    status == BidResult.Status.NOT_OPEN);
+            return CompletableFuture.completedFuture(new BidResult(status, state, auction.minimumBidIncrement(), auction.scale()));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static PriceState currentState(Jedis jedis, UUID auctionId) {
+        List<String> current = jedis.hmget(auctionKey(auctionId), "currentPrice", "bidCount", "topBidder");
+        String topBidder = current.get(2);
+        return new PriceState(Long.parseLong(current.get(0)), topBidder == null || topBidder.isEmpty() ? null : topBidder,
+                Integer.parseInt(current.get(1)), false);
+    }
+
+    // The bid script settles plain bids only; maximum bids live in the memory store's price state.
+    @Override
+    public CompletableFuture<BidResult> setMaxBid(Bid bid) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Maximum bids are not supported with the Redis store"));
+    }
+
+    private Object evalPlaceBid(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(placeBidSha, keys, args);
+        } catch (JedisNoScriptException e) {
+            // The server lost its script cache, e.g. after a restart.
+            placeBidSha = jedis.scriptLoad(PLACE_BID_SCRIPT);
+            return jedis.evalsha(placeBidSha, keys, args);
+        }
+    }
+
+    @Override
+    public boolean activateAuction(UUID id) {
+        try (Jedis jedis = pool.getResource()) {
+            List<String> keys = List.of(auctionKey(id), VERSION);
+            Object reply;
+            try {
+                reply = jedis.evalsha(activateSha, keys, List.of());
+            } catch (JedisNoScriptException e) {
+                activateSha = jedis.scriptLoad(ACTIVATE_SCRIPT);
+                reply = jedis.evalsha(activateSha, keys, List.of());
+            }
+            return Long.valueOf(1).equals(reply);
+        }
+    }
+
+    @Override
+    public AuctionOutcome closeAuction(UUID id) {
+        try (Jedis jedis = pool.getResource()) {
+            List<String> keys = List.of(auctionKey(id), AUCTIONS, CLOSED_AUCTIONS, VERSION, BY_END_TIME, BY_PRICE, BY_BID_COUNT);
+            List<String> args = List.of(id.toString());
+            Object reply;
+            try {
+                reply = jedis.evalsha(closeSha, keys, args);
+            } catch (JedisNoScriptException e) {
+                closeSha = jedis.scriptLoad(CLOSE_SCRIPT);
+                reply = jedis.evalsha(closeSha, keys, args);
+            }
+            if (reply == null) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            List<Object> fields = (List<Object>) reply;
+            Terms auction = terms.remove(id);
+            int scale = auction != null ? auction.scale() : Integer.parseInt(jedis.hget(auctionKey(id), "scale"));
+            String winner = (String) fields.get(3);
+            return new AuctionOutcome(id, Auction.AuctionStatus.valueOf((String) fields.get(0)),
+                    Long.parseLong((String) fields.get(1)), scale, Integer.parseInt((String) fields.get(2)),
+                    winner.isEmpty() ? null : winner);
+        }
+    }
+
+    private static Map<String, String> toFields(Auction auction) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("id", auction.getId().toString());
+        fields.put("name", auction.getName());
+        if (auction.getDescription() != null) {
+            fields.put("description", auction.getDescription());
+        }
+        fields.put("scale", Integer.toString(auction.getScale()));
+        fields.put("startingPrice", Long.toString(auction.getStartingPrice()));
+        fields.put("currentPrice", Long.toString(auction.getCurrentPrice()));
+        fields.put("minimumBidIncrement", Long.toString(auction.getMinimumBidIncrement()));
+        fields.put("minimumNextBid", Long.toString(auction.getCurrentPrice() + auction.getMinimumBidIncrement()));
+        fields.put("startTime", Long.toString(auction.getStartTime()));
+        fields.put("endTime", Long.toString(auction.getEndTime()));
+        fields.put("createdAt", Long.toString(auction.getCreatedAt()));
+        fields.put("seller", auction.getSeller());
+        fields.put("status", auction.getStatus().name());
+        fields.put("bidCount", "0");
+        return fields;
+    }
+
+    private static Auction toAuction(Map<String, String> fields) {
+        Auction auction = Auction.restore(
+                UUID.fromString(fields.get("id")),
+                fields.get("name"),
+                fields.get("description"),
+                Integer.parseInt(fields.get("scale")),
+                Long.parseLong(fields.get("startingPrice")),
+                Long.parseLong(fields.get("startTime")),
+                Long.parseLong(fields.get("endTime")),
+                Long.parseLong(fields.get("createdAt")),
+                fields.get("seller"),
+                Long.parseLong(fields.get("minimumBidIncrement")),
+                Auction.AuctionStatus.valueOf(fields.get("status"))
+        );
+        String topBidder = fields.get("topBidder");
+        auction.restorePrice(Long.parseLong(fields.get("currentPrice")), topBidder == null || topBidder.isEmpty() ? null : topBidder,
+                Integer.parseInt(fields.get("bidCount")));
+        return auction;
+    }
+
+    private static String encodeBid(Bid bid) {
+        return bid.getId() + "|" + bid.getTimestamp() + "|" + bid.getPrice() + "|" + bid.getScale() + "|" + bid.getUserName();
+    }
+
+    private static Bid decodeBid(UUID auctionId, String encoded) {
+        String[] parts = encoded.split("\\|", 5);
+        Bid bid = new Bid(UUID.fromString(parts[0]), parts[4], auctionId, Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+        bid.setTimestamp(Long.parseLong(parts[1]));
+        return bid;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.close();
+    }
+
+    private record Terms(int scale, long minimumBidIncrement) {
+    }
+
+    // An indexed auction id and the value it sorts by.
+    private record Candidate(String id, long sortValue) {
+        boolean after(AuctionQuery.Cursor cursor, boolean descending) {
+            int position = sortValue != cursor.value() ? Long.compare(sortValue, cursor.value()) : id.compareTo(cursor.id());
+            return descending ? position < 0 : position > 0;
+        }
+    }
+}
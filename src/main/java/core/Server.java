@@ -1,75 +1,130 @@
 package core;
 
-import model.Auction;
-import model.Bid;
-import utils.CountingSemaphore;
+import core.cluster.Cluster;
+import core.lifecycle.AuctionLifecycle;
+import core.log.Log;
+import core.log.Logger;
+import core.metrics.Metrics;
+import core.metrics.MetricsEndpoint;
+import core.net.BlockingTransport;
+import core.net.NioTransport;
+import core.net.Transport;
+import core.persistence.Persistence;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.*;
 
 public class Server {
-    private final ConcurrentHashMap<UUID, CountingSemaphore> auctionSemaphores;
-    private final Map<UUID, Auction> auctions ;
-    private final Map<UUID, Set<Bid>> auctionBids;
-    public ServerSocket serverSocket;
+    private static final Logger log = Log.get(Server.class);
+
+    private final Transport transport;
+    private final Persistence persistence;
+    private final AuctionLifecycle lifecycle;
+    private final MetricsEndpoint metricsEndpoint;
+    private final Cluster cluster;
+    public final Metrics metrics = new Metrics();
     public final int port;
     public final Database database;
     public static Boolean running;
 
 
-    public Server(int port){
-        this.port = port;
-        this.auctions = new HashMap<>();
-        this.auctionBids = new HashMap<>();
-        this.database = new Database(auctions, auctionBids);
-        this.auctionSemaphores = new ConcurrentHashMap<>();
-        database.loadActiveAuctions();
+    public Server(int port) throws IOException {
+        this(configForPort(port));
+    }
+
+    public Server(ServerConfig config) throws IOException {
+        this.port = config.getPort();
+        if (config.getStore() == StoreType.REDIS) {
+            this.database = new RedisDatabase(config.getRedisHost(), config.getRedisPort(), config.getRedisPoolSize());
+            this.persistence = null;
+        } else {
+            InMemoryDatabase memory = new InMemoryDatabase(new ConcurrentHashMap<>());
+            if (config.getDataDirectory() != null) {
+                this.persistence = Persistence.open(config.getDataDirectory(), config.getDurability(),
+                        config.getSnapshotIntervalMillis(), memory);
+            } else {
+                this.persistence = null;
+            }
+            // Restored before the shards start, since a restore writes to the auctions directly.
+            this.database = config.getEngineMode() == EngineMode.SHARDED
+                    ? new ShardedDatabase(memory, config.getShards(), metrics) : memory;
+        }
+
+        this.lifecycle = new AuctionLifecycle(database);
+        metrics.gauge("bidly_lifecycle_pending_timeouts", "Auction start and end timeouts waiting on the timing wheel",
+                lifecycle::pendingTimeouts);
+        this.cluster = config.isClustered() ? new Cluster(config.getNode(), config.getClusterMembers(), config.getClusterSecret()) : null;
+        AuctionHandler handler = new AuctionHandler(database, lifecycle, metrics, cluster, config.getAdmissionLimits());
+        lifecycle.setListener(handler);
+        // Auctions that ended while the server was down are closed on the first tick.
+        lifecycle.trackAll(database.loadActiveAuctions());
+        this.transport = switch (config.getTransportMode()) {
+            case BLOCKING -> new BlockingTransport(port, config.getOutboundLimits(), handler);
+            case NIO -> new NioTransport(port, config.getWorkerThreads(), config.getInboundQueueCapacity(),
+                    config.getOutboundLimits(), handler);
+        };
+        this.metricsEndpoint = config.getMetricsPort() > 0 ? new MetricsEndpoint(config.getMetricsPort(), metrics) : null;
+        if (cluster != null) {
+            cluster.start(handler);
+            log.info("Node {} of cluster {}", cluster.getSelf(), cluster.getMembers());
+        }
         running = true;
     }
 
+    private static ServerConfig configForPort(int port) {
+        ServerConfig config = new ServerConfig();
+        config.setPort(port);
+        return config;
+    }
+
 
     public void start() {
         try{
-            serverSocket =new ServerSocket(port);
-            System.out.println("Server started on port " + port);
-
-            while (running){
-                Socket socket = serverSocket.accept();
-                new AuctionHandler(socket, database, auctionSemaphores);
+            if (metricsEndpoint != null) {
+                metricsEndpoint.start();
             }
+            transport.start();
         } catch (IOException e) {
-            System.err.println("Server error: " + e.getMessage());
+            log.error("Server error: {}", e.getMessage());
         }
     }
     public void shutdown() {
         running = false;
-        try {
-            if (serverSocket!=null){
-                serverSocket.close();
+        transport.shutdown();
+        if (cluster != null) {
+            cluster.close();
+        }
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+        }
+        lifecycle.close();
+        database.shutdown();
+        if (persistence != null) {
+            try {
+                persistence.close();
+            } catch (IOException e) {
+                log.error("Error closing data directory: {}", e.getMessage());
             }
-
-            database.shutdown();
-        } catch (IOException e) {
-            System.err.println("Server error: " + e.getMessage());
         }
     }
 
 
     public static void main(String[] args) throws IOException {
         try{
-            Server server = new Server(8080);
+            ServerConfig config = ServerConfig.fromArgs(args);
+            Log.setLevel(config.getLogLevel());
+            Log.setSampleEvery(config.getLogSampleEvery());
+            Server server = new Server(config);
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                System.out.println("Shutting down server...");
+                log.info("Shutting down server...");
                 server.shutdown();
+                Log.shutdown();
             }));
 
             server.start();
         }catch (Exception e){
-            System.err.println("Failed to start server: " + e.getMessage());
+            log.error("Failed to start server: {}", e.getMessage());
+            Log.shutdown();
             System.exit(1);
         }
     }
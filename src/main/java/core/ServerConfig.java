@@ -0,0 +1,369 @@
+package core;
+
+import core.admission.AdmissionLimits;
+import core.cluster.Node;
+import core.log.Level;
+import core.net.OutboundLimits;
+import core.net.TransportMode;
+import core.persistence.Durability;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Startup options, given on the command line as --name=value.
+public class ServerConfig {
+    private int port = 8080;
+    private TransportMode transportMode = TransportMode.BLOCKING;
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+    private int outboundQueueCapacity = 1024;
+    private long slowConsumerMillis = 5000;
+    private int inboundQueueCapacity = 1024;
+    private int bidRate = 200;
+    private int bidderBidRate = 100;
+    private int listingRate = 10;
+    private long burstMillis = 1000;
+    private int maxConcurrentListings = 16;
+    private Path dataDirectory;
+    private Durability durability = Durability.BATCHED;
+    private long snapshotIntervalMillis = 60_000;
+    private StoreType store = StoreType.MEMORY;
+    private String redisHost = "localhost";
+    private int redisPort = 6379;
+    private int redisPoolSize = 32;
+    private EngineMode engineMode = EngineMode.SHARED;
+    private int shards = Runtime.getRuntime().availableProcessors();
+    private List<Node> clusterMembers = List.of();
+    private Node node;
+    private String clusterSecret;
+    private int metricsPort;
+    private Level logLevel = Level.INFO;
+    private int logSampleEvery = 100;
+
+    public static ServerConfig fromArgs(String[] args) {
+        ServerConfig config = new ServerConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "port" -> config.setPort(Integer.parseInt(value));
+                case "transport" -> config.setTransportMode(TransportMode.parse(value));
+                case "workers" -> config.setWorkerThreads(Integer.parseInt(value));
+                case "outbound-queue" -> config.setOutboundQueueCapacity(Integer.parseInt(value));
+                case "slow-consumer-ms" -> config.setSlowConsumerMillis(Long.parseLong(value));
+                case "inbound-queue" -> config.setInboundQueueCapacity(Integer.parseInt(value));
+                case "bid-rate" -> config.setBidRate(Integer.parseInt(value));
+                case "bidder-bid-rate" -> config.setBidderBidRate(Integer.parseInt(value));
+                case "listing-rate" -> config.setListingRate(Integer.parseInt(value));
+                case "burst-ms" -> config.setBurstMillis(Long.parseLong(value));
+                case "max-concurrent-listings" -> config.setMaxConcurrentListings(Integer.parseInt(value));
+                case "data-dir" -> config.setDataDirectory(Path.of(value));
+                case "durability" -> config.setDurability(Durability.parse(value));
+                case "snapshot-interval-ms" -> config.setSnapshotIntervalMillis(Long.parseLong(value));
+                case "store" -> config.setStore(StoreType.parse(value));
+                case "redis" -> config.setRedisAddress(value);
+                case "redis-pool" -> config.setRedisPoolSize(Integer.parseInt(value));
+                case "engine" -> config.setEngineMode(EngineMode.parse(value));
+                case "shards" -> config.setShards(Integer.parseInt(value));
+                case "cluster" -> config.setClusterMembers(value);
+                case "node" -> config.setNode(Node.parse(value));
+                case "cluster-secret" -> config.setClusterSecret(value);
+                case "metrics-port" -> config.setMetricsPort(Integer.parseInt(value));
+                case "log-level" -> config.setLogLevel(Level.parse(value));
+                case "log-sample" -> config.setLogSampleEvery(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (config.getStore() == StoreType.REDIS && config.getDataDirectory() != null)
+            throw new IllegalArgumentException("--data-dir only applies to the memory store");
+        // Redis is shared with other servers, so no shard here can own an auction's state.
+        if (config.getStore() == StoreType.REDIS && config.getEngineMode() == EngineMode.SHARDED)
+            throw new IllegalArgumentException("--engine=sharded only applies to the memory store");
+        if (config.isClustered() && config.getStore() == StoreType.REDIS)
+            throw new IllegalArgumentException("--cluster only applies to the memory store; Redis is shared already");
+        if (!config.isClustered() && config.node != null)
+            throw new IllegalArgumentException("--node requires --cluster");
+        if (config.isClustered() && config.clusterSecret == null)
+            throw new IllegalArgumentException("--cluster requires --cluster-secret");
+        return config;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    public void setTransportMode(TransportMode transportMode) {
+        this.transportMode = transportMode;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        if (workerThreads <= 0)
+            throw new IllegalArgumentException("Worker thread count must be greater than zero");
+        this.workerThreads = workerThreads;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public void setOutboundQueueCapacity(int outboundQueueCapacity) {
+        this.outboundQueueCapacity = outboundQueueCapacity;
+    }
+
+    public long getSlowConsumerMillis() {
+        return slowConsumerMillis;
+    }
+
+    public void setSlowConsumerMillis(long slowConsumerMillis) {
+        this.slowConsumerMillis = slowConsumerMillis;
+    }
+
+    // Messages a connection may have read but not yet handled before the nio transport stops reading
+    // from it; it reads again once they are down to half. The blocking transport never reads ahead.
+    public int getInboundQueueCapacity() {
+        return inboundQueueCapacity;
+    }
+
+    public void setInboundQueueCapacity(int inboundQueueCapacity) {
+        if (inboundQueueCapacity <= 0)
+            throw new IllegalArgumentException("Inbound queue capacity must be greater than zero");
+        this.inboundQueueCapacity = inboundQueueCapacity;
+    }
+
+    // Rates are requests a second, zero for no limit; see AdmissionLimits.
+    public int getBidRate() {
+        return bidRate;
+    }
+
+    public void setBidRate(int bidRate) {
+        if (bidRate < 0)
+            throw new IllegalArgumentException("Bid rate cannot be negative");
+        this.bidRate = bidRate;
+    }
+
+    public int getBidderBidRate() {
+        return bidderBidRate;
+    }
+
+    public void setBidderBidRate(int bidderBidRate) {
+        if (bidderBidRate < 0)
+            throw new IllegalArgumentException("Bidder bid rate cannot be negative");
+        this.bidderBidRate = bidderBidRate;
+    }
+
+    public int getListingRate() {
+        return listingRate;
+    }
+
+    public void setListingRate(int listingRate) {
+        if (listingRate < 0)
+            throw new IllegalArgumentException("Listing rate cannot be negative");
+        this.listingRate = listingRate;
+    }
+
+    public long getBurstMillis() {
+        return burstMillis;
+    }
+
+    public void setBurstMillis(long burstMillis) {
+        if (burstMillis <= 0)
+            throw new IllegalArgumentException("Burst must be greater than zero");
+        this.burstMillis = burstMillis;
+    }
+
+    public int getMaxConcurrentListings() {
+        return maxConcurrentListings;
+    }
+
+    public void setMaxConcurrentListings(int maxConcurrentListings) {
+        if (maxConcurrentListings < 0)
+            throw new IllegalArgumentException("Concurrent listing limit cannot be negative");
+        this.maxConcurrentListings = maxConcurrentListings;
+    }
+
+    // Without a data directory nothing is persisted.
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public void setDataDirectory(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    // Zero turns periodic snapshots off.
+    public long getSnapshotIntervalMillis() {
+        return snapshotIntervalMillis;
+    }
+
+    public void setSnapshotIntervalMillis(long snapshotIntervalMillis) {
+        if (snapshotIntervalMillis < 0)
+            throw new IllegalArgumentException("Snapshot interval cannot be negative");
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+    }
+
+    public StoreType getStore() {
+        return store;
+    }
+
+    public void setStore(StoreType store) {
+        this.store = store;
+    }
+
+    public String getRedisHost() {
+        return redisHost;
+    }
+
+    public int getRedisPort() {
+        return redisPort;
+    }
+
+    // Given as host:port, or just host for the default port.
+    public void setRedisAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            this.redisHost = address;
+            this.redisPort = 6379;
+        } else {
+            this.redisHost = address.substring(0, colon);
+            this.redisPort = Integer.parseInt(address.substring(colon + 1));
+        }
+    }
+
+    public int getRedisPoolSize() {
+        return redisPoolSize;
+    }
+
+    public void setRedisPoolSize(int redisPoolSize) {
+        if (redisPoolSize <= 0)
+            throw new IllegalArgumentException("Redis pool size must be greater than zero");
+        this.redisPoolSize = redisPoolSize;
+    }
+
+    public EngineMode getEngineMode() {
+        return engineMode;
+    }
+
+    public void setEngineMode(EngineMode engineMode) {
+        this.engineMode = engineMode;
+    }
+
+    // Only used by the sharded engine. Defaults to one shard per core.
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        if (shards <= 0)
+            throw new IllegalArgumentException("Shard count must be greater than zero");
+        this.shards = shards;
+    }
+
+    public boolean isClustered() {
+        return !clusterMembers.isEmpty();
+    }
+
+    public List<Node> getClusterMembers() {
+        return clusterMembers;
+    }
+
+    // Every node of the cluster, this one included, as comma-separated host:port addresses.
+    public void setClusterMembers(String addresses) {
+        List<Node> members = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            if (!address.isBlank()) {
+                Node member = Node.parse(address);
+                if (members.contains(member))
+                    throw new IllegalArgumentException("Node listed twice: " + member);
+                members.add(member);
+            }
+        }
+        this.clusterMembers = List.copyOf(members);
+    }
+
+    // This node's address as listed in --cluster. Without --node it is the one member on this server's port.
+    public Node getNode() {
+        if (node != null) {
+            return node;
+        }
+        List<Node> onPort = clusterMembers.stream().filter(member -> member.port() == port).toList();
+        if (onPort.size() != 1)
+            throw new IllegalArgumentException("Cannot tell which cluster member this is; give --node=host:port");
+        return onPort.get(0);
+    }
+
+    public void setNode(Node node) {
+        this.node = node;
+    }
+
+    // Shared by every member; a node announcing itself over a peer link must know it.
+    public String getClusterSecret() {
+        return clusterSecret;
+    }
+
+    public void setClusterSecret(String clusterSecret) {
+        if (clusterSecret.isBlank())
+            throw new IllegalArgumentException("Cluster secret must not be blank");
+        this.clusterSecret = clusterSecret;
+    }
+
+    // Zero leaves the scrape endpoint off; metrics are still available through STATS.
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    public void setMetricsPort(int metricsPort) {
+        if (metricsPort < 0)
+            throw new IllegalArgumentException("Metrics port cannot be negative");
+        this.metricsPort = metricsPort;
+    }
+
+    public Level getLogLevel() {
+        return logLevel;
+    }
+
+    public void setLogLevel(Level logLevel) {
+        this.logLevel = logLevel;
+    }
+
+    // Per-message DEBUG lines are kept one in this many; 1 keeps them all.
+    public int getLogSampleEvery() {
+        return logSampleEvery;
+    }
+
+    public void setLogSampleEvery(int logSampleEvery) {
+        if (logSampleEvery <= 0)
+            throw new IllegalArgumentException("Log sampling must be greater than zero");
+        this.logSampleEvery = logSampleEvery;
+    }
+
+    public OutboundLimits getOutboundLimits() {
+        return new OutboundLimits(outboundQueueCapacity, slowConsumerMillis);
+    }
+
+    public AdmissionLimits getAdmissionLimits() {
+        return new AdmissionLimits(bidRate, bidderBidRate, listingRate, burstMillis, maxConcurrentListings);
+    }
+}
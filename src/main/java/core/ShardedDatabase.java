@@ -0,0 +1,254 @@
+package core;
+
+import core.metrics.Histogram;
+import core.metrics.Metrics;
+import model.Auction;
+import model.AuctionOutcome;
+import model.Bid;
+import model.BidResult;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs every bid of an auction on one thread. Auctions are hashed over a fixed set of shards,
+// each a single thread draining its own lock-free queue in batches, so the compare-and-set in
+// Auction.placeBid never loses a race and the history lock is never contended. The thread that
+// read the bid only enqueues it. Replies and broadcasts run where the bid's future completes: on
+// the shard, or on the journal writer when there is one. Bids of one auction are applied, and
+// their futures completed, in the order they were submitted.
+// Reads, auction creation and the lifecycle's opening and closing go straight to the store; an
+// auction's state stays safe against them through its compare-and-set.
+public class ShardedDatabase implements Database {
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final Database store;
+    private final Shard[] shards;
+
+    public ShardedDatabase(Database store, int shardCount, Metrics metrics) {
+        if (shardCount <= 0)
+            throw new IllegalArgumentException("Shard count must be greater than zero");
+        this.store = store;
+        this.shards = new Shard[shardCount];
+        Metrics.Labeled<Histogram> batchSizes = metrics.distribution("bidly_shard_batch_bids",
+                "Bids a shard applied in one pass over its queue, by shard", "shard");
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, batchSizes.get(Integer.toString(i)));
+        }
+        metrics.gauge("bidly_shard_queued_bids", "Bids waiting for their shard, over all shards", () -> {
+            long queued = 0;
+            for (Shard shard : shards) {
+                queued += shard.queued.sum();
+            }
+            return queued;
+        });
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private Shard shardFor(UUID auctionId) {
+        int hash = auctionId.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    @Override
+    public CompletableFuture<BidResult> placeBid(Bid bid) {
+        if (bid.getAuctionId() == null) {
+            return CompletableFuture.completedFuture(BidResult.auctionNotFound());
+        }
+        return shardFor(bid.getAuctionId()).submit(bid, false);
+    }
+
+    // Maximum bids queue behind the auction's plain bids, so both keep their order.
+    @Override
+    public CompletableFuture<BidResult> setMaxBid(Bid bid) {
+        if (bid.getAuctionId() == null) {
+            return CompletableFuture.completedFuture(BidResult.auctionNotFound());
+        }
+        return shardFor(bid.getAuctionId()).submit(bid, true);
+    }
+
+    @Override
+    public List<Auction> loadActiveAuctions() {
+        return store.loadActiveAuctions();
+    }
+
+    @Override
+    public AuctionPage queryAuctions(AuctionQuery query) {
+        return store.queryAuctions(query);
+    }
+
+    @Override
+    public BidHistoryPage getBidHistory(UUID auctionId, int offset, int limit) {
+        return store.getBidHistory(auctionId, offset, limit);
+    }
+
+    @Override
+    public Auction getAuction(UUID id) {
+        return store.getAuction(id);
+    }
+
+    @Override
+    public long getVersion() {
+        return store.getVersion();
+    }
+
+    @Override
+    public boolean isAuctionNameTaken(String name) {
+        return store.isAuctionNameTaken(name);
+    }
+
+    @Override
+    public boolean createAuction(Auction auction) {
+        return store.createAuction(auction);
+    }
+
+    @Override
+    public boolean activateAuction(UUID id) {
+        return store.activateAuction(id);
+    }
+
+    @Override
+    public AuctionOutcome closeAuction(UUID id) {
+        return store.closeAuction(id);
+    }
+
+    // Applies whatever is still queued, then stops the shards.
+    @Override
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+        store.shutdown();
+    }
+
+    // Generic arrays cannot be created directly; the array only ever holds futures of T.
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T>[] futures(int size) {
+        return (CompletableFuture<T>[]) new CompletableFuture<?>[size];
+    }
+
+    private final class Shard implements Runnable {
+        private final ConcurrentLinkedQueue<PendingBid> queue = new ConcurrentLinkedQueue<>();
+        private final LongAdder queued = new LongAdder();
+        private final Histogram batchSizes;
+        private final Thread thread;
+        // Set while the thread is about to park; a producer that sees it unparks the thread.
+        private volatile boolean idle;
+        private volatile boolean closed;
+
+        private final PendingBid[] batch = new PendingBid[MAX_BATCH];
+        private final CompletableFuture<BidResult>[] applied = futures(MAX_BATCH);
+
+        private Shard(int number, Histogram batchSizes) {
+            this.batchSizes = batchSizes;
+            this.thread = new Thread(this, "shard-" + number);
+            this.thread.setDaemon(true);
+        }
+
+        CompletableFuture<BidResult> submit(Bid bid, boolean maximum) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Bid engine is shut down"));
+            }
+            PendingBid pending = new PendingBid(bid, maximum);
+            queued.increment();
+            queue.offer(pending);
+            // close() may have drained the queue between the check above and the offer. Whoever
+            // takes the bid out of the queue completes it, so only a bid still there is failed here.
+            if (closed && queue.remove(pending)) {
+                queued.decrement();
+                pending.result.completeExceptionally(new RejectedExecutionException("Bid engine is shut down"));
+                return pending.result;
+            }
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+            return pending.result;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int size = 0;
+                PendingBid next;
+                while (size < MAX_BATCH && (next = queue.poll()) != null) {
+                    batch[size++] = next;
+                }
+                if (size == 0) {
+                    if (closed) {
+                        return;
+                    }
+                    idle = true;
+                    // Checked again after publishing idle, so a bid offered meanwhile is never left waiting.
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                queued.add(-size);
+                batchSizes.record(size);
+
+                // The whole batch is applied before any reply work runs on this thread.
+                for (int i = 0; i < size; i++) {
+                    try {
+                        PendingBid pending = batch[i];
+                        applied[i] = pending.maximum ? store.setMaxBid(pending.bid) : store.placeBid(pending.bid);
+                    } catch (RuntimeException e) {
+                        applied[i] = CompletableFuture.failedFuture(e);
+                    }
+                }
+                for (int i = 0; i < size; i++) {
+                    CompletableFuture<BidResult> result = batch[i].result;
+                    applied[i].whenComplete((outcome, error) -> {
+                        if (error != null) {
+                            result.completeExceptionally(error);
+                        } else {
+                            result.complete(outcome);
+                        }
+                    });
+                    batch[i] = null;
+                    applied[i] = null;
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Bids that slipped in behind the last pass.
+            PendingBid late;
+            while ((late = queue.poll()) != null) {
+                queued.decrement();
+                late.result.completeExceptionally(new RejectedExecutionException("Bid engine is shut down"));
+            }
+        }
+    }
+
+    private static final class PendingBid {
+        private final Bid bid;
+        // A maximum bid rather than a plain one.
+        private final boolean maximum;
+        private final CompletableFuture<BidResult> result = new CompletableFuture<>();
+
+        private PendingBid(Bid bid, boolean maximum) {
+            this.bid = bid;
+            this.maximum = maximum;
+        }
+    }
+}
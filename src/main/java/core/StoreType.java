@@ -0,0 +1,16 @@
+package core;
+
+public enum StoreType {
+    // Auctions live in this process, optionally persisted to a data directory.
+    MEMORY,
+    // Auctions live in Redis and can be shared by several servers.
+    REDIS;
+
+    public static StoreType parse(String value) {
+        try {
+            return StoreType.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown store: " + value);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package core;
+
+import core.net.Connection;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Which connections watch which auctions. Connections on the firehose receive every auction event.
+public class SubscriptionRegistry {
+    private final ConcurrentHashMap<UUID, Set<Connection>> watchersByAuction = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Set<UUID>> auctionsByConnection = new ConcurrentHashMap<>();
+    private final Set<Connection> firehose = ConcurrentHashMap.newKeySet();
+
+    public void subscribe(Connection connection, UUID auctionId) {
+        watchersByAuction.compute(auctionId, (id, watchers) -> {
+            Set<Connection> updated = watchers == null ? ConcurrentHashMap.newKeySet() : watchers;
+            updated.add(connection);
+            return updated;
+        });
+        auctionsByConnection.computeIfAbsent(connection.getId(), k -> ConcurrentHashMap.newKeySet()).add(auctionId);
+        // Subscriptions made when a bid settles can land after the connection's removal; the
+        // connection reports closed before it is removed, so one of the two clears them.
+        if (!connection.isOpen()) {
+            removeConnection(connection);
+        }
+    }
+
+    public void unsubscribe(Connection connection, UUID auctionId) {
+        watchersByAuction.computeIfPresent(auctionId, (id, watchers) -> {
+            watchers.remove(connection);
+            return watchers.isEmpty() ? null : watchers;
+        });
+        Set<UUID> auctions = auctionsByConnection.get(connection.getId());
+        if (auctions != null) {
+            auctions.remove(auctionId);
+        }
+    }
+
+    // Forgets every watcher of an auction that has ended.
+    public void removeAuction(UUID auctionId) {
+        Set<Connection> watchers = watchersByAuction.remove(auctionId);
+        if (watchers != null) {
+            for (Connection connection : watchers) {
+                Set<UUID> auctions = auctionsByConnection.get(connection.getId());
+                if (auctions != null) {
+                    auctions.remove(auctionId);
+                }
+            }
+        }
+    }
+
+    // Auctions with at least one watcher right now.
+    public Set<UUID> watchedAuctions() {
+        return watchersByAuction.keySet();
+    }
+
+    public void subscribeAll(Connection connection) {
+        firehose.add(connection);
+        if (!connection.isOpen()) {
+            firehose.remove(connection);
+        }
+    }
+
+    public void unsubscribeAll(Connection connection) {
+        firehose.remove(connection);
+    }
+
+    public void removeConnection(Connection connection) {
+        firehose.remove(connection);
+        Set<UUID> auctions = auctionsByConnection.remove(connection.getId());
+        if (auctions != null) {
+            for (UUID auctionId : auctions) {
+                unsubscribe(connection, auctionId);
+            }
+        }
+    }
+
+    // Visits each watcher of the auction plus every firehose connection, each exactly once.
+    public int forEachWatcher(UUID auctionId, Consumer<Connection> action) {
+        int count = forEachFirehoseWatcher(action);
+        Set<Connection> watchers = watchersByAuction.get(auctionId);
+        if (watchers != null) {
+            for (Connection connection : watchers) {
+                if (!firehose.contains(connection)) {
+                    action.accept(connection);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public int forEachFirehoseWatcher(Consumer<Connection> action) {
+        int count = 0;
+        for (Connection connection : firehose) {
+            action.accept(connection);
+            count++;
+        }
+        return count;
+    }
+}
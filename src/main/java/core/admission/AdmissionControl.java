@@ -0,0 +1,144 @@
+package core.admission;
+
+import core.metrics.Metrics;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decides whether a request may run now. Bids and listings draw on token buckets per connection,
+// bids also on one per bidder name, however many connections it bids through; expensive listings
+// also need one of a fixed number of permits. Nothing here waits: a request that is over a limit
+// is refused, with how long until it would have been admitted, and the caller answers THROTTLED.
+public class AdmissionControl {
+    public static final String CONNECTION_BIDS = "connection_bids";
+    public static final String BIDDER_BIDS = "bidder_bids";
+    public static final String CONNECTION_LISTINGS = "connection_listings";
+    public static final String CONCURRENT_LISTINGS = "concurrent_listings";
+
+    // Bidder buckets that have filled up again are dropped once this many are tracked, and again at twice what is left.
+    private static final int MIN_SWEEP_SIZE = 1024;
+
+    private final AdmissionLimits limits;
+    private final ConcurrentHashMap<UUID, TokenBucket> connectionBids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenBucket> bidderBids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, TokenBucket> connectionListings = new ConcurrentHashMap<>();
+    private final Semaphore listings;
+    private final Metrics.Labeled<LongAdder> throttled;
+    private volatile int nextSweep = MIN_SWEEP_SIZE;
+
+    public AdmissionControl(AdmissionLimits limits, Metrics metrics) {
+        this.limits = limits;
+        this.listings = limits.maxConcurrentListings() > 0 ? new Semaphore(limits.maxConcurrentListings()) : null;
+        this.throttled = metrics.counter("bidly_throttled_total", "Requests refused with THROTTLED, by the limit they hit", "limit");
+        metrics.gauge("bidly_limit_connection_bids_per_second", "Bids a connection may send a second, 0 if unlimited",
+                limits::connectionBidRate);
+        metrics.gauge("bidly_limit_bidder_bids_per_second", "Bids one bidder name may place a second, 0 if unlimited",
+                limits::bidderBidRate);
+        metrics.gauge("bidly_limit_connection_listings_per_second", "Listings a connection may request a second, 0 if unlimited",
+                limits::connectionListingRate);
+        metrics.gauge("bidly_limit_concurrent_listings", "Expensive listings that may run at once, 0 if unlimited",
+                limits::maxConcurrentListings);
+        metrics.gauge("bidly_listings_in_flight", "Expensive listings running now",
+                () -> listings != null ? limits.maxConcurrentListings() - listings.availablePermits() : 0);
+        metrics.gauge("bidly_admission_tracked_bidders", "Bidder names with a partly drained bucket", bidderBids::size);
+    }
+
+    // Each of these returns 0 if the request is admitted, otherwise the milliseconds until it would be.
+
+    public long admitBid(UUID connectionId) {
+        return take(connectionBids, connectionId, limits.connectionBidRate(), 1, CONNECTION_BIDS);
+    }
+
+    // A bid without a bidder name is only limited by its connection.
+    public long admitBidder(String bidder) {
+        if (bidder == null) {
+            return 0;
+        }
+        long wait = take(bidderBids, bidder, limits.bidderBidRate(), 1, BIDDER_BIDS);
+        if (bidderBids.size() >= nextSweep) {
+            sweep();
+        }
+        return wait;
+    }
+
+    public long admitListing(UUID connectionId) {
+        return take(connectionListings, connectionId, limits.connectionListingRate(), 1, CONNECTION_LISTINGS);
+    }
+
+    // Admits as many of a batch's bids as the connection's bucket holds tokens for, so a batch larger
+    // than the burst still gets through in parts. Returns how many; those first bids go ahead and
+    // each of the others counts as throttled.
+    public int admitBidsUpTo(UUID connectionId, int bids) {
+        int rate = limits.connectionBidRate();
+        if (rate == 0) {
+            return bids;
+        }
+        long now = System.nanoTime();
+        int admitted = connectionBids.computeIfAbsent(connectionId, ignored -> newBucket(rate, now)).takeUpTo(bids, now);
+        if (admitted < bids) {
+            throttled.get(CONNECTION_BIDS).add(bids - admitted);
+        }
+        return admitted;
+    }
+
+    // Milliseconds a connection's bucket takes to refill the given number of bid tokens.
+    public long connectionBidRefillMillis(int tokens) {
+        int rate = limits.connectionBidRate();
+        return rate == 0 ? 0 : Math.max(1, tokens * 1000L / rate);
+    }
+
+    // Takes a permit for an expensive listing, to be given back with endListing once it is answered.
+    public boolean beginListing() {
+        if (listings == null) {
+            return true;
+        }
+        if (listings.tryAcquire()) {
+            return true;
+        }
+        throttled.get(CONCURRENT_LISTINGS).increment();
+        return false;
+    }
+
+    public void endListing() {
+        if (listings != null) {
+            listings.release();
+        }
+    }
+
+    public void forget(UUID connectionId) {
+        connectionBids.remove(connectionId);
+        connectionListings.remove(connectionId);
+    }
+
+    private <K> long take(ConcurrentHashMap<K, TokenBucket> buckets, K key, int rate, int tokens, String limit) {
+        if (rate == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(key, ignored -> newBucket(rate, now));
+        long wait = bucket.take(tokens, now);
+        if (wait == 0) {
+            return 0;
+        }
+        throttled.get(limit).increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+    }
+
+    private TokenBucket newBucket(int rate, long now) {
+        long nanosPerToken = TimeUnit.SECONDS.toNanos(1) / rate;
+        long burst = Math.max(1, rate * limits.burstMillis() / 1000);
+        return new TokenBucket(nanosPerToken, burst * nanosPerToken, now);
+    }
+
+    private synchronized void sweep() {
+        if (bidderBids.size() < nextSweep) {
+            return;
+        }
+        long now = System.nanoTime();
+        bidderBids.values().removeIf(bucket -> bucket.isFull(now));
+        nextSweep = Math.max(MIN_SWEEP_SIZE, bidderBids.size() * 2);
+    }
+}
@@ -0,0 +1,20 @@
+package core.admission;
+
+// Rates are requests a second, zero for no limit. Every bucket holds burstMillis worth of its rate,
+// and at least one request. Bids are PLACE_BID, SET_MAX_BID and each bid of a PLACE_BIDS batch;
+// listings are LIST_AUCTIONS with or without a query. maxConcurrentListings caps the expensive
+// listings, the whole catalogue and whatever the cluster gathers, that run at once over all
+// connections; zero for no limit.
+public record AdmissionLimits(int connectionBidRate, int bidderBidRate, int connectionListingRate,
+                              long burstMillis, int maxConcurrentListings) {
+    public static final AdmissionLimits UNLIMITED = new AdmissionLimits(0, 0, 0, 1000, 0);
+
+    public AdmissionLimits {
+        if (connectionBidRate < 0 || bidderBidRate < 0 || connectionListingRate < 0)
+            throw new IllegalArgumentException("Rate limits cannot be negative");
+        if (burstMillis <= 0)
+            throw new IllegalArgumentException("Burst must be greater than zero");
+        if (maxConcurrentListings < 0)
+            throw new IllegalArgumentException("Concurrent listing limit cannot be negative");
+    }
+}
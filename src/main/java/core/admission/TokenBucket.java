@@ -0,0 +1,54 @@
+package core.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// A bucket of burst tokens refilled at a fixed rate. Rather than a token count and a refill time it
+// keeps the one instant at which the bucket will be full again (the generic cell rate algorithm), so
+// taking tokens is a single compare-and-set and callers never block. Times are System.nanoTime().
+final class TokenBucket {
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long nanosPerToken, long burstNanos, long now) {
+        this.nanosPerToken = nanosPerToken;
+        this.burstNanos = burstNanos;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    // Takes the tokens if the bucket holds them. Returns 0 if it did, otherwise how many nanoseconds
+    // until it would; nothing is taken then.
+    long take(int tokens, long now) {
+        while (true) {
+            long full = fullAt.get();
+            long next = Math.max(full, now) + tokens * nanosPerToken;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Takes as many of the tokens as the bucket holds, possibly none. Returns how many it took.
+    int takeUpTo(int tokens, long now) {
+        while (true) {
+            long full = fullAt.get();
+            long from = Math.max(full, now);
+            int taken = (int) Math.min(tokens, Math.max(0, (now + burstNanos - from) / nanosPerToken));
+            if (taken == 0) {
+                return 0;
+            }
+            if (fullAt.compareAndSet(full, from + taken * nanosPerToken)) {
+                return taken;
+            }
+        }
+    }
+
+    // A full bucket behaves like a new one, so it can be dropped.
+    boolean isFull(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
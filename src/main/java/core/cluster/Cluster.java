@@ -0,0 +1,93 @@
+package core.cluster;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+// Static membership of a cluster as seen from one of its nodes. Auctions are owned by the node
+// the ring maps their id to; auction names by the node their lower-cased name maps to, which is
+// where an auction of that name is created, so names stay unique across the cluster. This node
+// holds a link to every other member, and accepts one from a member only if it knows the
+// cluster's shared secret.
+public class Cluster implements Closeable {
+    private final Node self;
+    private final List<Node> members;
+    private final HashRing ring;
+    private final String secret;
+    private final Map<Node, PeerLink> links = new LinkedHashMap<>();
+
+    public Cluster(Node self, List<Node> members, String secret) {
+        if (!members.contains(self))
+            throw new IllegalArgumentException("Node " + self + " is not a member of the cluster " + members);
+        this.self = self;
+        this.members = List.copyOf(members);
+        this.ring = new HashRing(members);
+        this.secret = secret;
+    }
+
+    // Opens a link to every peer; the links keep reconnecting on their own until closed.
+    public void start(PeerLink.Listener listener) {
+        for (Node member : members) {
+            if (!member.equals(self)) {
+                links.put(member, new PeerLink(self, member, secret, listener));
+            }
+        }
+        links.values().forEach(PeerLink::start);
+    }
+
+    public Node getSelf() {
+        return self;
+    }
+
+    public List<Node> getMembers() {
+        return members;
+    }
+
+    public Node ownerOf(UUID auctionId) {
+        return ring.ownerOf(auctionId);
+    }
+
+    public boolean isLocal(UUID auctionId) {
+        return ownerOf(auctionId).equals(self);
+    }
+
+    public Node ownerOfName(String auctionName) {
+        return ring.ownerOf(auctionName.toLowerCase(Locale.ROOT));
+    }
+
+    // An id this node owns, for an auction created here.
+    public UUID newLocalId() {
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (!isLocal(id));
+        return id;
+    }
+
+    // Whether a connection announcing itself as the given node may act as that peer: the node is
+    // another member and the secret matches.
+    public boolean admitsPeer(Node node, String secret) {
+        return !node.equals(self) && members.contains(node)
+                && MessageDigest.isEqual(this.secret.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PeerLink link(Node node) {
+        return links.get(node);
+    }
+
+    public Collection<PeerLink> peers() {
+        return new ArrayList<>(links.values());
+    }
+
+    @Override
+    public void close() {
+        links.values().forEach(PeerLink::close);
+    }
+}
@@ -0,0 +1,60 @@
+package core.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Consistent hashing of auctions onto nodes. Each node takes many points on a 64-bit ring and a
+// key belongs to the first point at or after its hash, so every node gets a similar share and
+// adding or removing a node only moves the keys next to its points. Every node builds the same
+// ring from the same member list.
+public final class HashRing {
+    private static final int POINTS_PER_NODE = 128;
+
+    private final TreeMap<Long, Node> points = new TreeMap<>();
+
+    public HashRing(List<Node> nodes) {
+        if (nodes.isEmpty())
+            throw new IllegalArgumentException("A ring needs at least one node");
+        for (Node node : nodes) {
+            for (int i = 0; i < POINTS_PER_NODE; i++) {
+                points.put(hash(node.address() + "#" + i), node);
+            }
+        }
+    }
+
+    public Node ownerOf(UUID auctionId) {
+        return lookup(mix(auctionId.getMostSignificantBits() ^ Long.rotateLeft(auctionId.getLeastSignificantBits(), 32)));
+    }
+
+    public Node ownerOf(String key) {
+        return lookup(hash(key));
+    }
+
+    private Node lookup(long hash) {
+        Map.Entry<Long, Node> point = points.ceilingEntry(hash);
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    // FNV-1a over the UTF-8 bytes, then mixed so that similar keys land far apart.
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // The finalizer of MurmurHash3.
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
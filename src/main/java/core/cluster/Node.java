@@ -0,0 +1,22 @@
+package core.cluster;
+
+// A member of the cluster, named by the address its clients connect to. Peers connect to the same port.
+public record Node(String host, int port) {
+
+    // host:port
+    public static Node parse(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1)
+            throw new IllegalArgumentException("Expected host:port but got: " + address);
+        return new Node(address.substring(0, colon).trim(), Integer.parseInt(address.substring(colon + 1).trim()));
+    }
+
+    public String address() {
+        return host + ":" + port;
+    }
+
+    @Override
+    public String toString() {
+        return address();
+    }
+}
@@ -0,0 +1,262 @@
+package core.cluster;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import core.log.Log;
+import core.log.Logger;
+import core.message.MessageType;
+import core.net.Connection;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A persistent connection from this node to one peer, speaking the ordinary client protocol as
+// JSON lines. Requests carry a request id of this link's own and complete with the peer's reply;
+// lines without one are broadcasts for auctions the peer owns. One thread connects, announces
+// this node with PEER_HELLO and the cluster secret, waits for the peer to accept it and then reads
+// replies; it reconnects with backoff whenever the link drops or the peer refuses it, failing
+// whatever was still waiting for a reply. Requests are only queued, never written by the caller:
+// each connection of the link has a bounded queue drained by a writer thread of its own, and a
+// request that finds the queue full fails at once.
+public class PeerLink implements Closeable {
+    private static final Logger log = Log.get(PeerLink.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final long REQUEST_TIMEOUT_MILLIS = 5000;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+    private static final String HELLO_REQUEST_ID = "hello";
+    private static final int OUTBOUND_CAPACITY = 4096;
+    private static final int MAX_LINES_PER_FLUSH = 256;
+
+    public interface Listener {
+        // The link is up again; whatever the peer held for this node was lost with the old one.
+        void onConnected(PeerLink link);
+
+        void onBroadcast(PeerLink link, JsonObject message);
+    }
+
+    private final Node self;
+    private final Node peer;
+    private final String secret;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, CompletableFuture<JsonObject>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final Thread thread;
+    private volatile Socket socket;
+    // Lines waiting for the current connection's writer; null while the link is down.
+    private volatile BlockingQueue<byte[]> outbound;
+    // Only touched by the link's own thread.
+    private Thread writer;
+    private volatile boolean closed;
+
+    PeerLink(Node self, Node peer, String secret, Listener listener) {
+        this.self = self;
+        this.peer = peer;
+        this.secret = secret;
+        this.listener = listener;
+        this.thread = new Thread(this::run, "peer-" + peer.address());
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    public Node getPeer() {
+        return peer;
+    }
+
+    public boolean isConnected() {
+        return outbound != null;
+    }
+
+    // Completes with the peer's reply, or fails if the link is down or backed up, or the peer does not answer in time.
+    public CompletableFuture<JsonObject> request(MessageType type, JsonElement data) {
+        String requestId = Long.toString(nextRequestId.incrementAndGet());
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type.name());
+        message.addProperty("requestId", requestId);
+        if (data != null) {
+            message.add("data", data);
+        }
+        CompletableFuture<JsonObject> reply = new CompletableFuture<>();
+        pending.put(requestId, reply);
+        BlockingQueue<byte[]> outbound = this.outbound;
+        if (outbound == null) {
+            reply.completeExceptionally(new IOException("Node " + peer + " is not connected"));
+        } else if (!outbound.offer(Connection.encodeLine(message.toString()))) {
+            reply.completeExceptionally(new IOException("Link to node " + peer + " is backed up"));
+        }
+        return reply.orTimeout(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> pending.remove(requestId));
+    }
+
+    // Sends a request whose reply nobody waits for.
+    public void send(MessageType type, JsonElement data) {
+        request(type, data).exceptionally(error -> null);
+    }
+
+    private void run() {
+        long backoff = 100;
+        while (!closed) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(peer.host(), peer.port()), CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                this.socket = socket;
+                OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                hello(socket, output, reader);
+                BlockingQueue<byte[]> outbound = new ArrayBlockingQueue<>(OUTBOUND_CAPACITY);
+                writer = new Thread(() -> writeLoop(socket, output, outbound), "peer-writer-" + peer.address());
+                writer.setDaemon(true);
+                writer.start();
+                this.outbound = outbound;
+                log.info("Connected to node {}", peer);
+                backoff = 100;
+                listener.onConnected(this);
+                read(reader);
+            } catch (IOException e) {
+                if (!closed) {
+                    log.debug("Node {} unreachable: {}", peer, e.getMessage());
+                }
+            } finally {
+                disconnected();
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void hello(Socket socket, OutputStream output, BufferedReader reader) throws IOException {
+        JsonObject hello = new JsonObject();
+        hello.addProperty("node", self.address());
+        hello.addProperty("secret", secret);
+        JsonObject message = new JsonObject();
+        message.addProperty("type", MessageType.PEER_HELLO.name());
+        message.addProperty("requestId", HELLO_REQUEST_ID);
+        message.add("data", hello);
+        output.write(Connection.encodeLine(message.toString()));
+        output.flush();
+
+        socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+        String line = reader.readLine();
+        socket.setSoTimeout(0);
+        if (line == null) {
+            throw new IOException("Node " + peer + " closed the connection during PEER_HELLO");
+        }
+        JsonObject reply;
+        try {
+            reply = JsonParser.parseString(line).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new IOException("Unreadable PEER_HELLO reply from node " + peer);
+        }
+        JsonElement type = reply.get("type");
+        if (type == null || !MessageType.PEER_HELLO.name().equals(type.getAsString())) {
+            log.warn("Node {} refused this node: {}", peer, reply.get("data"));
+            throw new IOException("Node " + peer + " refused PEER_HELLO");
+        }
+    }
+
+    // Writes whatever queued up since the last round and flushes once. A failed write closes the
+    // socket, so the reading thread notices and reconnects.
+    private void writeLoop(Socket socket, OutputStream output, BlockingQueue<byte[]> outbound) {
+        List<byte[]> batch = new ArrayList<>(MAX_LINES_PER_FLUSH);
+        try {
+            while (true) {
+                batch.add(outbound.take());
+                outbound.drainTo(batch, MAX_LINES_PER_FLUSH - 1);
+                for (byte[] line : batch) {
+                    output.write(line);
+                }
+                output.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // The connection is gone.
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Writing to node {} failed: {}", peer, e.getMessage());
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already broken.
+            }
+        }
+    }
+
+    private void read(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JsonObject message;
+            try {
+                message = JsonParser.parseString(line).getAsJsonObject();
+            } catch (RuntimeException e) {
+                log.warn("Unreadable message from node {}: {}", peer, e.getMessage());
+                continue;
+            }
+            JsonElement requestId = message.get("requestId");
+            if (requestId == null) {
+                listener.onBroadcast(this, message);
+                continue;
+            }
+            CompletableFuture<JsonObject> reply = pending.remove(requestId.getAsString());
+            if (reply != null) {
+                reply.complete(message);
+            }
+        }
+        if (!closed) {
+            log.warn("Node {} closed the connection", peer);
+        }
+    }
+
+    private void disconnected() {
+        boolean wasConnected = outbound != null;
+        outbound = null;
+        socket = null;
+        if (writer != null) {
+            writer.interrupt();
+            writer = null;
+        }
+        if (wasConnected) {
+            IOException lost = new IOException("Lost connection to node " + peer);
+            pending.values().forEach(reply -> reply.completeExceptionally(lost));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        Socket socket = this.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.warn("Error closing link to node {}: {}", peer, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package core.lifecycle;
+
+import core.Database;
+import core.log.Log;
+import core.log.Logger;
+import model.Auction;
+import model.AuctionOutcome;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Opens auctions at their start time and closes them at their end time. Every tracked auction has
+// one end timeout, and a start timeout while it is pending, on a timing wheel of 100 ms ticks; the
+// transitions themselves run one at a time on a separate thread so a slow store never stalls the wheel.
+public class AuctionLifecycle {
+    private static final Logger log = Log.get(AuctionLifecycle.class);
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 4096;
+
+    public interface Listener {
+        void onAuctionClosed(AuctionOutcome outcome);
+    }
+
+    private enum Kind {
+        START, END
+    }
+
+    private record Transition(UUID auctionId, Kind kind) {
+    }
+
+    private final Database database;
+    private final TimingWheel<Transition> wheel;
+    private final ExecutorService transitions;
+    // End timeout of every auction this instance tracks.
+    private final ConcurrentHashMap<UUID, TimingWheel.Timeout<Transition>> scheduled = new ConcurrentHashMap<>();
+    private volatile Listener listener = outcome -> {
+    };
+
+    public AuctionLifecycle(Database database) {
+        this.database = database;
+        this.transitions = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auction-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheel = new TimingWheel<>("auction-timer", TICK_MILLIS, WHEEL_SIZE,
+                transition -> transitions.execute(() -> run(transition)));
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Schedules the auction's transitions unless it is already tracked or closed. An auction whose
+    // start time has passed is opened before this returns.
+    public void track(Auction auction) {
+        UUID id = auction.getId();
+        if (auction.getStatus().isClosed() || scheduled.containsKey(id)) {
+            return;
+        }
+        TimingWheel.Timeout<Transition> end = wheel.schedule(auction.getEndTime() * 1000, new Transition(id, Kind.END));
+        if (scheduled.putIfAbsent(id, end) != null) {
+            end.cancel();
+            return;
+        }
+        if (auction.getStatus() == Auction.AuctionStatus.PENDING) {
+            if (auction.getStartTime() * 1000 <= System.currentTimeMillis()) {
+                activate(id);
+            } else {
+                wheel.schedule(auction.getStartTime() * 1000, new Transition(id, Kind.START));
+            }
+        }
+    }
+
+    public void trackAll(List<Auction> auctions) {
+        for (Auction auction : auctions) {
+            track(auction);
+        }
+        log.info("Tracking {} auctions", scheduled.size());
+    }
+
+    // Start and end timeouts waiting on the wheel.
+    public int pendingTimeouts() {
+        return wheel.pendingCount();
+    }
+
+    public boolean isTracked(UUID auctionId) {
+        return scheduled.containsKey(auctionId);
+    }
+
+    private void run(Transition transition) {
+        try {
+            switch (transition.kind()) {
+                case START -> activate(transition.auctionId());
+                case END -> close(transition.auctionId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Error applying {} to auction {}: {}", transition.kind(), transition.auctionId(), e.getMessage());
+        }
+    }
+
+    private void activate(UUID auctionId) {
+        if (database.activateAuction(auctionId)) {
+            log.info("Auction started: {}", auctionId);
+        }
+    }
+
+    private void close(UUID auctionId) {
+        scheduled.remove(auctionId);
+        AuctionOutcome outcome = database.closeAuction(auctionId);
+        if (outcome == null) {
+            return;
+        }
+        log.info("Auction closed: {} {}{}", auctionId, outcome.status(), outcome.winner() != null ? " to " + outcome.winner() : "");
+        listener.onAuctionClosed(outcome);
+    }
+
+    public void close() {
+        wheel.stop();
+        transitions.shutdown();
+        try {
+            transitions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
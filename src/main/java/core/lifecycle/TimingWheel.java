@@ -0,0 +1,191 @@
+package core.lifecycle;
+
+import core.log.Log;
+import core.log.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Hashed timing wheel: time is cut into ticks of a fixed length, and a deadline goes into bucket
+// (tick % size) together with the number of full turns it still has to wait. Scheduling and
+// cancelling are O(1) from any thread, and each tick walks a single bucket, so millions of pending
+// deadlines cost memory but almost no CPU. Deadlines fire up to one tick late, never early.
+public class TimingWheel<T> {
+    private static final Logger log = Log.get(TimingWheel.class);
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket<T>[] buckets;
+    private final int mask;
+    private final Consumer<T> onExpired;
+    private final Queue<Timeout<T>> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread ticker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    // The wheel size is rounded up to a power of two. onExpired runs on the ticker thread and
+    // must hand anything slow to another thread.
+    public TimingWheel(String name, long tickMillis, int size, Consumer<T> onExpired) {
+        if (tickMillis <= 0 || size <= 0)
+            throw new IllegalArgumentException("Tick length and wheel size must be greater than zero");
+        int buckets = Integer.highestOneBit(size - 1) << 1;
+        this.buckets = newBuckets(Math.max(buckets, 1));
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new Bucket<>();
+        }
+        this.mask = this.buckets.length - 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.onExpired = onExpired;
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::run, name);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    // Deadline in epoch milliseconds; one already in the past fires on the next tick.
+    public Timeout<T> schedule(long deadlineMillis, T item) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadlineMillis - System.currentTimeMillis()));
+        Timeout<T> timeout = new Timeout<>(item, System.nanoTime() - startNanos + delayNanos, this);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    public void stop() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferAdded();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        Timeout<T> timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+            long dueTick = Math.max(timeout.deadlineNanos / tickNanos, tick);
+            timeout.remainingRounds = (dueTick - tick) / buckets.length;
+            buckets[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Bucket<T>[] newBuckets(int size) {
+        return (Bucket<T>[]) new Bucket<?>[size];
+    }
+
+    private void expire(Bucket<T> bucket) {
+        Timeout<T> timeout = bucket.head;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.state.get() == CANCELLED) {
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    pending.decrementAndGet();
+                    try {
+                        onExpired.accept(timeout.item);
+                    } catch (RuntimeException e) {
+                        log.error("Timer task failed: {}", e.getMessage());
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineNanos;
+        private final TimingWheel<T> wheel;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Owned by the ticker thread.
+        private long remainingRounds;
+        private Timeout<T> next;
+        private Timeout<T> previous;
+
+        private Timeout(T item, long deadlineNanos, TimingWheel<T> wheel) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+            this.wheel = wheel;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        // The timeout is unlinked lazily, the next time the ticker passes its bucket.
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                wheel.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Doubly linked so the ticker can unlink any entry while walking.
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+        }
+    }
+}
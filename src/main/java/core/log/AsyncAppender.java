@@ -0,0 +1,110 @@
+package core.log;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded ring of log events with many producers and one writer thread. A producer claims a slot
+// with one compare-and-set and never blocks or touches a stream; when the ring is full the event is
+// dropped and counted instead. The writer formats a batch, prints it with one call per stream (INFO
+// and below to stdout, WARN and up to stderr) and parks briefly when there is nothing to do.
+final class AsyncAppender implements Runnable {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final AtomicReferenceArray<LogEvent> slots;
+    private final int mask;
+    // Next sequence a producer claims.
+    private final AtomicLong tail = new AtomicLong();
+    // Next sequence the writer reads. A slot is cleared before head moves past it.
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private volatile boolean closing;
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private final StringBuilder err = new StringBuilder(1024);
+
+    AsyncAppender(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.thread = new Thread(this, "log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void append(LogEvent event) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), event);
+    }
+
+    @Override
+    public void run() {
+        long read = head;
+        while (true) {
+            LogEvent event = slots.get((int) (read & mask));
+            if (event != null) {
+                slots.set((int) (read & mask), null);
+                head = ++read;
+                event.formatTo(event.level().compareTo(Level.WARN) >= 0 ? err : out);
+                if (out.length() + err.length() < 64 * 1024) {
+                    continue;
+                }
+            } else if (tail.get() != read) {
+                // Claimed but not written yet; the producer is between its two steps.
+                Thread.onSpinWait();
+                continue;
+            }
+            reportDropped();
+            print();
+            if (event == null) {
+                if (closing) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.sumThenReset();
+        if (count > 0) {
+            new LogEvent(System.currentTimeMillis(), Level.WARN, "Log", thread.getName(),
+                    "Log buffer full, dropped {} lines", new Object[]{count}).formatTo(err);
+        }
+    }
+
+    // Looked up on every batch, so a caller redirecting System.out still captures the output.
+    private void print() {
+        print(System.out, out);
+        print(System.err, err);
+    }
+
+    private static void print(PrintStream stream, StringBuilder text) {
+        if (text.length() > 0) {
+            stream.print(text);
+            stream.flush();
+            text.setLength(0);
+        }
+    }
+
+    // Writes out everything appended so far, then stops the writer.
+    void close() {
+        closing = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
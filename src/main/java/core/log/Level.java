@@ -0,0 +1,18 @@
+package core.log;
+
+public enum Level {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    // Only as a threshold: nothing is logged.
+    OFF;
+
+    public static Level parse(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + value);
+        }
+    }
+}
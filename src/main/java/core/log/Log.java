@@ -0,0 +1,58 @@
+package core.log;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide logging settings and the one appender every Logger writes through.
+// Usage: private static final Logger log = Log.get(MyClass.class);
+public final class Log {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final ConcurrentHashMap<String, Logger> loggers = new ConcurrentHashMap<>();
+    private static final AsyncAppender appender = new AsyncAppender(BUFFER_SIZE);
+    private static volatile Level level = Level.INFO;
+    private static volatile int sampleEvery = 100;
+    private static volatile boolean closed;
+
+    private Log() {
+    }
+
+    public static Logger get(Class<?> type) {
+        return loggers.computeIfAbsent(type.getSimpleName(), Logger::new);
+    }
+
+    public static Level level() {
+        return level;
+    }
+
+    public static void setLevel(Level level) {
+        Log.level = level;
+    }
+
+    public static int sampleEvery() {
+        return sampleEvery;
+    }
+
+    // 1 keeps every sampled message.
+    public static void setSampleEvery(int sampleEvery) {
+        if (sampleEvery <= 0)
+            throw new IllegalArgumentException("Log sampling must be greater than zero");
+        Log.sampleEvery = sampleEvery;
+    }
+
+    static void append(LogEvent event) {
+        if (!closed) {
+            appender.append(event);
+            return;
+        }
+        // After shutdown there is no writer left; the few late lines are printed directly.
+        StringBuilder line = new StringBuilder();
+        event.formatTo(line);
+        (event.level().compareTo(Level.WARN) >= 0 ? System.err : System.out).print(line);
+    }
+
+    // Flushes what was logged so far. Called last on the way out.
+    public static void shutdown() {
+        closed = true;
+        appender.close();
+    }
+}
@@ -0,0 +1,26 @@
+package core.log;
+
+import java.time.Instant;
+
+// One call to a Logger, not yet formatted. The arguments are turned into text on the appender thread,
+// so callers pass values they no longer change.
+record LogEvent(long timeMillis, Level level, String logger, String thread, String format, Object[] args) {
+
+    void formatTo(StringBuilder out) {
+        out.append(Instant.ofEpochMilli(timeMillis)).append(' ');
+        out.append(level);
+        for (int i = level.name().length(); i < 5; i++) {
+            out.append(' ');
+        }
+        out.append(" [").append(thread).append("] ").append(logger).append(" - ");
+
+        int argument = 0;
+        int from = 0;
+        int placeholder;
+        while (args != null && argument < args.length && (placeholder = format.indexOf("{}", from)) >= 0) {
+            out.append(format, from, placeholder).append(args[argument++]);
+            from = placeholder + 2;
+        }
+        out.append(format, from, format.length()).append('\n');
+    }
+}
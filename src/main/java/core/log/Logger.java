@@ -0,0 +1,122 @@
+package core.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Messages use {} placeholders, filled in on the appender thread. The fixed-arity overloads let a
+// call below the threshold return without allocating anything; primitives passed as arguments are
+// still boxed, so hot paths check isEnabled first when that matters.
+public final class Logger {
+    private final String name;
+    private final AtomicLong sampled = new AtomicLong();
+
+    Logger(String name) {
+        this.name = name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(Log.level()) >= 0;
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void debug(String format, Object arg) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, new Object[]{arg});
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    // For per-message logs: only one call in every Log.sampleEvery() that passes the level check is kept.
+    public void debugSampled(String format, Object arg) {
+        if (isEnabled(Level.DEBUG) && sample()) {
+            log(Level.DEBUG, format, new Object[]{arg});
+        }
+    }
+
+    public void debugSampled(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.DEBUG) && sample()) {
+            log(Level.DEBUG, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void info(String format, Object arg) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, new Object[]{arg});
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void warn(String format, Object arg) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, format, new Object[]{arg});
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void warn(String format, Object... args) {
+        log(Level.WARN, format, args);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    public void error(String format, Object arg) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, format, new Object[]{arg});
+        }
+    }
+
+    public void error(String format, Object arg1, Object arg2) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, format, new Object[]{arg1, arg2});
+        }
+    }
+
+    public void error(String format, Object... args) {
+        log(Level.ERROR, format, args);
+    }
+
+    private boolean sample() {
+        return sampled.getAndIncrement() % Log.sampleEvery() == 0;
+    }
+
+    private void log(Level level, String format, Object[] args) {
+        if (isEnabled(level)) {
+            Log.append(new LogEvent(System.currentTimeMillis(), level, name, Thread.currentThread().getName(), format, args));
+        }
+    }
+}
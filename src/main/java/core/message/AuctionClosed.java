@@ -0,0 +1,54 @@
+package core.message;
+
+import model.Auction;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Payload of AUCTION_CLOSED. The winner is null when the auction ended without bids.
+public class AuctionClosed {
+    private final UUID auctionId;
+    private final Auction.AuctionStatus status;
+    private final BigDecimal finalPrice;
+    private final int bidCount;
+    private final String winner;
+
+    public AuctionClosed(UUID auctionId, Auction.AuctionStatus status, BigDecimal finalPrice, int bidCount, String winner) {
+        this.auctionId = auctionId;
+        this.status = status;
+        this.finalPrice = finalPrice;
+        this.bidCount = bidCount;
+        this.winner = winner;
+    }
+
+    public UUID getAuctionId() {
+        return auctionId;
+    }
+
+    public Auction.AuctionStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getFinalPrice() {
+        return finalPrice;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
+    public String getWinner() {
+        return winner;
+    }
+
+    @Override
+    public String toString() {
+        return "AuctionClosed{" +
+                "auctionId=" + auctionId +
+                ", status=" + status +
+                ", finalPrice=" + finalPrice +
+                ", bidCount=" + bidCount +
+                ", winner='" + winner + '\'' +
+                '}';
+    }
+}
@@ -1,14 +1,25 @@
 package core.message;
 
-import java.io.Serializable;
-
-public class AuctionMessage implements Serializable {
+// requestId is chosen by the client and echoed on every reply to that request, so replies can be
+// matched to pipelined requests. Broadcasts never carry one.
+public class AuctionMessage {
     private final MessageType type;
+    private final String requestId;
     private final Object data;
     
     public AuctionMessage(MessageType type, Object data){
+        this(type, data, null);
+    }
+
+    public AuctionMessage(MessageType type, Object data, String requestId) {
         this.type = type;
         this.data = data;
+        this.requestId = requestId;
+    }
+
+    // A reply to this message, carrying its request id.
+    public AuctionMessage reply(MessageType type, Object data) {
+        return new AuctionMessage(type, data, requestId);
     }
 
     public Object getData() {
@@ -19,10 +30,15 @@ public class AuctionMessage implements Serializable {
         return type;
     }
 
+    public String getRequestId() {
+        return requestId;
+    }
+
     @Override
     public String toString() {
         return "AuctionMessage{" +
                 "type=" + type +
+                (requestId != null ? ", requestId=" + requestId : "") +
                 ", data=" + data +
                 '}';
     }
@@ -0,0 +1,37 @@
+package core.message;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import model.Auction;
+import model.Money;
+import model.PriceState;
+
+import java.lang.reflect.Type;
+
+// Keeps the JSON shape of an auction stable while its in-memory representation changes.
+// Prices are written as decimal numbers at the auction's scale. Listings carry the bid count and
+// the leader rather than the bids themselves, which GET_BID_HISTORY pages through; price, leader
+// and count are taken from one state, so they always agree.
+public class AuctionSerializer implements JsonSerializer<Auction> {
+    @Override
+    public JsonElement serialize(Auction auction, Type type, JsonSerializationContext context) {
+        PriceState state = auction.getPriceState();
+        JsonObject json = new JsonObject();
+        json.add("id", context.serialize(auction.getId()));
+        json.addProperty("name", auction.getName());
+        json.addProperty("description", auction.getDescription());
+        json.addProperty("startingPrice", Money.toDecimal(auction.getStartingPrice(), auction.getScale()));
+        json.addProperty("currentPrice", Money.toDecimal(state.price(), auction.getScale()));
+        json.addProperty("startTime", auction.getStartTime());
+        json.addProperty("endTime", auction.getEndTime());
+        json.addProperty("seller", auction.getSeller());
+        json.addProperty("createdAt", auction.getCreatedAt());
+        json.addProperty("bidCount", state.bidCount());
+        json.addProperty("topBidder", state.topBidder());
+        json.add("status", context.serialize(auction.getStatus()));
+        json.addProperty("minimumBidIncrement", Money.toDecimal(auction.getMinimumBidIncrement(), auction.getScale()));
+        return json;
+    }
+}
@@ -0,0 +1,45 @@
+package core.message;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Payload of AUCTION_UPDATED: only the fields a bid can change.
+public class AuctionUpdate {
+    private final UUID auctionId;
+    private final BigDecimal currentPrice;
+    private final int bidCount;
+    private final String topBidder;
+
+    public AuctionUpdate(UUID auctionId, BigDecimal currentPrice, int bidCount, String topBidder){
+        this.auctionId = auctionId;
+        this.currentPrice = currentPrice;
+        this.bidCount = bidCount;
+        this.topBidder = topBidder;
+    }
+
+    public UUID getAuctionId() {
+        return auctionId;
+    }
+
+    public BigDecimal getCurrentPrice() {
+        return currentPrice;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
+    public String getTopBidder() {
+        return topBidder;
+    }
+
+    @Override
+    public String toString() {
+        return "AuctionUpdate{" +
+                "auctionId=" + auctionId +
+                ", currentPrice=" + currentPrice +
+                ", bidCount=" + bidCount +
+                ", topBidder='" + topBidder + '\'' +
+                '}';
+    }
+}
@@ -1,18 +1,20 @@
 package core.message;
 
-import java.io.Serializable;
-import java.math.BigDecimal;
 import java.util.UUID;
 
-public class BidMessage implements Serializable {
+// Payload of PLACE_BID. The price is in minor units at the scale the client sent it with;
+// BidMessageAdapter converts it from and to the JSON number.
+public class BidMessage {
     private final UUID productId;
     private final String bidder;
-    private final BigDecimal price;
+    private final long price;
+    private final int scale;
 
-    public BidMessage(UUID productId, String bidder, BigDecimal price){
+    public BidMessage(UUID productId, String bidder, long price, int scale){
         this.productId = productId;
         this.bidder = bidder;
         this.price = price;
+        this.scale = scale;
     }
 
     public UUID getProductId() {
@@ -23,8 +25,12 @@ public class BidMessage implements Serializable {
         return bidder;
     }
 
-    public BigDecimal getPrice() {
+    public long getPrice() {
         return price;
     }
 
+    public int getScale() {
+        return scale;
+    }
+
 }
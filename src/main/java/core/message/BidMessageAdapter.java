@@ -0,0 +1,44 @@
+package core.message;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import model.Money;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Reads and writes the price of a PLACE_BID as the JSON number clients use, exactly as given.
+public class BidMessageAdapter implements JsonSerializer<BidMessage>, JsonDeserializer<BidMessage> {
+    @Override
+    public JsonElement serialize(BidMessage bid, Type type, JsonSerializationContext context) {
+        JsonObject json = new JsonObject();
+        json.add("productId", context.serialize(bid.getProductId()));
+        json.addProperty("bidder", bid.getBidder());
+        json.addProperty("price", Money.toDecimal(bid.getPrice(), bid.getScale()));
+        return json;
+    }
+
+    @Override
+    public BidMessage deserialize(JsonElement element, Type type, JsonDeserializationContext context) {
+        JsonObject json = element.getAsJsonObject();
+        JsonElement price = json.get("price");
+        if (price == null || price.isJsonNull())
+            throw new JsonParseException("Bid price is required");
+
+        BigDecimal decimal = price.getAsBigDecimal();
+        int scale = Money.scaleOf(decimal);
+        JsonElement bidder = json.get("bidder");
+        return new BidMessage(
+                context.deserialize(json.get("productId"), UUID.class),
+                bidder == null || bidder.isJsonNull() ? null : bidder.getAsString(),
+                Money.toMinorUnits(decimal, scale),
+                scale
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package core.message;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// One entry of BID_RESULTS, in the order the bids were sent. status is a BidResult status, ERROR or THROTTLED,
+// message is the text a single PLACE_BID would have been answered with. The price, bid count and
+// top bidder are the auction's state the bid was settled against; the prices are null when the
+// auction does not exist. retryAfterMillis is only set on THROTTLED, as in Throttled.
+public class BidOutcome {
+    private final UUID auctionId;
+    private final String status;
+    private final String message;
+    private final BigDecimal currentPrice;
+    private final BigDecimal minimumAllowedBid;
+    private final int bidCount;
+    private final String topBidder;
+    private final Long retryAfterMillis;
+
+    public BidOutcome(UUID auctionId, String status, String message, BigDecimal currentPrice,
+                      BigDecimal minimumAllowedBid, int bidCount, String topBidder) {
+        this(auctionId, status, message, currentPrice, minimumAllowedBid, bidCount, topBidder, null);
+    }
+
+    public BidOutcome(UUID auctionId, String status, String message, BigDecimal currentPrice,
+                      BigDecimal minimumAllowedBid, int bidCount, String topBidder, Long retryAfterMillis) {
+        this.auctionId = auctionId;
+        this.status = status;
+        this.message = message;
+        this.currentPrice = currentPrice;
+        this.minimumAllowedBid = minimumAllowedBid;
+        this.bidCount = bidCount;
+        this.topBidder = topBidder;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public UUID getAuctionId() {
+        return auctionId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public BigDecimal getCurrentPrice() {
+        return currentPrice;
+    }
+
+    public BigDecimal getMinimumAllowedBid() {
+        return minimumAllowedBid;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
+    public String getTopBidder() {
+        return topBidder;
+    }
+
+    public Long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BidOutcome{" +
+                "auctionId=" + auctionId +
+                ", status='" + status + '\'' +
+                ", currentPrice=" + currentPrice +
+                ", bidCount=" + bidCount +
+                '}';
+    }
+}
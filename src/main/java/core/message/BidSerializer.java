@@ -0,0 +1,24 @@
+package core.message;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import model.Bid;
+import model.Money;
+
+import java.lang.reflect.Type;
+
+// Writes a bid of an auction's history with its price as a decimal number.
+public class BidSerializer implements JsonSerializer<Bid> {
+    @Override
+    public JsonElement serialize(Bid bid, Type type, JsonSerializationContext context) {
+        JsonObject json = new JsonObject();
+        json.add("id", context.serialize(bid.getId()));
+        json.add("auctionId", context.serialize(bid.getAuctionId()));
+        json.addProperty("userName", bid.getUserName());
+        json.addProperty("price", Money.toDecimal(bid.getPrice(), bid.getScale()));
+        json.addProperty("timestamp", bid.getTimestamp());
+        return json;
+    }
+}
@@ -0,0 +1,163 @@
+package core.message;
+
+import core.net.WireProtocol;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// Fixed layouts for the hot messages of WireProtocol.BINARY. Everything else travels as a JSON
+// frame holding the same JSON a line client would get.
+//   uuid    = long mostSignificant | long leastSignificant
+//   decimal = byte scale | long unscaled value, the same fixed-point form as model.Money
+//   string  = short length | UTF-8 bytes
+//   PLACE_BID       uuid auctionId | decimal price | string bidder
+//   BID_ACCEPTED    uuid auctionId | decimal price | int bidCount
+//   BID_REJECTED    uuid auctionId | byte reason | decimal minimumAllowedBid
+//   AUCTION_UPDATED uuid auctionId | decimal price | int bidCount | string topBidder
+public final class BinaryCodec {
+    public static final byte JSON = 0;
+    public static final byte PLACE_BID = 1;
+    public static final byte BID_ACCEPTED = 2;
+    public static final byte BID_REJECTED = 3;
+    public static final byte AUCTION_UPDATED = 4;
+
+    public static final byte REJECTED_TOO_LOW = 0;
+    public static final byte REJECTED_AUCTION_NOT_FOUND = 1;
+    public static final byte REJECTED_INVALID_PRICE = 2;
+    public static final byte REJECTED_NOT_OPEN = 3;
+    // Another bidder's maximum bid covers the bid and the price has moved up to meet it.
+    public static final byte REJECTED_OUTBID = 4;
+    // Over a rate limit; the bid was not looked at.
+    public static final byte REJECTED_THROTTLED = 5;
+    // The bid has no bidder or a price that is not above zero.
+    public static final byte REJECTED_INVALID_BID = 6;
+
+    private static final int UUID_BYTES = 16;
+    private static final int DECIMAL_BYTES = 9;
+
+    private BinaryCodec() {
+    }
+
+    public static byte[] json(String json) {
+        return json(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] json(byte[] bytes) {
+        ByteBuffer frame = allocate(JSON, bytes.length);
+        frame.put(bytes);
+        return frame.array();
+    }
+
+    public static byte[] placeBid(BidMessage bid) {
+        byte[] bidder = utf8(bid.getBidder());
+        ByteBuffer frame = allocate(PLACE_BID, UUID_BYTES + DECIMAL_BYTES + 2 + bidder.length);
+        putUuid(frame, bid.getProductId());
+        putFixed(frame, bid.getPrice(), bid.getScale());
+        putString(frame, bidder);
+        return frame.array();
+    }
+
+    public static BidMessage readPlaceBid(ByteBuffer payload) {
+        UUID auctionId = getUuid(payload);
+        int scale = payload.get();
+        if (scale < 0)
+            throw new IllegalArgumentException("Invalid price scale: " + scale);
+        long price = payload.getLong();
+        String bidder = getString(payload);
+        return new BidMessage(auctionId, bidder, price, scale);
+    }
+
+    public static byte[] bidAccepted(UUID auctionId, long price, int scale, int bidCount) {
+        ByteBuffer frame = allocate(BID_ACCEPTED, UUID_BYTES + DECIMAL_BYTES + 4);
+        putUuid(frame, auctionId);
+        putFixed(frame, price, scale);
+        frame.putInt(bidCount);
+        return frame.array();
+    }
+
+    public static byte[] bidRejected(UUID auctionId, byte reason, long minimumAllowedBid, int scale) {
+        ByteBuffer frame = allocate(BID_REJECTED, UUID_BYTES + 1 + DECIMAL_BYTES);
+        putUuid(frame, auctionId);
+        frame.put(reason);
+        putFixed(frame, minimumAllowedBid, scale);
+        return frame.array();
+    }
+
+    public static byte[] auctionUpdated(AuctionUpdate update) {
+        byte[] topBidder = utf8(update.getTopBidder());
+        ByteBuffer frame = allocate(AUCTION_UPDATED, UUID_BYTES + DECIMAL_BYTES + 4 + 2 + topBidder.length);
+        putUuid(frame, update.getAuctionId());
+        putDecimal(frame, update.getCurrentPrice());
+        frame.putInt(update.getBidCount());
+        putString(frame, topBidder);
+        return frame.array();
+    }
+
+    public static AuctionUpdate readAuctionUpdated(ByteBuffer payload) {
+        UUID auctionId = getUuid(payload);
+        BigDecimal price = getDecimal(payload);
+        int bidCount = payload.getInt();
+        String topBidder = getString(payload);
+        return new AuctionUpdate(auctionId, price, bidCount, topBidder);
+    }
+
+    // Leaves the buffer positioned after the length prefix and the type byte.
+    private static ByteBuffer allocate(byte type, int payloadLength) {
+        int length = 1 + payloadLength;
+        if (length > WireProtocol.MAX_FRAME_LENGTH)
+            throw new IllegalArgumentException("Frame too large: " + length + " bytes");
+        ByteBuffer frame = ByteBuffer.allocate(4 + length);
+        frame.putInt(length);
+        frame.put(type);
+        return frame;
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID value) {
+        buffer.putLong(value.getMostSignificantBits());
+        buffer.putLong(value.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void putFixed(ByteBuffer buffer, long value, int scale) {
+        buffer.put((byte) scale);
+        buffer.putLong(value);
+    }
+
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value) {
+        if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Price scale out of range: " + value);
+        putFixed(buffer, value.unscaledValue().longValueExact(), value.scale());
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        byte scale = buffer.get();
+        return new BigDecimal(BigInteger.valueOf(buffer.getLong()), scale);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE)
+            throw new IllegalArgumentException("String too long: " + bytes.length + " bytes");
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0 || length > buffer.remaining())
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
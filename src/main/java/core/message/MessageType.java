@@ -9,10 +9,41 @@ public enum MessageType {
     BID_ACCEPTED,
     BID_REJECTED,
 
+    // Many bids in one request, answered by one BID_RESULTS with an entry per bid.
+    PLACE_BIDS,
+    BID_RESULTS,
+
+    // The most a bidder will pay, bid for them an increment at a time; payload as in PLACE_BID.
+    SET_MAX_BID,
+    MAX_BID_ACCEPTED,
+    MAX_BID_REJECTED,
+
     CREATE_AUCTION,
     AUCTION_CREATION_ACCEPTED,
     AUCTION_CREATION_REJECTED,
 
+    AUCTION_CREATED,
+    AUCTION_UPDATED,
+    AUCTION_CLOSED,
+
+    GET_BID_HISTORY,
+    BID_HISTORY,
+    ERROR_BID_HISTORY,
+
+    // Request and reply: the server's metrics as one JSON object.
+    STATS,
+
+    SUBSCRIBE,
+    UNSUBSCRIBE,
+    SUBSCRIPTION_ACCEPTED,
+    SUBSCRIPTION_REJECTED,
+
+    // The request went over a rate or concurrency limit and was not handled; payload Throttled.
+    THROTTLED,
+
+    // Sent first by another node of the cluster on its link to this one. Not answered.
+    PEER_HELLO,
+
     ERROR
 
 
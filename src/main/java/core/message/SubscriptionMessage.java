@@ -0,0 +1,30 @@
+package core.message;
+
+import java.util.UUID;
+
+// Payload of SUBSCRIBE / UNSUBSCRIBE. Either names one auction or, with all=true, the firehose of every auction.
+public class SubscriptionMessage {
+    private final UUID auctionId;
+    private final boolean all;
+
+    public SubscriptionMessage(UUID auctionId, boolean all){
+        this.auctionId = auctionId;
+        this.all = all;
+    }
+
+    public UUID getAuctionId() {
+        return auctionId;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriptionMessage{" +
+                "auctionId=" + auctionId +
+                ", all=" + all +
+                '}';
+    }
+}
@@ -0,0 +1,28 @@
+package core.message;
+
+// Payload of THROTTLED: which request was refused, which limit it hit (see AdmissionControl) and
+// how long to wait before sending it again. retryAfterMillis is 0 when it depends on other
+// clients' requests finishing rather than on time.
+public class Throttled {
+    private final String request;
+    private final String limit;
+    private final long retryAfterMillis;
+
+    public Throttled(String request, String limit, long retryAfterMillis) {
+        this.request = request;
+        this.limit = limit;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
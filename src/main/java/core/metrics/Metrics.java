@@ -0,0 +1,184 @@
+package core.metrics;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Counters, gauges and histograms of one server, registered once at startup and updated from the
+// hot paths without locks. Rendered on demand, as JSON for the STATS message and as Prometheus
+// text for the scrape endpoint; both use the same names and units, with durations in seconds.
+public class Metrics {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] QUANTILE_NAMES = {"0.5", "0.9", "0.99", "0.999"};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private enum Kind {
+        COUNTER, GAUGE, TIMER, DISTRIBUTION
+    }
+
+    // A metric with an optional label; unlabelled metrics keep their single value under "".
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Kind kind;
+        private final String label;
+        private final Map<String, Object> values = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, Kind kind, String label) {
+            this.name = name;
+            this.help = help;
+            this.kind = kind;
+            this.label = label;
+        }
+
+        private Object value(String labelValue) {
+            return values.computeIfAbsent(labelValue, value -> kind == Kind.COUNTER ? new LongAdder() : new Histogram());
+        }
+    }
+
+    private final List<Family> families = new ArrayList<>();
+    private final Map<String, Family> byName = new ConcurrentHashMap<>();
+    private final long startedAt = System.nanoTime();
+
+    public Metrics() {
+        gauge("bidly_uptime_seconds", "Seconds since the server started", () -> (System.nanoTime() - startedAt) / 1_000_000_000);
+    }
+
+    public LongAdder counter(String name, String help) {
+        return (LongAdder) register(name, help, Kind.COUNTER, null).value("");
+    }
+
+    public Labeled<LongAdder> counter(String name, String help, String label) {
+        Family family = register(name, help, Kind.COUNTER, label);
+        return value -> (LongAdder) family.value(value);
+    }
+
+    // Read each time the metrics are rendered.
+    public void gauge(String name, String help, LongSupplier supplier) {
+        register(name, help, Kind.GAUGE, null).values.put("", supplier);
+    }
+
+    // Durations, recorded with Histogram.recordNanos.
+    public Histogram timer(String name, String help) {
+        return (Histogram) register(name, help, Kind.TIMER, null).value("");
+    }
+
+    public Labeled<Histogram> timer(String name, String help, String label) {
+        Family family = register(name, help, Kind.TIMER, label);
+        return value -> (Histogram) family.value(value);
+    }
+
+    // Plain quantities, such as how many clients a broadcast reached.
+    public Labeled<Histogram> distribution(String name, String help, String label) {
+        Family family = register(name, help, Kind.DISTRIBUTION, label);
+        return value -> (Histogram) family.value(value);
+    }
+
+    public interface Labeled<T> {
+        T get(String labelValue);
+    }
+
+    private synchronized Family register(String name, String help, Kind kind, String label) {
+        if (byName.containsKey(name))
+            throw new IllegalArgumentException("Metric already registered: " + name);
+        Family family = new Family(name, help, kind, label);
+        families.add(family);
+        byName.put(name, family);
+        return family;
+    }
+
+    private synchronized List<Family> families() {
+        return new ArrayList<>(families);
+    }
+
+    public JsonObject toJson() {
+        JsonObject root = new JsonObject();
+        for (Family family : families()) {
+            if (family.label == null) {
+                Object value = family.values.get("");
+                if (value != null) {
+                    root.add(family.name, json(family.kind, value));
+                }
+                continue;
+            }
+            JsonObject byLabel = new JsonObject();
+            family.values.forEach((labelValue, value) -> byLabel.add(labelValue, json(family.kind, value)));
+            root.add(family.name, byLabel);
+        }
+        return root;
+    }
+
+    private static JsonElement json(Kind kind, Object value) {
+        return switch (kind) {
+            case COUNTER -> new JsonPrimitive(((LongAdder) value).sum());
+            case GAUGE -> new JsonPrimitive(((LongSupplier) value).getAsLong());
+            case TIMER, DISTRIBUTION -> {
+                Histogram histogram = (Histogram) value;
+                double divisor = kind == Kind.TIMER ? 1e6 : 1;
+                JsonObject summary = new JsonObject();
+                summary.addProperty("count", histogram.count());
+                summary.addProperty("mean", histogram.mean() / divisor);
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    summary.addProperty(PERCENTILE_NAMES[i], histogram.percentile(PERCENTILES[i]) / divisor);
+                }
+                summary.addProperty("max", histogram.max() / divisor);
+                yield summary;
+            }
+        };
+    }
+
+    // Prometheus text exposition format, version 0.0.4. Histograms are exported as summaries.
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : families()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(switch (family.kind) {
+                case COUNTER -> "counter";
+                case GAUGE -> "gauge";
+                case TIMER, DISTRIBUTION -> "summary";
+            }).append('\n');
+            family.values.forEach((labelValue, value) -> {
+                String labels = family.label == null ? "" : family.label + "=\"" + labelValue + "\"";
+                switch (family.kind) {
+                    case COUNTER -> sample(out, family.name, labels, ((LongAdder) value).sum());
+                    case GAUGE -> sample(out, family.name, labels, ((LongSupplier) value).getAsLong());
+                    case TIMER, DISTRIBUTION -> {
+                        Histogram histogram = (Histogram) value;
+                        double divisor = family.kind == Kind.TIMER ? 1e6 : 1;
+                        for (int i = 0; i < PERCENTILES.length; i++) {
+                            String quantile = "quantile=\"" + QUANTILE_NAMES[i] + "\"";
+                            sample(out, family.name, labels.isEmpty() ? quantile : labels + "," + quantile,
+                                    histogram.percentile(PERCENTILES[i]) / divisor);
+                        }
+                        sample(out, family.name + "_sum", labels, histogram.sum() / divisor);
+                        sample(out, family.name + "_count", labels, histogram.count());
+                    }
+                }
+            });
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,221 @@
+package core.net;
+
+import core.log.Log;
+import core.log.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The original transport: a blocking accept loop and one reader thread per client socket.
+// Writes go through a small pool shared by all clients: a connection with queued frames gets one
+// drain task at a time, which writes a batch, flushes once and requeues itself if more is waiting.
+// A client that stops reading blocks its drain in the socket write, where its queue no longer grows
+// and the slow-consumer check in the queue never runs; a watchdog closes any socket whose write has
+// been blocked for longer than maxLagMillis, which fails the write and frees the pool thread.
+public class BlockingTransport implements Transport {
+    private static final Logger log = Log.get(BlockingTransport.class);
+
+    private static final int MAX_FRAMES_PER_FLUSH = 256;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int WRITER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long NOT_WRITING = Long.MIN_VALUE;
+
+    private final int port;
+    private final OutboundLimits outboundLimits;
+    private final ConnectionListener listener;
+    private final Set<SocketConnection> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private ExecutorService writers;
+    private ScheduledExecutorService watchdog;
+    private volatile boolean running;
+
+    public BlockingTransport(int port, OutboundLimits outboundLimits, ConnectionListener listener) {
+        this.port = port;
+        this.outboundLimits = outboundLimits;
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        AtomicInteger threadCount = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(WRITER_THREADS, r -> {
+            Thread thread = new Thread(r, "client-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "client-write-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(1, outboundLimits.maxLagMillis() / 2);
+        watchdog.scheduleWithFixedDelay(this::closeBlockedWriters, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        running = true;
+        log.info("Server started on port {} (blocking transport)", port);
+
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!running) {
+                    break;
+                }
+                throw e;
+            }
+            SocketConnection connection = new SocketConnection(socket);
+            connections.add(connection);
+            new Thread(connection::readLoop, "client-" + connection.getId()).start();
+        }
+        writers.shutdown();
+        watchdog.shutdownNow();
+    }
+
+    private void closeBlockedWriters() {
+        long now = System.nanoTime();
+        long maxLagNanos = TimeUnit.MILLISECONDS.toNanos(outboundLimits.maxLagMillis());
+        for (SocketConnection connection : connections) {
+            long started = connection.writeStartedAt;
+            if (started != NOT_WRITING && now - started > maxLagNanos) {
+                log.warn("Slow consumer, disconnecting {} after a write blocked for {} ms", connection,
+                        TimeUnit.NANOSECONDS.toMillis(now - started));
+                connection.close();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.error("Server error: {}", e.getMessage());
+        }
+    }
+
+    private class SocketConnection extends Connection {
+        private final Socket socket;
+        private final InputStream input;
+        private final OutputStream output;
+        private final List<byte[]> batch = new ArrayList<>(MAX_FRAMES_PER_FLUSH);
+        // Set while a drain task is queued or running, so the connection never has two.
+        private final AtomicBoolean writeScheduled = new AtomicBoolean();
+        // System.nanoTime() when the running drain started writing, NOT_WRITING between drains.
+        private volatile long writeStartedAt = NOT_WRITING;
+
+        SocketConnection(Socket socket) throws IOException {
+            super(outboundLimits);
+            this.socket = socket;
+            this.input = socket.getInputStream();
+            this.output = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void readLoop() {
+            listener.onConnect(this);
+            FrameDecoder decoder = new FrameDecoder(this, new FrameDecoder.Sink() {
+                @Override
+                public void onLine(String line) {
+                    listener.onMessage(SocketConnection.this, line);
+                }
+
+                @Override
+                public void onFrame(byte type, ByteBuffer payload) {
+                    listener.onFrame(SocketConnection.this, type, payload);
+                }
+            });
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            try {
+                while (!socket.isClosed()) {
+                    int count = input.read(buffer);
+                    if (count == -1) {
+                        log.debug("Connection closed by client");
+                        break;
+                    }
+                    if (!decoder.decode(ByteBuffer.wrap(buffer, 0, count))) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.warn("Connection error: {}", e.getMessage());
+                }
+            } finally {
+                close();
+                connections.remove(this);
+                listener.onDisconnect(this);
+            }
+        }
+
+        // Writes what queued up since the last round and flushes once. Runs on the writer pool.
+        private void drain() {
+            try {
+                outbound.drainTo(batch, MAX_FRAMES_PER_FLUSH);
+                writeStartedAt = System.nanoTime();
+                for (byte[] frame : batch) {
+                    output.write(frame);
+                }
+                output.flush();
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.warn("Connection error: {}", e.getMessage());
+                }
+                close();
+            } finally {
+                writeStartedAt = NOT_WRITING;
+                batch.clear();
+                writeScheduled.set(false);
+            }
+            // Frames queued while this round ran found it still scheduled and relied on it to look again.
+            if (outbound.size() > 0 && isOpen()) {
+                onFramesQueued();
+            }
+        }
+
+        @Override
+        protected void onFramesQueued() {
+            if (writeScheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // The transport is shutting down.
+                    writeScheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            outbound.close();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.warn("Error closing connection: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !socket.isClosed();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package core.net;
+
+import core.log.Log;
+import core.log.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// A single client connection, independent of how the bytes are moved.
+// Senders only ever enqueue; the transport's writer drains the queue to the socket.
+public abstract class Connection {
+    private static final Logger log = Log.get(Connection.class);
+
+    private final UUID id = UUID.randomUUID();
+    protected final OutboundQueue outbound;
+    private volatile WireProtocol protocol = WireProtocol.JSON;
+
+    protected Connection(OutboundLimits limits) {
+        this.outbound = new OutboundQueue(limits);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    // Which framing the client negotiated; senders encode their frames to match.
+    public WireProtocol getProtocol() {
+        return protocol;
+    }
+
+    void setProtocol(WireProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    public static byte[] encodeLine(String line) {
+        return (line + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void send(String line) {
+        send(encodeLine(line));
+    }
+
+    public void send(byte[] frame) {
+        enqueue(frame, null);
+    }
+
+    // Queues a frame that may be replaced by a later frame with the same key before it is written.
+    public void sendConflated(UUID key, byte[] frame) {
+        enqueue(frame, key);
+    }
+
+    private void enqueue(byte[] frame, UUID key) {
+        switch (outbound.offer(frame, key)) {
+            case QUEUED -> onFramesQueued();
+            case OVERFLOW -> {
+                log.warn("Slow consumer, disconnecting {} with {} queued messages", this, outbound.size());
+                close();
+            }
+            case CONFLATED, DROPPED -> {
+            }
+        }
+    }
+
+    // Frames waiting to be written to the socket.
+    public int queuedFrames() {
+        return outbound.size();
+    }
+
+    // Messages read but not yet handled. Only a transport that hands them to other threads queues any.
+    public int queuedMessages() {
+        return 0;
+    }
+
+    // Called after a new frame was queued; the transport wakes its writer.
+    protected abstract void onFramesQueued();
+
+    public abstract void close();
+
+    public abstract boolean isOpen();
+
+    @Override
+    public String toString() {
+        return "Connection{" + id + '}';
+    }
+}
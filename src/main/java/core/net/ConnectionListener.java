@@ -0,0 +1,14 @@
+package core.net;
+
+import java.nio.ByteBuffer;
+
+public interface ConnectionListener {
+    void onConnect(Connection connection);
+
+    void onMessage(Connection connection, String line);
+
+    // A binary frame from a client that negotiated WireProtocol.BINARY.
+    void onFrame(Connection connection, byte type, ByteBuffer payload);
+
+    void onDisconnect(Connection connection);
+}
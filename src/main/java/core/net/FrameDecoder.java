@@ -0,0 +1,131 @@
+package core.net;
+
+import core.log.Log;
+import core.log.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Splits one connection's inbound bytes into messages. The first bytes decide the framing:
+// the handshake switches the connection to binary frames, anything else is read as JSON lines.
+final class FrameDecoder {
+    private static final Logger log = Log.get(FrameDecoder.class);
+
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    interface Sink {
+        void onLine(String line);
+
+        void onFrame(byte type, ByteBuffer payload);
+    }
+
+    private enum State {UNDECIDED, LINES, FRAMES}
+
+    private final Connection connection;
+    private final Sink sink;
+    private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+    private ByteBuffer frame;
+    private int handshakeMatched;
+    private State state = State.UNDECIDED;
+
+    FrameDecoder(Connection connection, Sink sink) {
+        this.connection = connection;
+        this.sink = sink;
+    }
+
+    // Returns false if the peer broke the protocol and the connection should be closed.
+    boolean decode(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            boolean ok = switch (state) {
+                case UNDECIDED -> readHandshake(in);
+                case LINES -> readLines(in);
+                case FRAMES -> readFrames(in);
+            };
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readHandshake(ByteBuffer in) {
+        while (in.hasRemaining() && handshakeMatched < WireProtocol.HANDSHAKE.length) {
+            if (in.get(in.position()) != WireProtocol.HANDSHAKE[handshakeMatched]) {
+                // Not a handshake after all; what matched so far is the start of a line.
+                lineBuffer.write(WireProtocol.HANDSHAKE, 0, handshakeMatched);
+                state = State.LINES;
+                return true;
+            }
+            in.get();
+            handshakeMatched++;
+        }
+        if (!in.hasRemaining()) {
+            return true;
+        }
+
+        byte version = in.get();
+        if (version != WireProtocol.VERSION) {
+            log.warn("Unsupported protocol version {}, closing {}", version, connection);
+            return false;
+        }
+        connection.setProtocol(WireProtocol.BINARY);
+        connection.send(WireProtocol.handshake());
+        state = State.FRAMES;
+        return true;
+    }
+
+    private boolean readLines(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b == '\n') {
+                String line = lineBuffer.toString(StandardCharsets.UTF_8);
+                lineBuffer.reset();
+                if (line.endsWith("\r")) {
+                    line = line.substring(0, line.length() - 1);
+                }
+                sink.onLine(line);
+            } else {
+                lineBuffer.write(b);
+                if (lineBuffer.size() > MAX_LINE_LENGTH) {
+                    log.warn("Message exceeds {} bytes, closing {}", MAX_LINE_LENGTH, connection);
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean readFrames(ByteBuffer in) {
+        while (in.hasRemaining()) {
+            if (frame == null) {
+                while (in.hasRemaining() && header.hasRemaining()) {
+                    header.put(in.get());
+                }
+                if (header.hasRemaining()) {
+                    return true;
+                }
+                int length = header.getInt(0);
+                header.clear();
+                if (length <= 0 || length > WireProtocol.MAX_FRAME_LENGTH) {
+                    log.warn("Invalid frame length {}, closing {}", length, connection);
+                    return false;
+                }
+                frame = ByteBuffer.allocate(length);
+            }
+
+            int count = Math.min(in.remaining(), frame.remaining());
+            frame.put(frame.position(), in, in.position(), count);
+            frame.position(frame.position() + count);
+            in.position(in.position() + count);
+            if (!frame.hasRemaining()) {
+                frame.flip();
+                byte type = frame.get();
+                sink.onFrame(type, frame.slice());
+                frame = null;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,352 @@
+package core.net;
+
+import core.log.Log;
+import core.log.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Event loop transport: one selector thread owns every socket and hands complete
+// messages, JSON lines or binary frames, to a fixed worker pool. Messages from one connection
+// are always handled one at a time and in arrival order. A connection with inboundCapacity
+// messages waiting is not read from until its worker is down to half of them, so a client that
+// sends faster than it is served is held back by TCP rather than queued for without bound.
+public class NioTransport implements Transport {
+    private static final Logger log = Log.get(NioTransport.class);
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_TASKS_PER_DRAIN = 64;
+    private static final int MAX_FRAMES_PER_WRITE = 256;
+
+    private final int port;
+    private final int workerCount;
+    private final int inboundCapacity;
+    private final OutboundLimits outboundLimits;
+    private final ConnectionListener listener;
+    private final Queue<NioConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<NioConnection> pendingResumes = new ConcurrentLinkedQueue<>();
+    private ExecutorService workers;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public NioTransport(int port, int workerCount, int inboundCapacity, OutboundLimits outboundLimits,
+                        ConnectionListener listener) {
+        if (workerCount <= 0)
+            throw new IllegalArgumentException("Worker count must be greater than zero");
+        if (inboundCapacity <= 0)
+            throw new IllegalArgumentException("Inbound queue capacity must be greater than zero");
+        this.port = port;
+        this.workerCount = workerCount;
+        this.inboundCapacity = inboundCapacity;
+        this.outboundLimits = outboundLimits;
+        this.listener = listener;
+    }
+
+    @Override
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount,
+                r -> new Thread(r, "nio-worker-" + threadCount.incrementAndGet()));
+
+        running = true;
+        log.info("Server started on port {} (nio transport, {} workers)", port, workerCount);
+
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        try {
+            while (running) {
+                selector.select();
+                processPendingWrites();
+                processPendingResumes();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    NioConnection connection = (NioConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read(readBuffer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (IOException e) {
+                        log.warn("Connection error: {}", e.getMessage());
+                        connection.close();
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            if (running) {
+                throw e;
+            }
+        } finally {
+            closeAll();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        NioConnection connection = new NioConnection(channel, key);
+        key.attach(connection);
+        connection.dispatch(() -> listener.onConnect(connection));
+    }
+
+    private void processPendingWrites() {
+        NioConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            connection.writeRequested.set(false);
+            try {
+                connection.flush();
+            } catch (IOException e) {
+                log.warn("Connection error: {}", e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    private void processPendingResumes() {
+        NioConnection connection;
+        while ((connection = pendingResumes.poll()) != null) {
+            connection.resumeRequested.set(false);
+            connection.resumeReading();
+        }
+    }
+
+    private void closeAll() {
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            log.error("Server error: {}", e.getMessage());
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection connection) {
+                connection.close();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.error("Server error: {}", e.getMessage());
+        }
+        workers.shutdown();
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        return buffers.length > 0 && buffers[buffers.length - 1].hasRemaining();
+    }
+
+    private class NioConnection extends Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final FrameDecoder decoder;
+        private final List<byte[]> drained = new ArrayList<>(MAX_FRAMES_PER_WRITE);
+        private ByteBuffer[] writing = new ByteBuffer[0];
+        private final Queue<Runnable> inbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inboxSize = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean writeRequested = new AtomicBoolean();
+        private final AtomicBoolean resumeRequested = new AtomicBoolean();
+        // Written by the selector thread only.
+        private volatile boolean readPaused;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        NioConnection(SocketChannel channel, SelectionKey key) {
+            super(outboundLimits);
+            this.channel = channel;
+            this.key = key;
+            this.decoder = new FrameDecoder(this, new FrameDecoder.Sink() {
+                @Override
+                public void onLine(String line) {
+                    dispatch(() -> listener.onMessage(NioConnection.this, line));
+                }
+
+                @Override
+                public void onFrame(byte type, ByteBuffer payload) {
+                    dispatch(() -> listener.onFrame(NioConnection.this, type, payload));
+                }
+            });
+        }
+
+        // Selector thread only.
+        void read(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            int count = channel.read(buffer);
+            if (count == -1) {
+                log.debug("Connection closed by client");
+                close();
+                return;
+            }
+            buffer.flip();
+            if (!decoder.decode(buffer)) {
+                close();
+                return;
+            }
+            if (inboxSize.get() >= inboundCapacity) {
+                readPaused = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                // The worker may have drained the inbox before it could see the pause.
+                if (inboxSize.get() <= inboundCapacity / 2) {
+                    resumeReading();
+                }
+            }
+        }
+
+        // Selector thread only.
+        void resumeReading() {
+            if (readPaused && key.isValid()) {
+                readPaused = false;
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+
+        private int readInterest() {
+            return readPaused ? 0 : SelectionKey.OP_READ;
+        }
+
+        // Selector thread only. Everything queued since the last write goes out in one gathering write;
+        // whatever the socket does not accept stays in 'writing' until the key is writable again.
+        void flush() throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            while (true) {
+                if (!hasRemaining(writing)) {
+                    drained.clear();
+                    if (outbound.drainTo(drained, MAX_FRAMES_PER_WRITE) == 0) {
+                        break;
+                    }
+                    writing = new ByteBuffer[drained.size()];
+                    for (int i = 0; i < writing.length; i++) {
+                        writing[i] = ByteBuffer.wrap(drained.get(i));
+                    }
+                }
+                channel.write(writing);
+                if (hasRemaining(writing)) {
+                    key.interestOps(readInterest() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(readInterest());
+        }
+
+        void dispatch(Runnable task) {
+            inboxSize.incrementAndGet();
+            inbox.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // The worker pool is gone, the server is shutting down.
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            int handled = 0;
+            while (handled < MAX_TASKS_PER_DRAIN && (task = inbox.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Error handling message: {}", e.getMessage());
+                }
+                handled++;
+                if (inboxSize.decrementAndGet() <= inboundCapacity / 2 && readPaused
+                        && resumeRequested.compareAndSet(false, true)) {
+                    pendingResumes.add(this);
+                    selector.wakeup();
+                }
+            }
+            scheduled.set(false);
+            if (!inbox.isEmpty()) {
+                schedule();
+            }
+        }
+
+        @Override
+        public int queuedMessages() {
+            return inboxSize.get();
+        }
+
+        @Override
+        protected void onFramesQueued() {
+            if (writeRequested.compareAndSet(false, true)) {
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing connection: {}", e.getMessage());
+            }
+            outbound.close();
+            dispatch(() -> listener.onDisconnect(this));
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed.get();
+        }
+    }
+}
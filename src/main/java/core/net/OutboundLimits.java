@@ -0,0 +1,12 @@
+package core.net;
+
+// capacity: frames a connection may have queued before auction updates start being dropped.
+// maxLagMillis: how long a connection may stay at capacity before it is disconnected.
+public record OutboundLimits(int capacity, long maxLagMillis) {
+    public OutboundLimits {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Outbound queue capacity must be greater than zero");
+        if (maxLagMillis <= 0)
+            throw new IllegalArgumentException("Slow consumer threshold must be greater than zero");
+    }
+}
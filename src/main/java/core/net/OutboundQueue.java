@@ -0,0 +1,101 @@
+package core.net;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Bounded per-connection queue of encoded frames waiting for the writer.
+// Frames that carry a conflation key (auction updates) replace a still-queued frame with
+// the same key, so a slow reader only ever sees the latest state of an auction.
+public class OutboundQueue {
+    public enum OfferResult {
+        QUEUED, CONFLATED, DROPPED, OVERFLOW
+    }
+
+    private final int capacity;
+    private final long maxLagMillis;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final Map<UUID, Frame> pendingByKey = new HashMap<>();
+    private long fullSince = -1;
+    private boolean closed;
+
+    public OutboundQueue(OutboundLimits limits) {
+        this.capacity = limits.capacity();
+        this.maxLagMillis = limits.maxLagMillis();
+    }
+
+    public synchronized OfferResult offer(byte[] bytes, UUID conflationKey) {
+        if (closed) {
+            return OfferResult.DROPPED;
+        }
+
+        if (conflationKey != null) {
+            Frame pending = pendingByKey.get(conflationKey);
+            if (pending != null) {
+                pending.bytes = bytes;
+                return OfferResult.CONFLATED;
+            }
+        }
+
+        if (frames.size() >= capacity) {
+            long now = System.currentTimeMillis();
+            if (fullSince < 0) {
+                fullSince = now;
+            }
+            // A reader that has been full for too long, or fell a whole queue behind on
+            // replies it asked for, is not going to catch up.
+            if (now - fullSince > maxLagMillis || frames.size() >= 2 * capacity) {
+                return OfferResult.OVERFLOW;
+            }
+            if (conflationKey != null) {
+                return OfferResult.DROPPED;
+            }
+        }
+
+        Frame frame = new Frame(bytes, conflationKey);
+        frames.addLast(frame);
+        if (conflationKey != null) {
+            pendingByKey.put(conflationKey, frame);
+        }
+        return OfferResult.QUEUED;
+    }
+
+    // Moves up to max frames into the given list without waiting. Returns the number moved.
+    public synchronized int drainTo(List<byte[]> into, int max) {
+        int count = 0;
+        Frame frame;
+        while (count < max && (frame = frames.pollFirst()) != null) {
+            if (frame.conflationKey != null) {
+                pendingByKey.remove(frame.conflationKey);
+            }
+            into.add(frame.bytes);
+            count++;
+        }
+        if (frames.size() < capacity) {
+            fullSince = -1;
+        }
+        return count;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        frames.clear();
+        pendingByKey.clear();
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+
+    private static final class Frame {
+        private byte[] bytes;
+        private final UUID conflationKey;
+
+        private Frame(byte[] bytes, UUID conflationKey) {
+            this.bytes = bytes;
+            this.conflationKey = conflationKey;
+        }
+    }
+}
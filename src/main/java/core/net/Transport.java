@@ -0,0 +1,10 @@
+package core.net;
+
+import java.io.IOException;
+
+public interface Transport {
+    // Binds the port and serves clients until shutdown() is called.
+    void start() throws IOException;
+
+    void shutdown();
+}
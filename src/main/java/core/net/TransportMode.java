@@ -0,0 +1,16 @@
+package core.net;
+
+public enum TransportMode {
+    // One platform thread per client, blocking socket reads.
+    BLOCKING,
+    // A single selector thread for all sockets plus a small worker pool for message handling.
+    NIO;
+
+    public static TransportMode parse(String value) {
+        try {
+            return TransportMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown transport mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package core.net;
+
+// How messages are framed on a connection. Every connection starts out as newline-delimited JSON.
+// A client that opens with HANDSHAKE followed by a version byte is answered with the same five bytes
+// and from then on both sides exchange length-prefixed frames:
+//   int length | byte type | payload
+// where length counts the type byte and the payload.
+public enum WireProtocol {
+    JSON,
+    BINARY;
+
+    public static final byte VERSION = 1;
+    public static final int MAX_FRAME_LENGTH = 1024 * 1024;
+
+    static final byte[] HANDSHAKE = {'B', 'D', 'L', 'Y'};
+
+    // What a client sends first to ask for binary frames, and what the server answers to accept.
+    public static byte[] handshake() {
+        byte[] bytes = new byte[HANDSHAKE.length + 1];
+        System.arraycopy(HANDSHAKE, 0, bytes, 0, HANDSHAKE.length);
+        bytes[HANDSHAKE.length] = VERSION;
+        return bytes;
+    }
+}
@@ -0,0 +1,18 @@
+package core.persistence;
+
+public enum Durability {
+    // fsync after every record before it is acknowledged.
+    FSYNC,
+    // Records that arrive while an fsync is running share the next one (group commit).
+    BATCHED,
+    // Records are handed to the OS and acknowledged immediately; a machine crash can lose the tail.
+    BUFFERED;
+
+    public static Durability parse(String value) {
+        try {
+            return Durability.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown durability level: " + value);
+        }
+    }
+}
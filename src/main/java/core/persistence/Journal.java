@@ -0,0 +1,327 @@
+package core.persistence;
+
+import core.log.Log;
+import core.log.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead log. Each record is
+//   int length | byte type | payload | int crc32(type + payload)
+// where length counts the type byte and the payload. A single writer thread appends whatever
+// has queued up since its last write in one go, so concurrent callers share fsyncs.
+// The log can be rotated to a new file; records queued before the rotation go to the old file.
+// A write that fails stops the journal for good: the file is cut back to its last whole record,
+// and that append and every later one fail, so nothing reported durable is ever lost behind a
+// damaged record that replay would stop at.
+public class Journal implements Closeable {
+    private static final Logger log = Log.get(Journal.class);
+
+    public static final byte AUCTION_CREATED = 1;
+    public static final byte BID_PLACED = 2;
+    public static final byte MAX_BID_SET = 3;
+
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+    private static final long MAX_MAP_WINDOW = 256L * 1024 * 1024;
+    private static final int MAX_BATCH = 4096;
+
+    public interface RecordHandler {
+        void onRecord(byte type, ByteBuffer payload);
+    }
+
+    private final Durability durability;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appended = new AtomicLong();
+    private final Thread writer;
+    // Held while queueing and while closing, so nothing is queued after the writer's last drain.
+    private final Object queueLock = new Object();
+    private FileChannel channel;
+    // Where the last record the writer reported written ends. Owned by the writer thread.
+    private long writtenEnd;
+    private volatile boolean closed;
+    // The write error that stopped the journal, if one did.
+    private volatile IOException failure;
+
+    private Journal(FileChannel channel, Durability durability) throws IOException {
+        this.channel = channel;
+        this.writtenEnd = channel.position();
+        this.durability = durability;
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    // Opens the file for appending after its last intact record.
+    public static Journal open(Path file, Durability durability) throws IOException {
+        Journal journal = new Journal(openChannel(file), durability);
+        journal.writer.start();
+        return journal;
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    // Replays every intact record of the file through the handler and cuts off a torn tail left by a
+    // crash. Returns the number of records replayed.
+    public static long replay(Path file, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long[] records = new long[1];
+            long validLength = replay(channel, (type, payload) -> {
+                handler.onRecord(type, payload);
+                records[0]++;
+            });
+            if (validLength < channel.size()) {
+                log.warn("Journal {} has a damaged tail, truncating {} bytes", file, channel.size() - validLength);
+                channel.truncate(validLength);
+            }
+            return records[0];
+        }
+    }
+
+    // Reads the file through memory-mapped windows. Returns the length of the intact prefix.
+    static long replay(FileChannel channel, RecordHandler handler) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        CRC32 crc = new CRC32();
+
+        while (position < size) {
+            long windowSize = Math.min(size - position, MAX_MAP_WINDOW);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            int consumed = 0;
+
+            while (window.remaining() >= 4) {
+                int start = window.position();
+                int length = window.getInt(start);
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    return position + consumed;
+                }
+                if (window.remaining() < 4 + length + 4) {
+                    break;
+                }
+
+                ByteBuffer body = window.slice(start + 4, length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != window.getInt(start + 4 + length)) {
+                    return position + consumed;
+                }
+
+                handler.onRecord(body.get(0), body.slice(1, length - 1));
+                window.position(start + 4 + length + 4);
+                consumed += 4 + length + 4;
+            }
+
+            if (consumed == 0) {
+                // The next record does not fit in what is left of the file: a torn write.
+                return position;
+            }
+            position += consumed;
+        }
+        return position;
+    }
+
+    public static byte[] frame(byte type, byte[] payload) {
+        int length = 1 + payload.length;
+        if (length > MAX_RECORD_LENGTH)
+            throw new IllegalArgumentException("Journal record too large: " + length + " bytes");
+
+        ByteBuffer record = ByteBuffer.allocate(4 + length + 4);
+        record.putInt(length);
+        record.put(type);
+        record.put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, length);
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+
+    // Completes once the record is as durable as the configured level promises.
+    public CompletableFuture<Void> append(byte type, byte[] payload) {
+        PendingRecord record = new PendingRecord(frame(type, payload), null);
+        synchronized (queueLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+            }
+            if (failure != null) {
+                return CompletableFuture.failedFuture(new IOException("Journal has failed", failure));
+            }
+            queue.add(record);
+        }
+        appended.incrementAndGet();
+        if (durability == Durability.BUFFERED) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return record.written;
+    }
+
+    // Switches appends to a new file. Completes once every record queued before this call is
+    // durable in the old file and the new file is in use.
+    public CompletableFuture<Void> rotate(Path nextFile) {
+        PendingRecord marker = new PendingRecord(null, nextFile);
+        synchronized (queueLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+            }
+            if (failure != null) {
+                return CompletableFuture.failedFuture(new IOException("Journal has failed", failure));
+            }
+            queue.add(marker);
+        }
+        return marker.written;
+    }
+
+    // Whether a write failed; every append fails from then on.
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    // Number of records appended since the journal was opened.
+    public long getAppendedRecords() {
+        return appended.get();
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+            } catch (IOException e) {
+                fail(e, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // Stops the journal after a failed write, which may have left part of a record behind.
+    private void fail(IOException error, List<PendingRecord> batch) {
+        log.error("Journal write failed, refusing further records: {}", error.getMessage());
+        synchronized (queueLock) {
+            failure = error;
+        }
+        // A rotation that failed to open its file has already closed the old one whole.
+        try {
+            if (channel.isOpen()) {
+                channel.truncate(writtenEnd);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            log.error("Journal could not be cut back to its last whole record: {}", e.getMessage());
+        }
+        // Records the writer already reported written keep their outcome.
+        batch.forEach(record -> record.written.completeExceptionally(error));
+        PendingRecord record;
+        while ((record = queue.poll()) != null) {
+            record.written.completeExceptionally(error);
+        }
+    }
+
+    private void write(List<PendingRecord> batch) throws IOException {
+        int start = 0;
+        for (int i = 0; i <= batch.size(); i++) {
+            boolean marker = i < batch.size() && batch.get(i).rotateTo != null;
+            if (i < batch.size() && !marker) {
+                continue;
+            }
+            writeRun(batch.subList(start, i));
+            if (marker) {
+                channel.force(true);
+                channel.close();
+                channel = openChannel(batch.get(i).rotateTo);
+                writtenEnd = channel.position();
+                batch.get(i).written.complete(null);
+            }
+            start = i + 1;
+        }
+    }
+
+    private void writeRun(List<PendingRecord> run) throws IOException {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (durability == Durability.FSYNC) {
+            for (PendingRecord record : run) {
+                writeFully(new ByteBuffer[]{ByteBuffer.wrap(record.bytes)});
+                channel.force(false);
+                writtenEnd = channel.position();
+                record.written.complete(null);
+            }
+            return;
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[run.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(run.get(i).bytes);
+        }
+        writeFully(buffers);
+        if (durability == Durability.BATCHED) {
+            channel.force(false);
+        }
+        writtenEnd = channel.position();
+        run.forEach(record -> record.written.complete(null));
+    }
+
+    private void writeFully(ByteBuffer[] buffers) throws IOException {
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (queueLock) {
+            closed = true;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Only left over if the writer was interrupted before it drained the queue.
+        IOException closing = new IOException("Journal is closed");
+        PendingRecord record;
+        while ((record = queue.poll()) != null) {
+            record.written.completeExceptionally(closing);
+        }
+        // A rotation that failed to open its file leaves no channel open.
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private static final class PendingRecord {
+        private final byte[] bytes;
+        private final Path rotateTo;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingRecord(byte[] bytes, Path rotateTo) {
+            this.bytes = bytes;
+            this.rotateTo = rotateTo;
+        }
+    }
+}
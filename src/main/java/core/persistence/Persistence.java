@@ -0,0 +1,188 @@
+package core.persistence;
+
+import core.InMemoryDatabase;
+import core.log.Log;
+import core.log.Logger;
+import model.Auction;
+import model.Bid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Owns the data directory: journal segments journal-N.log and snapshots snapshot-N.snap.
+// Snapshot N holds everything journaled in segments below N, so a restart loads the newest
+// snapshot and replays only segments N and up. Records in segment N that the snapshot already
+// contains are skipped because auctions and bids are restored by id.
+public class Persistence implements Closeable {
+    private static final Logger log = Log.get(Persistence.class);
+
+    private final Path directory;
+    private final InMemoryDatabase database;
+    private final Journal journal;
+    private final ScheduledExecutorService snapshotter;
+    private long segment;
+    private long journaledAtLastSnapshot;
+
+    private Persistence(Path directory, InMemoryDatabase database, Journal journal, long segment) {
+        this.directory = directory;
+        this.database = database;
+        this.journal = journal;
+        this.segment = segment;
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Restores the database from the directory, attaches a journal to it and, if the interval is
+    // positive, takes a snapshot that often whenever something was journaled since the last one.
+    public static Persistence open(Path directory, Durability durability, long snapshotIntervalMillis,
+                                   InMemoryDatabase database) throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(directory);
+
+        TreeMap<Long, Path> snapshots = list(directory, "snapshot-", ".snap");
+        TreeMap<Long, Path> segments = list(directory, "journal-", ".log");
+
+        long firstSegment = segments.isEmpty() ? 0 : segments.firstKey();
+        String restoredFrom = "no snapshot";
+        for (Long number : snapshots.descendingKeySet()) {
+            Path file = snapshots.get(number);
+            if (Snapshot.read(file, new Snapshot.Loader() {
+                @Override
+                public void onAuction(Auction auction) {
+                    database.restoreAuction(auction);
+                }
+
+                @Override
+                public void onBid(Bid bid, int sequence) {
+                    database.restoreBid(bid, sequence);
+                }
+
+                @Override
+                public void onMaximum(UUID auctionId, int sequence, long maximum) {
+                    database.restoreMaximum(auctionId, sequence, maximum);
+                }
+            })) {
+                firstSegment = number;
+                restoredFrom = file.getFileName().toString();
+                break;
+            }
+            log.warn("Snapshot {} is damaged, trying an older one", file);
+        }
+
+        long replayed = 0;
+        int replayedSegments = 0;
+        for (var entry : segments.tailMap(firstSegment, true).entrySet()) {
+            replayed += Journal.replay(entry.getValue(), (type, payload) -> applyRecord(database, type, payload));
+            replayedSegments++;
+        }
+
+        long current = segments.isEmpty() ? firstSegment : Math.max(firstSegment, segments.lastKey());
+        Journal journal = Journal.open(segmentFile(directory, current), durability);
+        database.setJournal(journal);
+
+        List<Auction> auctions = database.loadAllAuctions();
+        long bids = auctions.stream().mapToLong(Auction::getBidCount).sum();
+        log.info("Restored {} auctions and {} bids from {} and {} records in {} journal segments in {} ms",
+                auctions.size(), bids, restoredFrom, replayed, replayedSegments, System.currentTimeMillis() - start);
+
+        Persistence persistence = new Persistence(directory, database, journal, current);
+        if (snapshotIntervalMillis > 0) {
+            persistence.snapshotter.scheduleWithFixedDelay(persistence::snapshotIfChanged,
+                    snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return persistence;
+    }
+
+    private static void applyRecord(InMemoryDatabase database, byte type, ByteBuffer payload) {
+        switch (type) {
+            case Journal.AUCTION_CREATED -> database.restoreAuction(RecordCodec.readAuction(payload));
+            case Journal.BID_PLACED -> {
+                int sequence = payload.getInt();
+                database.restoreBid(RecordCodec.readBid(payload), sequence);
+            }
+            case Journal.MAX_BID_SET -> {
+                int sequence = payload.getInt();
+                database.restoreMaximum(RecordCodec.readUuid(payload), sequence, payload.getLong());
+            }
+            default -> throw new IllegalStateException("Unknown journal record type: " + type);
+        }
+    }
+
+    private void snapshotIfChanged() {
+        long journaled = journal.getAppendedRecords();
+        if (journaled == journaledAtLastSnapshot) {
+            return;
+        }
+        try {
+            takeSnapshot();
+            journaledAtLastSnapshot = journaled;
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    // Rotates the journal, writes snapshot N for the new segment N, then drops what it supersedes.
+    public synchronized void takeSnapshot() throws IOException {
+        long start = System.currentTimeMillis();
+        long next = segment + 1;
+        journal.rotate(segmentFile(directory, next)).join();
+        segment = next;
+
+        List<Auction> auctions = database.loadAllAuctions();
+        long bids = Snapshot.write(directory.resolve(String.format("snapshot-%06d.snap", next)), auctions);
+
+        for (Path old : list(directory, "snapshot-", ".snap").headMap(next).values()) {
+            Files.deleteIfExists(old);
+        }
+        for (Path old : list(directory, "journal-", ".log").headMap(next).values()) {
+            Files.deleteIfExists(old);
+        }
+        log.info("Snapshot of {} auctions and {} bids written in {} ms", auctions.size(), bids, System.currentTimeMillis() - start);
+    }
+
+    private static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("journal-%06d.log", number));
+    }
+
+    private static TreeMap<Long, Path> list(Path directory, String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    try {
+                        files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+                    } catch (NumberFormatException ignored) {
+                        // Not one of ours.
+                    }
+                }
+            });
+        }
+        return files;
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        database.setJournal(null);
+        journal.close();
+    }
+}
@@ -0,0 +1,144 @@
+package core.persistence;
+
+import model.Auction;
+import model.Bid;
+import model.BidHistory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// Binary layouts of auctions and bids, shared by the journal and snapshots.
+// Strings are an int byte length (-1 for null) followed by UTF-8. Prices are a byte scale and a long
+// of minor units, as in model.Money.
+public final class RecordCodec {
+    private RecordCodec() {
+    }
+
+    public static byte[] encodeAuction(Auction auction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeAuction(out, auction);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void writeAuction(DataOutputStream out, Auction auction) throws IOException {
+        writeUuid(out, auction.getId());
+        writeString(out, auction.getName());
+        writeString(out, auction.getDescription());
+        out.writeByte(auction.getScale());
+        out.writeLong(auction.getStartingPrice());
+        out.writeLong(auction.getMinimumBidIncrement());
+        out.writeLong(auction.getStartTime());
+        out.writeLong(auction.getEndTime());
+        out.writeLong(auction.getCreatedAt());
+        writeString(out, auction.getSeller());
+        out.writeByte(auction.getStatus().ordinal());
+    }
+
+    public static Auction readAuction(ByteBuffer in) {
+        UUID id = readUuid(in);
+        String name = readString(in);
+        String description = readString(in);
+        int scale = in.get();
+        long startingPrice = in.getLong();
+        long minimumBidIncrement = in.getLong();
+        long startTime = in.getLong();
+        long endTime = in.getLong();
+        long createdAt = in.getLong();
+        String seller = readString(in);
+        Auction.AuctionStatus status = Auction.AuctionStatus.values()[in.get()];
+        return Auction.restore(id, name, description, scale, startingPrice, startTime, endTime, createdAt, seller,
+                minimumBidIncrement, status);
+    }
+
+    public static byte[] encodeBid(Bid bid, int sequence) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(sequence);
+            writeBid(out, bid);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void writeBid(DataOutputStream out, Bid bid) throws IOException {
+        writeUuid(out, bid.getId());
+        writeUuid(out, bid.getAuctionId());
+        out.writeLong(bid.getTimestamp());
+        out.writeByte(bid.getScale());
+        out.writeLong(bid.getPrice());
+        writeString(out, bid.getUserName());
+    }
+
+    // The index-th bid of the auction's history, written without materializing a Bid.
+    public static void writeBid(DataOutputStream out, Auction auction, int index) throws IOException {
+        BidHistory history = auction.getHistory();
+        writeUuid(out, history.id(index));
+        writeUuid(out, auction.getId());
+        out.writeLong(history.timestamp(index));
+        out.writeByte(auction.getScale());
+        out.writeLong(history.amount(index));
+        writeString(out, history.bidder(index));
+    }
+
+    public static Bid readBid(ByteBuffer in) {
+        UUID id = readUuid(in);
+        UUID auctionId = readUuid(in);
+        long timestamp = in.getLong();
+        int scale = in.get();
+        long price = in.getLong();
+        String userName = readString(in);
+        Bid bid = new Bid(id, userName, auctionId, price, scale);
+        bid.setTimestamp(timestamp);
+        return bid;
+    }
+
+    // The leader's maximum bid as of the auction's sequence-th bid.
+    //   int sequence | uuid auctionId | long maximum
+    public static byte[] encodeMaximum(UUID auctionId, int sequence, long maximum) {
+        ByteBuffer record = ByteBuffer.allocate(4 + 16 + 8);
+        record.putInt(sequence);
+        record.putLong(auctionId.getMostSignificantBits());
+        record.putLong(auctionId.getLeastSignificantBits());
+        record.putLong(maximum);
+        return record.array();
+    }
+
+    static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,117 @@
+package core.persistence;
+
+import model.Auction;
+import model.Bid;
+import model.BidHistory;
+import model.PriceState;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Point-in-time copy of every auction and its bids. Layout:
+//   int magic | int version | int auctionCount
+//   per auction: auction record | int bidCount | bid records, oldest first | long maximum
+//   int crc32 of everything before it
+// maximum is the leader's maximum bid as of the last of those bids.
+// Each auction's bids are read from its BidHistory up to the bid count of one PriceState, so
+// writing a snapshot never blocks bidders and never sees half of a bid.
+public final class Snapshot {
+    private static final int MAGIC = 0x42445350;
+    private static final int VERSION = 1;
+
+    public interface Loader {
+        void onAuction(Auction auction);
+
+        void onBid(Bid bid, int sequence);
+
+        void onMaximum(UUID auctionId, int sequence, long maximum);
+    }
+
+    private Snapshot() {
+    }
+
+    // Writes to a temporary file first and renames it into place, so a crash never leaves a partial snapshot.
+    // Returns the number of bids written.
+    public static long write(Path file, Collection<Auction> auctions) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long bidCount = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(stream, 64 * 1024), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(auctions.size());
+            for (Auction auction : auctions) {
+                // Every bid the state counts may already be journaled, so all of them must be in here.
+                PriceState state = auction.getPriceState();
+                int bids = state.bidCount();
+                BidHistory history = auction.getHistory();
+                history.awaitSize(bids);
+                RecordCodec.writeAuction(out, auction);
+                out.writeInt(bids);
+                for (int i = 0; i < bids; i++) {
+                    RecordCodec.writeBid(out, auction, i);
+                }
+                out.writeLong(state.maximum());
+                bidCount += bids;
+            }
+            out.flush();
+            new DataOutputStream(stream).writeInt((int) crc.getValue());
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bidCount;
+    }
+
+    // Returns false, without calling the loader, if the file is damaged.
+    public static boolean read(Path file, Loader loader) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 16 || size > Integer.MAX_VALUE)
+                return false;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4) || buffer.getInt() != MAGIC) {
+                return false;
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                return false;
+            }
+
+            ByteBuffer in = buffer.slice(8, (int) size - 12);
+            int auctionCount = in.getInt();
+            for (int i = 0; i < auctionCount; i++) {
+                Auction auction = RecordCodec.readAuction(in);
+                loader.onAuction(auction);
+                int bidCount = in.getInt();
+                for (int sequence = 1; sequence <= bidCount; sequence++) {
+                    loader.onBid(RecordCodec.readBid(in), sequence);
+                }
+                long maximum = in.getLong();
+                if (bidCount > 0) {
+                    loader.onMaximum(auction.getId(), bidCount, maximum);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,46 +1,86 @@
 package model;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Auction {
     private UUID id;
     private String name;
     private String description;
-    private BigDecimal startingPrice;
-    private BigDecimal currentPrice;
+    // Every price of the auction is in minor units at this scale; see Money.
+    private final int scale;
+    private final long startingPrice;
+    // Bid acceptance is a compare-and-set on this reference; no lock is taken on the bid path.
+    private final AtomicReference<PriceState> state;
+    private final BidHistory history = new BidHistory();
+    // The newest maximum bid seen while restoring, and the history size it applies to.
+    private int restoredMaximumSequence;
+    private long restoredMaximum;
     private long startTime;
     private long endTime;
     private final String seller;
-    private final long createdAt = System.currentTimeMillis() / 1000;
-    private List<Bid> biddingHistory = new ArrayList<>();
-    private AuctionStatus status = AuctionStatus.PENDING;
-    private final BigDecimal minimumBidIncrement;
+    private final long createdAt;
+    // Moved forward by the lifecycle scheduler only: PENDING -> ACTIVE -> ENDED or SOLD.
+    private volatile AuctionStatus status = AuctionStatus.PENDING;
+    private final long minimumBidIncrement;
 
     public enum AuctionStatus {
-        PENDING, ACTIVE, ENDED, CANCELLED, SOLD
+        PENDING, ACTIVE, ENDED, CANCELLED, SOLD;
+
+        public boolean isClosed() {
+            return this == ENDED || this == CANCELLED || this == SOLD;
+        }
     }
 
-    public Auction(String name, BigDecimal startingPrice, long endTime, String seller, BigDecimal minimumBidIncrement) {
+    public Auction(String name, int scale, long startingPrice, long endTime, String seller, long minimumBidIncrement) {
         if (name == null || name.trim().isEmpty())
             throw new IllegalArgumentException("Product name is required");
-        if (startingPrice == null || startingPrice.compareTo(BigDecimal.ZERO) <= 0)
+        if (scale < 0 || scale > Money.MAX_SCALE)
+            throw new IllegalArgumentException("Scale must be between 0 and " + Money.MAX_SCALE);
+        if (startingPrice <= 0)
             throw new IllegalArgumentException("Starting price must be greater than zero");
         if (endTime <= System.currentTimeMillis() / 1000)
             throw new IllegalArgumentException("End time must be in the future");
-        if (minimumBidIncrement == null || minimumBidIncrement.compareTo(BigDecimal.ZERO) <= 0)
+        if (minimumBidIncrement <= 0)
             throw new IllegalArgumentException("Minimum bid increment must be greater than zero");
 
         this.name = name;
+        this.scale = scale;
         this.startingPrice = startingPrice;
-        this.currentPrice = startingPrice;
-        System.out.println("Current price: " + currentPrice);
+        this.state = new AtomicReference<>(PriceState.initial(startingPrice));
         this.endTime = endTime;
         this.seller = seller;
         this.minimumBidIncrement = minimumBidIncrement;
         this.startTime = System.currentTimeMillis() / 1000;
+        this.createdAt = System.currentTimeMillis() / 1000;
+    }
+
+    private Auction(UUID id, String name, int scale, long startingPrice, long startTime, long endTime, long createdAt,
+                    String seller, long minimumBidIncrement) {
+        this.id = id;
+        this.name = name;
+        this.scale = scale;
+        this.startingPrice = startingPrice;
+        this.state = new AtomicReference<>(PriceState.initial(startingPrice));
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.createdAt = createdAt;
+        this.seller = seller;
+        this.minimumBidIncrement = minimumBidIncrement;
+    }
+
+    // Rebuilds an auction from stored state. Unlike the public constructor this does not reject
+    // auctions whose end time has passed, since they were valid when they were created.
+    public static Auction restore(UUID id, String name, String description, int scale, long startingPrice, long startTime,
+                                  long endTime, long createdAt, String seller, long minimumBidIncrement,
+                                  AuctionStatus status) {
+        Auction auction = new Auction(id, name, scale, startingPrice, startTime, endTime, createdAt, seller, minimumBidIncrement);
+        auction.description = description;
+        auction.status = status;
+        return auction;
     }
 
     public UUID getId() {
@@ -69,16 +109,20 @@ public class Auction {
         this.description = description;
     }
 
-    public BigDecimal getStartingPrice() {
+    public int getScale() {
+        return scale;
+    }
+
+    public long getStartingPrice() {
         return startingPrice;
     }
 
-    public BigDecimal getCurrentPrice() {
-        return currentPrice;
+    public long getCurrentPrice() {
+        return state.get().price();
     }
 
-    public void setCurrentPrice(BigDecimal currentPrice) {
-        this.currentPrice = currentPrice;
+    public PriceState getPriceState() {
+        return state.get();
     }
 
     public long getStartTime() {
@@ -89,7 +133,7 @@ public class Auction {
         this.startTime = startTime;
     }
 
-    public BigDecimal getMinimumBidIncrement() {
+    public long getMinimumBidIncrement() {
         return minimumBidIncrement;
     }
 
@@ -120,51 +164,235 @@ public class Auction {
     }
 
     public boolean isActive() {
-        return status == AuctionStatus.ACTIVE &&
-                System.currentTimeMillis() / 1000 < endTime &&
-                System.currentTimeMillis() / 1000 > startTime;
+        return status == AuctionStatus.ACTIVE;
+    }
+
+    // amount is in minor units at the auction's scale.
+    public boolean canBid(long amount) {
+        PriceState current = state.get();
+        return status == AuctionStatus.ACTIVE && !current.closed() && !hasEnded()
+                && amount >= current.price() + minimumBidIncrement;
     }
 
-    public boolean canBid(BigDecimal bidAmount) {
-        if (System.currentTimeMillis() / 1000 >= endTime) {
+    // Whether the end time has passed. The lifecycle closes the auction up to a tick later; bids in
+    // that gap are refused here.
+    private boolean hasEnded() {
+        return System.currentTimeMillis() / 1000 >= endTime;
+    }
+
+    // Opens the auction for bidding. Returns false if it was not pending.
+    public synchronized boolean activate() {
+        if (status != AuctionStatus.PENDING) {
             return false;
         }
-
-        BigDecimal minimumBid = currentPrice.add(minimumBidIncrement);
-        return bidAmount.compareTo(minimumBid) >= 0;
+        status = AuctionStatus.ACTIVE;
+        return true;
     }
 
-    public List<Bid> getBiddingHistory() {
-        synchronized(this) {
-            List<Bid> sortedHistory = new ArrayList<>(biddingHistory);
-            sortedHistory.sort((b1, b2) -> Long.compare(b2.getTimestamp(), b1.getTimestamp()));
-            return sortedHistory;
+    // Ends the auction: SOLD to the top bidder if there is one, otherwise ENDED. The price state is
+    // closed first, so a bid racing with this either lands before the close or sees it and fails.
+    // Returns the final state, or null if the auction had already been closed.
+    public synchronized PriceState close() {
+        if (status.isClosed()) {
+            return null;
         }
+        PriceState closed = state.updateAndGet(PriceState::close);
+        status = closed.bidCount() > 0 ? AuctionStatus.SOLD : AuctionStatus.ENDED;
+        return closed;
     }
 
-    public void setBiddingHistory(List<Bid> biddingHistory) {
-        this.biddingHistory = biddingHistory;
+    // Accepts the bid if it beats the current price by at least the minimum increment. A bid that
+    // loses a race is re-validated against the winner's price and retried; threads never park here.
+    // Validation is plain long arithmetic; only the accepted state and the result are allocated.
+    // Whether the auction is open comes from its status, plus a clock read against the end time.
+    // If the leader's maximum bid covers the bid, the leader bids against it in the same step: the
+    // bid is OUTBID and the price moves to one increment above it, or to the leader's maximum if
+    // that is lower. Ties go to the leader, who got there first.
+    public BidResult placeBid(Bid bid) {
+        if (bid == null)
+            throw new IllegalArgumentException("Bid cannot be null");
+
+        PriceState current = state.get();
+        if (status != AuctionStatus.ACTIVE) {
+            return BidResult.notOpen(current, minimumBidIncrement, scale);
+        }
+        long amount = bid.getPriceAt(scale);
+        if (amount == Money.UNREPRESENTABLE) {
+            return BidResult.invalidPrice(current, minimumBidIncrement, scale);
+        }
+
+        String bidder = bid.getUserName();
+        while (true) {
+            if (current.closed() || hasEnded()) {
+                return BidResult.notOpen(current, minimumBidIncrement, scale);
+            }
+            if (amount < current.price() + minimumBidIncrement) {
+                return BidResult.rejected(current, minimumBidIncrement, scale);
+            }
+            PriceState next;
+            boolean leads = bidder != null && bidder.equals(current.topBidder());
+            boolean outbid = !leads && current.topBidder() != null && amount <= current.maximum();
+            if (leads) {
+                next = current.next(bidder, amount, Math.max(amount, current.maximum()));
+            } else if (outbid) {
+                next = current.next(current.topBidder(), Math.min(current.maximum(), amount + minimumBidIncrement),
+                        current.maximum());
+            } else {
+                next = current.next(bidder, amount);
+            }
+            if (state.compareAndSet(current, next)) {
+                history.record(next.bidCount(), bid.getId(), bid.getTimestamp(), next.price(), next.topBidder());
+                return outbid
+                        ? BidResult.outbid(next, minimumBidIncrement, scale)
+                        : BidResult.accepted(next, minimumBidIncrement, scale);
+            }
+            current = state.get();
+        }
     }
 
-    public void addBid(Bid bid) {
+    // Registers the most the bidder will pay; the engine then bids for them, one increment at a
+    // time, whenever someone challenges them, without a round trip per increment. The bid's price
+    // is that maximum. Against a leader with a maximum of their own the two are settled at once:
+    // the higher maximum leads at one increment above the lower, capped at itself. Only the price
+    // the outcome settles on enters the history, so a contest costs one bid and one update.
+    // The leader can raise their maximum without moving the price, but not lower it.
+    public BidResult setMaxBid(Bid bid) {
         if (bid == null)
             throw new IllegalArgumentException("Bid cannot be null");
+        if (bid.getUserName() == null)
+            throw new IllegalArgumentException("A maximum bid needs a bidder");
 
-        boolean bidExists = biddingHistory.stream()
-                .anyMatch(existingBid -> existingBid.getId().equals(bid.getId()));
+        PriceState current = state.get();
+        if (status != AuctionStatus.ACTIVE) {
+            return BidResult.notOpen(current, minimumBidIncrement, scale);
+        }
+        long maximum = bid.getPriceAt(scale);
+        if (maximum == Money.UNREPRESENTABLE) {
+            return BidResult.invalidPrice(current, minimumBidIncrement, scale);
+        }
 
-        if (!bidExists) {
-            int insertIndex = 0;
-            for (int i = 0; i < biddingHistory.size(); i++) {
-                if (bid.getTimestamp() < biddingHistory.get(i).getTimestamp()) {
-                    insertIndex = i + 1;
-                } else {
-                    break;
+        String bidder = bid.getUserName();
+        while (true) {
+            if (current.closed() || hasEnded()) {
+                return BidResult.notOpen(current, minimumBidIncrement, scale);
+            }
+            if (bidder != null && bidder.equals(current.topBidder())) {
+                if (maximum <= current.maximum()) {
+                    return BidResult.rejected(current, minimumBidIncrement, scale);
                 }
+                PriceState next = current.withMaximum(maximum);
+                if (state.compareAndSet(current, next)) {
+                    return BidResult.maximumRaised(next, minimumBidIncrement, scale);
+                }
+                current = state.get();
+                continue;
+            }
+            long minimum = current.price() + minimumBidIncrement;
+            if (maximum < minimum) {
+                return BidResult.rejected(current, minimumBidIncrement, scale);
+            }
+            PriceState next;
+            boolean outbid = current.topBidder() != null && maximum <= current.maximum();
+            if (current.topBidder() == null) {
+                next = current.next(bidder, minimum, maximum);
+            } else if (outbid) {
+                next = current.next(current.topBidder(), Math.min(current.maximum(), maximum + minimumBidIncrement),
+                        current.maximum());
+            } else {
+                next = current.next(bidder, Math.min(maximum, current.maximum() + minimumBidIncrement), maximum);
+            }
+            if (state.compareAndSet(current, next)) {
+                history.record(next.bidCount(), bid.getId(), bid.getTimestamp(), next.price(), next.topBidder());
+                return outbid
+                        ? BidResult.outbid(next, minimumBidIncrement, scale)
+                        : BidResult.accepted(next, minimumBidIncrement, scale);
+            }
+            current = state.get();
+        }
+    }
+
+    public BidHistory getHistory() {
+        return history;
+    }
+
+    // Bids oldest first, materialized from the history. Only the requested range is read.
+    public List<Bid> getBids(int offset, int limit) {
+        int size = history.size();
+        int from = Math.min(Math.max(offset, 0), size);
+        int to = (int) Math.min(size, (long) from + limit);
+        List<Bid> bids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            bids.add(getBid(i));
+        }
+        return bids;
+    }
+
+    // The whole history, newest first.
+    public List<Bid> getBiddingHistory() {
+        List<Bid> bids = getBids(0, Integer.MAX_VALUE);
+        Collections.reverse(bids);
+        return bids;
+    }
+
+    // index is zero-based and below history.size().
+    public Bid getBid(int index) {
+        Bid bid = new Bid(history.id(index), history.bidder(index), id, history.amount(index), scale);
+        bid.setTimestamp(history.timestamp(index));
+        return bid;
+    }
+
+    public int getBidCount() {
+        return state.get().bidCount();
+    }
+
+    public String getTopBidder() {
+        return state.get().topBidder();
+    }
+
+    // Re-applies an already accepted bid without validating it, at the position given by its sequence
+    // number (1 for the first accepted bid). Bids may arrive in any order, e.g. when two racing bids
+    // were journaled in the opposite order to the one they were accepted in; the price follows the
+    // newest bid of the gap-free prefix. Returns false if that sequence number was already present.
+    public boolean addBid(Bid bid, int sequence) {
+        if (bid == null)
+            throw new IllegalArgumentException("Bid cannot be null");
+
+        synchronized (history) {
+            if (!history.record(sequence, bid.getId(), bid.getTimestamp(), bid.getPriceAt(scale), bid.getUserName())) {
+                return false;
             }
-            biddingHistory.add(insertIndex, bid);
-            setCurrentPrice(bid.getPrice());
+            restoreState();
+            return true;
+        }
+    }
+
+    // Sets the price, leader and bid count as read from a store that keeps the bids elsewhere. The
+    // history stays empty; such an auction is only listed, never bid on or snapshotted.
+    public void restorePrice(long price, String topBidder, int bidCount) {
+        state.set(new PriceState(price, topBidder, bidCount, state.get().closed()));
+    }
+
+    // Re-applies the leader's maximum bid as it stood once the auction held sequence bids. It only
+    // counts while the bid of that sequence number is still the newest one.
+    public void restoreMaximum(int sequence, long maximum) {
+        synchronized (history) {
+            if (sequence > restoredMaximumSequence
+                    || (sequence == restoredMaximumSequence && maximum > restoredMaximum)) {
+                restoredMaximumSequence = sequence;
+                restoredMaximum = maximum;
+            }
+            restoreState();
+        }
+    }
+
+    private void restoreState() {
+        int size = history.size();
+        if (size == 0) {
+            return;
         }
+        long price = history.amount(size - 1);
+        long maximum = size == restoredMaximumSequence ? Math.max(price, restoredMaximum) : price;
+        state.set(new PriceState(price, history.bidder(size - 1), size, state.get().closed(), maximum));
     }
 
     @Override
@@ -174,7 +402,7 @@ public class Auction {
                         "currentPrice=%s, startTime=%d, endTime=%d, seller=%s, ",
                 id,
                 name,
-                currentPrice,
+                Money.toDecimal(getCurrentPrice(), scale),
                 startTime,
                 endTime,
                 seller
@@ -0,0 +1,15 @@
+package model;
+
+import java.util.UUID;
+
+// How an auction ended. The winner is null and the final price is the starting price when
+// nobody bid. Prices are in minor units at the given scale.
+public record AuctionOutcome(UUID auctionId, Auction.AuctionStatus status, long finalPrice, int scale,
+                             int bidCount, String winner) {
+
+    public static AuctionOutcome of(Auction auction) {
+        PriceState state = auction.getPriceState();
+        return new AuctionOutcome(auction.getId(), auction.getStatus(), state.price(), auction.getScale(),
+                state.bidCount(), state.topBidder());
+    }
+}
@@ -1,6 +1,5 @@
 package model;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 public class Bid {
@@ -8,13 +7,16 @@ public class Bid {
 
     private final UUID auctionId;
     private String userName;
-    private final BigDecimal price;
+    // Minor units at the scale the bidder sent; see Money.
+    private final long price;
+    private final int scale;
     private long timestamp;
 
-    public Bid(UUID id, String userName, UUID auctionId, BigDecimal price){
+    public Bid(UUID id, String userName, UUID auctionId, long price, int scale){
         this.id = id;
         this.userName = userName;
         this.price = price;
+        this.scale = scale;
         this.auctionId = auctionId;
         this.timestamp = System.currentTimeMillis() /1000;
     }
@@ -31,6 +33,10 @@ public class Bid {
         this.timestamp = timestamp;
     }
 
+    public String getUserName() {
+        return userName;
+    }
+
     public void setUserName(String userName) {
         this.userName = userName;
     }
@@ -39,8 +45,17 @@ public class Bid {
         return auctionId;
     }
 
-    public BigDecimal getPrice() {
+    public long getPrice() {
         return price;
     }
 
+    public int getScale() {
+        return scale;
+    }
+
+    // Money.UNREPRESENTABLE if the price has more decimal places than the given scale.
+    public long getPriceAt(int scale) {
+        return Money.rescale(price, this.scale, scale);
+    }
+
 }
@@ -0,0 +1,150 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Append-only bid history of one auction, stored by column in primitive arrays: about 36 bytes a
+// bid instead of a Bid object with its UUIDs and strings. Bidder names are interned per auction,
+// since a few bidders usually place most of the bids. Columns grow in fixed chunks, so a long
+// history is never copied; only the first chunk starts small and doubles, so quiet auctions stay cheap.
+//
+// Bids are written at their sequence number (1 for the first accepted bid), in whatever order
+// the accepting threads get here; size() only counts the gap-free prefix, and readers only look
+// below it. Writers take the lock, readers never do.
+public final class BidHistory {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int FIRST_CHUNK_SIZE = 8;
+
+    // Written before size, so a reader that read size sees everything below it.
+    private Chunk[] chunks = new Chunk[0];
+    private String[] bidderNames = new String[4];
+    private final Map<String, Integer> bidderIds = new HashMap<>();
+    private volatile int size;
+
+    public int size() {
+        return size;
+    }
+
+    // Returns false if a bid with this sequence number is already recorded.
+    public synchronized boolean record(int sequence, UUID id, long timestamp, long amount, String bidder) {
+        if (sequence <= 0)
+            throw new IllegalArgumentException("Sequence must be greater than zero");
+        int index = sequence - 1;
+        Chunk chunk = chunkFor(index);
+        int slot = index & CHUNK_MASK;
+        if (chunk.bidders[slot] != 0) {
+            return false;
+        }
+        chunk.idHigh[slot] = id.getMostSignificantBits();
+        chunk.idLow[slot] = id.getLeastSignificantBits();
+        chunk.timestamps[slot] = timestamp;
+        chunk.amounts[slot] = amount;
+        chunk.bidders[slot] = intern(bidder);
+
+        int filled = size;
+        while (isFilled(filled)) {
+            filled++;
+        }
+        size = filled;
+        return true;
+    }
+
+    // Waits until the first count bids are readable. An accepted bid is recorded right after the
+    // compare-and-set that accepted it, so this only ever waits for threads already on their way.
+    public void awaitSize(int count) {
+        while (size < count) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // index is zero-based and must be below a size() read earlier.
+    public UUID id(int index) {
+        Chunk chunk = chunks[index >> CHUNK_BITS];
+        int slot = index & CHUNK_MASK;
+        return new UUID(chunk.idHigh[slot], chunk.idLow[slot]);
+    }
+
+    public long timestamp(int index) {
+        return chunks[index >> CHUNK_BITS].timestamps[index & CHUNK_MASK];
+    }
+
+    // In minor units at the auction's scale.
+    public long amount(int index) {
+        return chunks[index >> CHUNK_BITS].amounts[index & CHUNK_MASK];
+    }
+
+    public String bidder(int index) {
+        return bidderNames[chunks[index >> CHUNK_BITS].bidders[index & CHUNK_MASK] - 1];
+    }
+
+    private boolean isFilled(int index) {
+        int chunk = index >> CHUNK_BITS;
+        int slot = index & CHUNK_MASK;
+        return chunk < chunks.length && slot < chunks[chunk].bidders.length && chunks[chunk].bidders[slot] != 0;
+    }
+
+    // A reader holding the old first chunk still finds every bid below the size it read in it.
+    private Chunk chunkFor(int index) {
+        int chunk = index >> CHUNK_BITS;
+        if (chunk >= chunks.length) {
+            Chunk[] grown = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+            for (int i = chunks.length; i < grown.length; i++) {
+                grown[i] = new Chunk(i == 0 ? FIRST_CHUNK_SIZE : CHUNK_SIZE);
+            }
+            chunks = grown;
+        }
+        Chunk current = chunks[chunk];
+        int slot = index & CHUNK_MASK;
+        if (slot >= current.bidders.length) {
+            int capacity = current.bidders.length;
+            while (capacity <= slot) {
+                capacity *= 2;
+            }
+            chunks[chunk] = current = current.copy(capacity);
+        }
+        return current;
+    }
+
+    // Ids start at 1 so that 0 marks an empty slot.
+    private int intern(String bidder) {
+        Integer id = bidderIds.get(bidder);
+        if (id == null) {
+            if (bidderIds.size() == bidderNames.length) {
+                bidderNames = Arrays.copyOf(bidderNames, bidderNames.length * 2);
+            }
+            bidderNames[bidderIds.size()] = bidder;
+            id = bidderIds.size() + 1;
+            bidderIds.put(bidder, id);
+        }
+        return id;
+    }
+
+    private static final class Chunk {
+        private final long[] idHigh;
+        private final long[] idLow;
+        private final long[] timestamps;
+        private final long[] amounts;
+        private final int[] bidders;
+
+        private Chunk(int capacity) {
+            this(new long[capacity], new long[capacity], new long[capacity], new long[capacity], new int[capacity]);
+        }
+
+        private Chunk(long[] idHigh, long[] idLow, long[] timestamps, long[] amounts, int[] bidders) {
+            this.idHigh = idHigh;
+            this.idLow = idLow;
+            this.timestamps = timestamps;
+            this.amounts = amounts;
+            this.bidders = bidders;
+        }
+
+        private Chunk copy(int capacity) {
+            return new Chunk(Arrays.copyOf(idHigh, capacity), Arrays.copyOf(idLow, capacity),
+                    Arrays.copyOf(timestamps, capacity), Arrays.copyOf(amounts, capacity), Arrays.copyOf(bidders, capacity));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+// Outcome of placing a bid. On acceptance state is the state the bid created, otherwise it is
+// the state the bid lost against. Prices are in minor units at the given scale.
+// State is null when the auction does not exist or the bid was malformed.
+public record BidResult(Status status, PriceState state, long minimumBidIncrement, int scale) {
+
+    public enum Status {
+        ACCEPTED, REJECTED, INVALID_PRICE, AUCTION_NOT_FOUND, NOT_OPEN,
+        // The bid was high enough, but the leader's maximum bid covers it. State is the one the
+        // leader's automatic counter-bid created.
+        OUTBID,
+        // The leader raised their own maximum bid; the price did not move.
+        MAXIMUM_RAISED,
+        // The bid lacks an auction or a bidder, or its price is not above zero; no auction looked at it.
+        INVALID_BID
+    }
+
+    public static BidResult accepted(PriceState state, long minimumBidIncrement, int scale) {
+        return new BidResult(Status.ACCEPTED, state, minimumBidIncrement, scale);
+    }
+
+    public static BidResult rejected(PriceState state, long minimumBidIncrement, int scale) {
+        return new BidResult(Status.REJECTED, state, minimumBidIncrement, scale);
+    }
+
+    // The price has more decimal places than the auction's currency.
+    public static BidResult invalidPrice(PriceState state, long minimumBidIncrement, int scale) {
+        return new BidResult(Status.INVALID_PRICE, state, minimumBidIncrement, scale);
+    }
+
+    // The auction has not started yet or has already ended.
+    public static BidResult notOpen(PriceState state, long minimumBidIncrement, int scale) {
+        return new BidResult(Status.NOT_OPEN, state, minimumBidIncrement, scale);
+    }
+
+    public static BidResult outbid(PriceState state, long minimumBidIncrement, int scale) {
+        return new BidResult(Status.OUTBID, state, minimumBidIncrement, scale);
+    }
+
+    public static BidResult maximumRaised(PriceState state, long minimumBidIncrement, int scale) {
+        return new BidResult(Status.MAXIMUM_RAISED, state, minimumBidIncrement, scale);
+    }
+
+    public static BidResult auctionNotFound() {
+        return new BidResult(Status.AUCTION_NOT_FOUND, null, 0, 0);
+    }
+
+    public static BidResult invalidBid() {
+        return new BidResult(Status.INVALID_BID, null, 0, 0);
+    }
+
+    public boolean accepted() {
+        return status == Status.ACCEPTED;
+    }
+
+    // Whether the bid added one to the history and moved the price, so watchers need to hear of it.
+    public boolean moved() {
+        return status == Status.ACCEPTED || status == Status.OUTBID;
+    }
+
+    public long minimumAllowedBid() {
+        return state.price() + minimumBidIncrement;
+    }
+}
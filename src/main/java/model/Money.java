@@ -0,0 +1,100 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Prices are held as a long count of minor units at a scale: 1234 at scale 2 is 12.34. Each auction
+// has one currency scale and stores every price at it, so validating a bid compares two longs.
+// BigDecimal only appears where prices enter or leave the server as JSON.
+public final class Money {
+    public static final int MAX_SCALE = 8;
+    // Returned by rescale when an amount cannot be expressed at the requested scale.
+    public static final long UNREPRESENTABLE = Long.MIN_VALUE;
+
+    private static final int DEFAULT_SCALE = 2;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private Money() {
+    }
+
+    // Enough decimal places for an auction's starting price and increment, and at least two.
+    public static int currencyScale(BigDecimal startingPrice, BigDecimal minimumBidIncrement) {
+        int scale = Math.max(DEFAULT_SCALE, Math.max(significantScale(startingPrice), significantScale(minimumBidIncrement)));
+        if (scale > MAX_SCALE)
+            throw new IllegalArgumentException("Prices can have at most " + MAX_SCALE + " decimal places");
+        return scale;
+    }
+
+    public static long toMinorUnits(BigDecimal amount, int scale) {
+        try {
+            return amount.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + amount.toPlainString() + " does not fit " + scale + " decimal places");
+        }
+    }
+
+    public static BigDecimal toDecimal(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    // The scale a price arrived with, never negative, so 1E+3 becomes 1000 at scale 0.
+    public static int scaleOf(BigDecimal amount) {
+        int scale = Math.max(0, amount.scale());
+        if (scale >= POWERS_OF_TEN.length)
+            throw new IllegalArgumentException("Price has too many decimal places: " + amount.toPlainString());
+        return scale;
+    }
+
+    // Allocation-free: returns UNREPRESENTABLE if the amount loses digits or overflows at the new scale.
+    public static long rescale(long amount, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return amount;
+        }
+        if (toScale > fromScale) {
+            int shift = toScale - fromScale;
+            if (shift >= POWERS_OF_TEN.length) {
+                return amount == 0 ? 0 : UNREPRESENTABLE;
+            }
+            long factor = POWERS_OF_TEN[shift];
+            if (amount > Long.MAX_VALUE / factor || amount < -Long.MAX_VALUE / factor) {
+                return UNREPRESENTABLE;
+            }
+            return amount * factor;
+        }
+        int shift = fromScale - toScale;
+        if (shift >= POWERS_OF_TEN.length) {
+            return amount == 0 ? 0 : UNREPRESENTABLE;
+        }
+        long factor = POWERS_OF_TEN[shift];
+        return amount % factor == 0 ? amount / factor : UNREPRESENTABLE;
+    }
+
+    // The amount at MAX_SCALE, so prices of auctions with different scales can be ordered against each
+    // other. Saturates at Long.MAX_VALUE instead of overflowing; prices are never negative.
+    public static long comparable(long amount, int scale) {
+        long normalized = rescale(amount, scale, MAX_SCALE);
+        return normalized == UNREPRESENTABLE ? Long.MAX_VALUE : normalized;
+    }
+
+    // A decimal bound at MAX_SCALE, rounded so that comparing with comparable() keeps exactly the
+    // prices inside the bound.
+    public static long comparable(BigDecimal bound, RoundingMode rounding) {
+        BigDecimal scaled = bound.setScale(MAX_SCALE, rounding);
+        if (scaled.signum() < 0) {
+            return 0;
+        }
+        return scaled.compareTo(BigDecimal.valueOf(Long.MAX_VALUE, MAX_SCALE)) >= 0
+                ? Long.MAX_VALUE : scaled.unscaledValue().longValue();
+    }
+
+    private static int significantScale(BigDecimal amount) {
+        return Math.max(0, amount.stripTrailingZeros().scale());
+    }
+}
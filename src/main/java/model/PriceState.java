@@ -0,0 +1,36 @@
+package model;
+
+// Immutable snapshot of an auction's price and leader; each accepted bid replaces it with a new
+// one. The price is in minor units at the auction's scale. A closed state is final: no bid can
+// follow it. The bids themselves are kept in the auction's BidHistory.
+// maximum is the most the top bidder has agreed to pay, which the engine bids on their behalf
+// when someone challenges them. It equals the price unless they set a maximum bid, and is never
+// shown to anyone.
+public record PriceState(long price, String topBidder, int bidCount, boolean closed, long maximum) {
+
+    public PriceState(long price, String topBidder, int bidCount, boolean closed) {
+        this(price, topBidder, bidCount, closed, price);
+    }
+
+    public static PriceState initial(long startingPrice) {
+        return new PriceState(startingPrice, null, 0, false);
+    }
+
+    // amount is the bid's price at the auction's scale.
+    public PriceState next(String bidder, long amount) {
+        return new PriceState(amount, bidder, bidCount + 1, false);
+    }
+
+    public PriceState next(String bidder, long amount, long maximum) {
+        return new PriceState(amount, bidder, bidCount + 1, false, maximum);
+    }
+
+    // The same price and leader, with the leader's maximum raised.
+    public PriceState withMaximum(long maximum) {
+        return new PriceState(price, topBidder, bidCount, closed, maximum);
+    }
+
+    public PriceState close() {
+        return new PriceState(price, topBidder, bidCount, true, maximum);
+    }
+}
@@ -0,0 +1,778 @@
+package tools;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import core.EngineMode;
+import core.Server;
+import core.ServerConfig;
+import core.log.Level;
+import core.log.Log;
+import core.metrics.Histogram;
+import core.net.Connection;
+import core.net.TransportMode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Replays an auction-close bidding storm against a server over the JSON line protocol and reports
+// end-to-end latency. Thousands of simulated bidders share a few selector threads; each bids at
+// Poisson intervals on an auction picked by Zipf popularity, and one that picks an auction in its
+// last seconds keeps sniping it at a multiple of its usual rate until it closes. Auction end times
+// are spread over the second half of the run, so the storms arrive one after another.
+//
+// Latency is measured from when a bid was due, not from when it went out, so a server that falls
+// behind is not flattered by bidders waiting on their previous reply. Fan-out delay is measured
+// from sending a bid to an AUCTION_UPDATED for it reaching a subscriber, i.e. a watcher or any
+// bidder already subscribed to that auction.
+//
+// Without --connect, the server runs in this process on a free loopback port, logging warnings only.
+// Usage: java -cp <classpath> tools.LoadGenerator [--name=value ...], e.g.
+//   --bidders=2000 --auctions=200 --zipf=1.1 --duration=60 --burst-window=5 --burst-factor=20
+public class LoadGenerator {
+    private static final String SELLER = "load-generator";
+    private static final long STARTING_PRICE = 1;
+    private static final long INCREMENT = 1;
+    // How many of a bidder's recent bids are remembered to match AUCTION_UPDATED messages against.
+    private static final int SENT_HISTORY = 16;
+
+    private final Options options;
+    private final PrintStream out;
+
+    private final Histogram acceptedLatency = new Histogram();
+    private final Histogram rejectedLatency = new Histogram();
+    private final Histogram fanOutDelay = new Histogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder tooLow = new LongAdder();
+    private final LongAdder notOpen = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private UUID[] auctionIds;
+    private final Map<UUID, Integer> auctionIndex = new HashMap<>();
+    private long[] endMillis;
+    // Lowest bid each auction is believed to accept, from replies and updates seen so far.
+    private AtomicLongArray minimumBid;
+    private AtomicIntegerArray closed;
+    private final AtomicInteger closedCount = new AtomicInteger();
+    // Cumulative Zipf weights by auction index; index 0 is the most popular.
+    private double[] popularity;
+
+    private final Map<String, Bidder> bidders = new HashMap<>();
+    private final List<Peer> watchers = new ArrayList<>();
+    private final LongAdder connectFailures = new LongAdder();
+    private final List<ClientLoop> loops = new ArrayList<>();
+    private volatile boolean sending = true;
+    // Samples of bids due before this are warm-up and not reported.
+    private long measureFromNanos;
+
+    public LoadGenerator(Options options, PrintStream out) {
+        this.options = options;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.fromArgs(args);
+        PrintStream out = System.out;
+        Server server = null;
+        InetSocketAddress address;
+        if (options.connect != null) {
+            address = options.connect;
+        } else {
+            address = new InetSocketAddress("127.0.0.1", freePort());
+            Log.setLevel(Level.WARN);
+            server = startServer(address.getPort(), options.serverTransport, options.serverEngine);
+        }
+
+        try {
+            new LoadGenerator(options, out).run(address);
+        } finally {
+            if (server != null) {
+                server.shutdown();
+            }
+        }
+    }
+
+    public void run(InetSocketAddress address) throws IOException, InterruptedException {
+        connect(address);
+        createAuctions(address, System.currentTimeMillis());
+        subscribeWatchers();
+
+        long start = System.nanoTime();
+        measureFromNanos = start + options.warmupSeconds * 1_000_000_000L;
+        for (ClientLoop loop : loops) {
+            loop.begin(start);
+        }
+        out.println("Running " + options.bidders + " bidders against " + options.auctions + " auctions for "
+                + (options.warmupSeconds + options.durationSeconds) + " s");
+        Thread.sleep((options.warmupSeconds + options.durationSeconds) * 1000L);
+
+        sending = false;
+        long drainDeadline = System.nanoTime() + 5_000_000_000L;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        long elapsedNanos = System.nanoTime() - measureFromNanos;
+        for (ClientLoop loop : loops) {
+            loop.stop();
+        }
+        report(elapsedNanos);
+    }
+
+    // Auctions open now and end spread over the second half of the run, in an order unrelated to popularity.
+    private void createAuctions(InetSocketAddress address, long runStartMillis) throws IOException {
+        int count = options.auctions;
+        auctionIds = new UUID[count];
+        endMillis = new long[count];
+        minimumBid = new AtomicLongArray(count);
+        closed = new AtomicIntegerArray(count);
+        popularity = zipf(count, options.zipf);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(count));
+        long runSeconds = options.warmupSeconds + options.durationSeconds;
+        String prefix = "load-" + Long.toString(runStartMillis, 36) + "-";
+
+        // The creating connection is subscribed to every auction it creates, so it is closed afterwards.
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            for (int i = 0; i < count; i++) {
+                long offsetMillis = (runSeconds * 1000 / 2) + (runSeconds * 1000 / 2) * (order.get(i) + 1) / count;
+                long endTime = (runStartMillis + offsetMillis + 999) / 1000;
+                JsonObject data = new JsonObject();
+                data.addProperty("name", prefix + i);
+                data.addProperty("startingPrice", STARTING_PRICE);
+                data.addProperty("minimumBidIncrement", INCREMENT);
+                data.addProperty("endTime", endTime);
+                data.addProperty("seller", SELLER);
+                output.write(Connection.encodeLine(message("CREATE_AUCTION", data)));
+                output.flush();
+
+                JsonObject reply = readUntil(input, "AUCTION_CREATION_ACCEPTED", "AUCTION_CREATION_REJECTED");
+                if (!reply.get("type").getAsString().equals("AUCTION_CREATION_ACCEPTED"))
+                    throw new IOException("Could not create auction: " + reply.get("data"));
+                auctionIds[i] = UUID.fromString(reply.get("data").getAsString());
+                auctionIndex.put(auctionIds[i], i);
+                endMillis[i] = endTime * 1000;
+                minimumBid.set(i, STARTING_PRICE + INCREMENT);
+            }
+        }
+    }
+
+    // All connections are opened at once from the loops: connecting one at a time overruns the
+    // server's accept backlog, and each connect that does then waits a second for its SYN to be retried.
+    private void connect(InetSocketAddress address) throws IOException, InterruptedException {
+        CountDownLatch connected = new CountDownLatch(options.bidders + options.watchers);
+        for (int i = 0; i < options.threads; i++) {
+            ClientLoop loop = new ClientLoop(i, connected);
+            loops.add(loop);
+            loop.start();
+        }
+        for (int i = 0; i < options.bidders; i++) {
+            Bidder bidder = new Bidder("lg-" + i);
+            bidders.put(bidder.name, bidder);
+            loops.get(i % loops.size()).connect(bidder, address);
+        }
+        for (int i = 0; i < options.watchers; i++) {
+            Peer watcher = new Peer();
+            watchers.add(watcher);
+            loops.get(i % loops.size()).connect(watcher, address);
+        }
+        if (!connected.await(60, TimeUnit.SECONDS))
+            throw new IOException("Timed out connecting to the server");
+        if (connectFailures.sum() > 0)
+            throw new IOException(connectFailures.sum() + " connections to the server failed");
+    }
+
+    private void subscribeWatchers() {
+        int watched = Math.min(options.watchesPerWatcher, options.auctions);
+        for (Peer watcher : watchers) {
+            boolean[] chosen = new boolean[options.auctions];
+            List<String> requests = new ArrayList<>();
+            while (requests.size() < watched) {
+                int auction = pickByPopularity(ThreadLocalRandom.current().nextDouble());
+                if (!chosen[auction]) {
+                    chosen[auction] = true;
+                    JsonObject data = new JsonObject();
+                    data.addProperty("auctionId", auctionIds[auction].toString());
+                    requests.add(message("SUBSCRIBE", data));
+                }
+            }
+            watcher.loop.execute(() -> requests.forEach(watcher::send));
+        }
+    }
+
+    private int pickByPopularity(double uniform) {
+        int index = Arrays.binarySearch(popularity, uniform);
+        return Math.min(index < 0 ? -index - 1 : index, popularity.length - 1);
+    }
+
+    private boolean isOpen(int auction, long nowMillis) {
+        return closed.get(auction) == 0 && nowMillis < endMillis[auction];
+    }
+
+    private boolean inBurst(int auction, long nowMillis) {
+        return endMillis[auction] - nowMillis <= options.burstWindowSeconds * 1000L;
+    }
+
+    private void markClosed(int auction) {
+        if (closed.compareAndSet(auction, 0, 1)) {
+            closedCount.incrementAndGet();
+        }
+    }
+
+    private void raiseMinimum(int auction, long minimum) {
+        long current;
+        while ((current = minimumBid.get(auction)) < minimum && !minimumBid.compareAndSet(auction, current, minimum)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean measured(long dueNanos) {
+        return dueNanos >= measureFromNanos;
+    }
+
+    // Any connection: the only messages it was not asked for are updates and closes of auctions it watches.
+    private void onBroadcast(String type, JsonElement data, long nowNanos) {
+        JsonObject payload = data.getAsJsonObject();
+        Integer auction = auctionIndex.get(UUID.fromString(payload.get("auctionId").getAsString()));
+        if (auction == null) {
+            return;
+        }
+        if (type.equals("AUCTION_CLOSED")) {
+            markClosed(auction);
+            return;
+        }
+        long price = new BigDecimal(payload.get("currentPrice").getAsString()).longValue();
+        raiseMinimum(auction, price + INCREMENT);
+        Bidder bidder = bidders.get(payload.get("topBidder").getAsString());
+        if (bidder == null) {
+            return;
+        }
+        Sent bid = bidder.find(auction, price);
+        if (bid != null && measured(bid.dueNanos())) {
+            fanOutDelay.recordNanos(nowNanos - bid.sentNanos());
+        }
+    }
+
+    private void report(long elapsedNanos) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d bidders, %d watchers, %d auctions (zipf %.2f), %.1f bids/s per bidder, x%.0f in the last %d s%n",
+                options.bidders, options.watchers, options.auctions, options.zipf, options.rate, options.burstFactor, options.burstWindowSeconds));
+        report.append(String.format("Measured %.1f s after %d s warm-up%n", seconds, options.warmupSeconds));
+        report.append(String.format("Bids sent %d (%.0f/s), accepted %d, too low %d, not open %d, throttled %d, errors %d, unanswered %d%n",
+                sent.sum(), sent.sum() / seconds, accepted.sum(), tooLow.sum(), notOpen.sum(), throttled.sum(), errors.sum(),
+                inFlight.get()));
+        report.append(String.format("Auctions closed %d of %d, connections dropped by the server %d%n",
+                closedCount.get(), options.auctions, disconnects.sum()));
+        report.append(String.format("%n%-28s %9s %9s %9s %9s %9s %9s %9s%n",
+                "latency (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        row(report, "bid -> BID_ACCEPTED", acceptedLatency);
+        row(report, "bid -> BID_REJECTED", rejectedLatency);
+        row(report, "bid -> AUCTION_UPDATED", fanOutDelay);
+
+        out.print(report);
+        if (options.reportFile != null) {
+            Files.writeString(options.reportFile, report);
+        }
+    }
+
+    private static void row(StringBuilder report, String name, Histogram histogram) {
+        report.append(String.format("%-28s %9d %9.0f %9d %9d %9d %9d %9d%n", name, histogram.count(), histogram.mean(),
+                histogram.percentile(50), histogram.percentile(90), histogram.percentile(99),
+                histogram.percentile(99.9), histogram.max()));
+    }
+
+    private static double[] zipf(int count, double exponent) {
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < count; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private static String message(String type, JsonElement data) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        message.add("data", data);
+        return message.toString();
+    }
+
+    private static JsonObject readUntil(BufferedReader input, String... types) throws IOException {
+        String line;
+        while ((line = input.readLine()) != null) {
+            JsonObject message = JsonParser.parseString(line).getAsJsonObject();
+            String type = message.get("type").getAsString();
+            for (String expected : types) {
+                if (type.equals(expected)) {
+                    return message;
+                }
+            }
+        }
+        throw new IOException("Connection closed by the server");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Server startServer(int port, TransportMode transport, EngineMode engine) throws IOException, InterruptedException {
+        ServerConfig config = new ServerConfig();
+        config.setPort(port);
+        config.setTransportMode(transport);
+        config.setEngineMode(engine);
+        Server server = new Server(config);
+        Thread thread = new Thread(server::start, "load-generator-server");
+        thread.setDaemon(true);
+        thread.start();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                new Socket("127.0.0.1", port).close();
+                return server;
+            } catch (IOException e) {
+                if (attempt == 100)
+                    throw e;
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    private record Sent(int auction, long price, long dueNanos, long sentNanos) {
+    }
+
+    // One connection. Reads JSON lines; writes only from its loop's thread.
+    private class Peer {
+        ClientLoop loop;
+        SocketChannel channel;
+        SelectionKey key;
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private byte[] line = new byte[512];
+        private int lineLength;
+
+        void send(String message) {
+            pending.add(ByteBuffer.wrap(Connection.encodeLine(message)));
+            flush();
+        }
+
+        void flush() {
+            try {
+                while (!pending.isEmpty()) {
+                    ByteBuffer buffer = pending.peek();
+                    channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    pending.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void read(ByteBuffer buffer) {
+            try {
+                buffer.clear();
+                if (channel.read(buffer) < 0) {
+                    close();
+                    return;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            buffer.flip();
+            long now = System.nanoTime();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b != '\n') {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = b;
+                    continue;
+                }
+                JsonObject message = JsonParser.parseString(new String(line, 0, lineLength, StandardCharsets.UTF_8)).getAsJsonObject();
+                lineLength = 0;
+                onMessage(message.get("type").getAsString(), message.get("data"), now);
+            }
+        }
+
+        void onMessage(String type, JsonElement data, long nowNanos) {
+            if (type.equals("AUCTION_UPDATED") || type.equals("AUCTION_CLOSED")) {
+                onBroadcast(type, data, nowNanos);
+            }
+        }
+
+        void close() {
+            if (key.isValid()) {
+                key.cancel();
+                disconnects.increment();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private class Bidder extends Peer {
+        private final String name;
+        private final AtomicReferenceArray<Sent> recent = new AtomicReferenceArray<>(SENT_HISTORY);
+        private int recentIndex;
+        private long nextDueNanos;
+        private Sent outstanding;
+        // The auction this bidder is sniping, or -1.
+        private int target = -1;
+
+        Bidder(String name) {
+            this.name = name;
+        }
+
+        // Called by the loop when the next bid is due and the previous one has been answered.
+        void fire(long nowNanos) {
+            if (!sending) {
+                return;
+            }
+            long nowMillis = System.currentTimeMillis();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int auction = target >= 0 && isOpen(target, nowMillis) ? target : pickOpen(random, nowMillis);
+            if (auction < 0) {
+                return;
+            }
+            target = inBurst(auction, nowMillis) ? auction : -1;
+
+            long price = minimumBid.get(auction) + INCREMENT * random.nextInt(3);
+            JsonObject data = new JsonObject();
+            data.addProperty("productId", auctionIds[auction].toString());
+            data.addProperty("bidder", name);
+            data.addProperty("price", price);
+            outstanding = new Sent(auction, price, nextDueNanos, nowNanos);
+            recent.set(recentIndex++ & (SENT_HISTORY - 1), outstanding);
+            inFlight.incrementAndGet();
+            if (measured(nextDueNanos)) {
+                sent.increment();
+            }
+            send(message("PLACE_BID", data));
+
+            double rate = options.rate * (target >= 0 ? options.burstFactor : 1);
+            nextDueNanos += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+        }
+
+        private int pickOpen(ThreadLocalRandom random, long nowMillis) {
+            for (int attempt = 0; attempt < 8; attempt++) {
+                int auction = pickByPopularity(random.nextDouble());
+                if (isOpen(auction, nowMillis)) {
+                    return auction;
+                }
+            }
+            for (int auction = 0; auction < auctionIds.length; auction++) {
+                if (isOpen(auction, nowMillis)) {
+                    return auction;
+                }
+            }
+            return -1;
+        }
+
+        Sent find(int auction, long price) {
+            for (int i = 0; i < SENT_HISTORY; i++) {
+                Sent bid = recent.get(i);
+                if (bid != null && bid.auction() == auction && bid.price() == price) {
+                    return bid;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        void onMessage(String type, JsonElement data, long nowNanos) {
+            switch (type) {
+                case "BID_ACCEPTED" -> answered(nowNanos, true, data);
+                case "BID_REJECTED", "ERROR", "THROTTLED" -> answered(nowNanos, false, data);
+                default -> super.onMessage(type, data, nowNanos);
+            }
+        }
+
+        private void answered(long nowNanos, boolean wasAccepted, JsonElement data) {
+            Sent bid = outstanding;
+            if (bid == null) {
+                return;
+            }
+            outstanding = null;
+            inFlight.decrementAndGet();
+            boolean measured = measured(bid.dueNanos());
+            if (wasAccepted) {
+                raiseMinimum(bid.auction(), bid.price() + INCREMENT);
+                if (measured) {
+                    accepted.increment();
+                    acceptedLatency.recordNanos(nowNanos - bid.dueNanos());
+                }
+            } else if (data.isJsonObject()) {
+                // THROTTLED; the bid is simply dropped, as a bidder would give up on it.
+                if (measured) {
+                    throttled.increment();
+                    rejectedLatency.recordNanos(nowNanos - bid.dueNanos());
+                }
+            } else {
+                String reason = data.getAsString();
+                int minimumAt = reason.indexOf("Minimum allowed bid is ");
+                if (minimumAt >= 0) {
+                    String minimum = reason.substring(minimumAt + 23, reason.indexOf(' ', minimumAt + 23));
+                    raiseMinimum(bid.auction(), new BigDecimal(minimum).longValue());
+                } else if (reason.contains("not open")) {
+                    markClosed(bid.auction());
+                }
+                if (measured) {
+                    (minimumAt >= 0 ? tooLow : reason.contains("not open") ? notOpen : errors).increment();
+                    rejectedLatency.recordNanos(nowNanos - bid.dueNanos());
+                }
+            }
+            loop.schedule(this);
+        }
+
+        @Override
+        void close() {
+            if (outstanding != null) {
+                outstanding = null;
+                inFlight.decrementAndGet();
+            }
+            super.close();
+        }
+    }
+
+    private class ClientLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final CountDownLatch connected;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final List<Bidder> owned = new ArrayList<>();
+        private final PriorityQueue<Bidder> due = new PriorityQueue<>(Comparator.comparingLong((Bidder b) -> b.nextDueNanos));
+        private volatile boolean running = true;
+
+        ClientLoop(int index, CountDownLatch connected) throws IOException {
+            this.selector = Selector.open();
+            this.connected = connected;
+            this.thread = new Thread(this, "load-generator-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void connect(Peer peer, InetSocketAddress address) {
+            peer.loop = this;
+            if (peer instanceof Bidder bidder) {
+                owned.add(bidder);
+            }
+            execute(() -> {
+                try {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    peer.channel = channel;
+                    if (channel.connect(address)) {
+                        peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+                        connected.countDown();
+                    } else {
+                        peer.key = channel.register(selector, SelectionKey.OP_CONNECT, peer);
+                    }
+                } catch (IOException e) {
+                    connectFailures.increment();
+                    connected.countDown();
+                }
+            });
+        }
+
+        private void finishConnect(Peer peer) {
+            try {
+                peer.channel.finishConnect();
+                peer.key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                connectFailures.increment();
+                peer.key.cancel();
+            }
+            connected.countDown();
+        }
+
+        // Every bidder's first bid is due at a random point of its usual interval after start.
+        void begin(long startNanos) {
+            execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (Bidder bidder : owned) {
+                    bidder.nextDueNanos = startNanos + (long) (-Math.log(1 - random.nextDouble()) / options.rate * 1e9);
+                    due.add(bidder);
+                }
+            });
+        }
+
+        void schedule(Bidder bidder) {
+            due.add(bidder);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    long now = System.nanoTime();
+                    while (!due.isEmpty() && due.peek().nextDueNanos <= now) {
+                        due.poll().fire(now);
+                    }
+                    long timeoutMillis = due.isEmpty() ? 50 : Math.max(1, (due.peek().nextDueNanos - now) / 1_000_000);
+                    selector.select(timeoutMillis);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Peer peer = (Peer) key.attachment();
+                        if (key.isValid() && key.isConnectable()) {
+                            finishConnect(peer);
+                            continue;
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            peer.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            peer.read(buffer);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                System.err.println("Load generator loop failed: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    try {
+                        key.channel().close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            selector.wakeup();
+            thread.join();
+        }
+    }
+
+    public static class Options {
+        private InetSocketAddress connect;
+        private TransportMode serverTransport = TransportMode.NIO;
+        private EngineMode serverEngine = EngineMode.SHARED;
+        private int bidders = 1000;
+        private int watchers = 0;
+        private int watchesPerWatcher = 10;
+        private int auctions = 100;
+        private double zipf = 1.0;
+        private double rate = 1.0;
+        private int durationSeconds = 30;
+        private int warmupSeconds = 5;
+        private int burstWindowSeconds = 5;
+        private double burstFactor = 10;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private Path reportFile;
+
+        public static Options fromArgs(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("="))
+                    throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "connect" -> {
+                        int colon = value.lastIndexOf(':');
+                        options.connect = new InetSocketAddress(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+                    }
+                    case "server-transport" -> options.serverTransport = TransportMode.parse(value);
+                    case "server-engine" -> options.serverEngine = EngineMode.parse(value);
+                    case "bidders" -> options.bidders = Integer.parseInt(value);
+                    case "watchers" -> options.watchers = Integer.parseInt(value);
+                    case "watch" -> options.watchesPerWatcher = Integer.parseInt(value);
+                    case "auctions" -> options.auctions = Integer.parseInt(value);
+                    case "zipf" -> options.zipf = Double.parseDouble(value);
+                    case "rate" -> options.rate = Double.parseDouble(value);
+                    case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                    case "burst-window" -> options.burstWindowSeconds = Integer.parseInt(value);
+                    case "burst-factor" -> options.burstFactor = Double.parseDouble(value);
+                    case "threads" -> options.threads = Integer.parseInt(value);
+                    case "report" -> options.reportFile = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option: --" + name);
+                }
+            }
+            if (options.bidders <= 0 || options.auctions <= 0 || options.threads <= 0)
+                throw new IllegalArgumentException("Bidders, auctions and threads must be greater than zero");
+            if (options.rate <= 0 || options.burstFactor < 1 || options.zipf < 0)
+                throw new IllegalArgumentException("Rate must be positive, burst factor at least 1 and zipf not negative");
+            if (options.durationSeconds <= 0 || options.warmupSeconds < 0)
+                throw new IllegalArgumentException("Duration must be positive and warm-up not negative");
+            return options;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tools;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import core.message.AuctionMessage;
+import core.message.AuctionUpdate;
+import core.message.BidMessage;
+import core.message.BidMessageAdapter;
+import core.message.BinaryCodec;
+import core.message.MessageType;
+import core.net.Connection;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+// Compares bytes on the wire and CPU time per message for JSON lines and binary frames.
+// Usage: java -cp <classpath> tools.WireProtocolBenchmark [iterations]
+public class WireProtocolBenchmark {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(BidMessage.class, new BidMessageAdapter())
+            .create();
+    // Keeps the JIT from dropping work whose result is never used.
+    private static volatile long blackhole;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        UUID auctionId = UUID.randomUUID();
+        BidMessage bid = new BidMessage(auctionId, "bidder-42", 123450, 2);
+        AuctionUpdate update = new AuctionUpdate(auctionId, new BigDecimal("1234.50"), 87, "bidder-42");
+
+        String bidLine = GSON.toJson(new AuctionMessage(MessageType.PLACE_BID, bid));
+        byte[] bidJson = Connection.encodeLine(bidLine);
+        byte[] bidFrame = BinaryCodec.placeBid(bid);
+        byte[] updateJson = Connection.encodeLine(GSON.toJson(new AuctionMessage(MessageType.AUCTION_UPDATED, update)));
+        byte[] updateFrame = BinaryCodec.auctionUpdated(update);
+
+        System.out.printf("%-40s %8s %12s%n", "message", "bytes", "cpu ns/msg");
+        run("PLACE_BID decode, json (two trees)", bidJson.length, iterations, () -> {
+            AuctionMessage message = GSON.fromJson(bidLine, AuctionMessage.class);
+            JsonObject data = GSON.toJsonTree(message.getData()).getAsJsonObject();
+            return GSON.fromJson(data, BidMessage.class).getBidder().length();
+        });
+        run("PLACE_BID decode, json (one tree)", bidJson.length, iterations, () -> {
+            JsonObject root = JsonParser.parseString(new String(bidJson, StandardCharsets.UTF_8)).getAsJsonObject();
+            return GSON.fromJson(root.get("data"), BidMessage.class).getBidder().length();
+        });
+        run("PLACE_BID decode, binary", bidFrame.length, iterations, () ->
+                BinaryCodec.readPlaceBid(ByteBuffer.wrap(bidFrame, 5, bidFrame.length - 5)).getBidder().length());
+        run("AUCTION_UPDATED encode, json", updateJson.length, iterations, () ->
+                Connection.encodeLine(GSON.toJson(new AuctionMessage(MessageType.AUCTION_UPDATED, update))).length);
+        run("AUCTION_UPDATED encode, binary", updateFrame.length, iterations, () ->
+                BinaryCodec.auctionUpdated(update).length);
+        run("BID_ACCEPTED encode, json", Connection.encodeLine(GSON.toJson(new AuctionMessage(MessageType.BID_ACCEPTED, "Bid accepted"))).length,
+                iterations, () -> Connection.encodeLine(GSON.toJson(new AuctionMessage(MessageType.BID_ACCEPTED, "Bid accepted"))).length);
+        run("BID_ACCEPTED encode, binary", BinaryCodec.bidAccepted(auctionId, bid.getPrice(), bid.getScale(), 87).length,
+                iterations, () -> BinaryCodec.bidAccepted(auctionId, bid.getPrice(), bid.getScale(), 87).length);
+    }
+
+    private static void run(String name, int bytes, int iterations, IntSupplier task) {
+        long sink = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            sink += task.getAsInt();
+        }
+        long start = THREADS.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += task.getAsInt();
+        }
+        long cpu = THREADS.getCurrentThreadCpuTime() - start;
+        blackhole = sink;
+        System.out.printf("%-40s %8d %12.1f%n", name, bytes, (double) cpu / iterations);
+    }
+}
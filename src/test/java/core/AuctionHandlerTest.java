@@ -0,0 +1,258 @@
+package core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import core.admission.AdmissionLimits;
+import core.lifecycle.AuctionLifecycle;
+import core.message.BidMessage;
+import core.message.BinaryCodec;
+import core.metrics.Metrics;
+import core.net.Connection;
+import core.net.OutboundLimits;
+import model.Auction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuctionHandlerTest {
+    private InMemoryDatabase database;
+    private AuctionLifecycle lifecycle;
+    private AuctionHandler handler;
+    private RecordingConnection client;
+
+    // Keeps every JSON line the handler sends, in order.
+    static final class RecordingConnection extends Connection {
+        private final BlockingQueue<JsonObject> replies = new LinkedBlockingQueue<>();
+        private volatile boolean open = true;
+
+        RecordingConnection() {
+            super(new OutboundLimits(10_000, 10_000));
+        }
+
+        @Override
+        protected void onFramesQueued() {
+            List<byte[]> frames = new ArrayList<>();
+            outbound.drainTo(frames, Integer.MAX_VALUE);
+            for (byte[] frame : frames) {
+                replies.add(JsonParser.parseString(new String(frame, StandardCharsets.UTF_8)).getAsJsonObject());
+            }
+        }
+
+        // The next reply to the given request, skipping broadcasts and replies to others.
+        JsonObject reply(String requestId) throws InterruptedException {
+            while (true) {
+                JsonObject reply = replies.poll(5, TimeUnit.SECONDS);
+                assertNotNull(reply, "no reply to " + requestId);
+                if (reply.has("requestId") && reply.get("requestId").getAsString().equals(requestId)) {
+                    return reply;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+    }
+
+    @BeforeEach
+    void startHandler() {
+        database = new InMemoryDatabase(new ConcurrentHashMap<>());
+        lifecycle = new AuctionLifecycle(database);
+        handler = new AuctionHandler(database, lifecycle, new Metrics());
+        client = new RecordingConnection();
+        handler.onConnect(client);
+    }
+
+    @AfterEach
+    void stopHandler() {
+        lifecycle.close();
+    }
+
+    private JsonObject request(String type, String requestId, JsonObject data) throws InterruptedException {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        message.addProperty("requestId", requestId);
+        message.add("data", data);
+        handler.onMessage(client, message.toString());
+        return client.reply(requestId);
+    }
+
+    private UUID createAuction(String name) throws InterruptedException {
+        JsonObject data = new JsonObject();
+        data.addProperty("name", name);
+        data.addProperty("startingPrice", 10);
+        data.addProperty("minimumBidIncrement", 1);
+        data.addProperty("endTime", System.currentTimeMillis() / 1000 + 3600);
+        data.addProperty("seller", "seller");
+        JsonObject reply = request("CREATE_AUCTION", "create-" + name, data);
+        assertEquals("AUCTION_CREATION_ACCEPTED", reply.get("type").getAsString());
+        return UUID.fromString(reply.get("data").getAsString());
+    }
+
+    static JsonObject bid(UUID auctionId, String bidder, Number price) {
+        JsonObject bid = new JsonObject();
+        if (auctionId != null) {
+            bid.addProperty("productId", auctionId.toString());
+        }
+        if (bidder != null) {
+            bid.addProperty("bidder", bidder);
+        }
+        bid.addProperty("price", price);
+        return bid;
+    }
+
+    private JsonObject batch(JsonObject... bids) {
+        JsonArray array = new JsonArray();
+        for (JsonObject bid : bids) {
+            array.add(bid);
+        }
+        JsonObject data = new JsonObject();
+        data.add("bids", array);
+        return data;
+    }
+
+    @Test
+    void aBidWithoutABidderIsRejectedBeforeAnyAuctionSeesIt() throws Exception {
+        UUID auctionId = createAuction("lamp");
+
+        JsonObject reply = request("PLACE_BID", "no-bidder", bid(auctionId, null, 20));
+
+        assertEquals("BID_REJECTED", reply.get("type").getAsString());
+        assertTrue(reply.get("data").getAsString().contains("a bidder"));
+        Auction auction = database.getAuction(auctionId);
+        assertEquals(0, auction.getBidCount());
+        assertEquals(1000, auction.getCurrentPrice());
+    }
+
+    @Test
+    void aBidWithoutAnAuctionOrWithAPriceOfZeroIsRejected() throws Exception {
+        UUID auctionId = createAuction("lamp");
+
+        assertEquals("BID_REJECTED", request("PLACE_BID", "no-auction", bid(null, "alice", 20)).get("type").getAsString());
+        assertEquals("BID_REJECTED", request("PLACE_BID", "zero", bid(auctionId, "alice", 0)).get("type").getAsString());
+        assertEquals("BID_REJECTED", request("PLACE_BID", "blank", bid(auctionId, " ", 20)).get("type").getAsString());
+        assertEquals("MAX_BID_REJECTED", request("SET_MAX_BID", "max", bid(auctionId, null, 20)).get("type").getAsString());
+        assertEquals(0, database.getAuction(auctionId).getBidCount());
+    }
+
+    @Test
+    void aBinaryBidWithAnEmptyBidderIsRejected() throws Exception {
+        UUID auctionId = createAuction("lamp");
+        byte[] frame = BinaryCodec.placeBid(new BidMessage(auctionId, "", 2000, 2));
+
+        handler.onFrame(client, frame[4], ByteBuffer.wrap(frame, 5, frame.length - 5).slice());
+
+        JsonObject reply = client.replies.poll(5, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertEquals("BID_REJECTED", reply.get("type").getAsString());
+        assertEquals(0, database.getAuction(auctionId).getBidCount());
+    }
+
+    @Test
+    void aMalformedBidInABatchFailsAloneWithInvalidBid() throws Exception {
+        UUID auctionId = createAuction("lamp");
+
+        JsonObject reply = request("PLACE_BIDS", "batch",
+                batch(bid(auctionId, "alice", 20), bid(auctionId, null, 30), bid(auctionId, "bob", 40)));
+
+        assertEquals("BID_RESULTS", reply.get("type").getAsString());
+        JsonArray outcomes = reply.getAsJsonArray("data");
+        assertEquals("ACCEPTED", outcomes.get(0).getAsJsonObject().get("status").getAsString());
+        assertEquals("INVALID_BID", outcomes.get(1).getAsJsonObject().get("status").getAsString());
+        assertEquals("ACCEPTED", outcomes.get(2).getAsJsonObject().get("status").getAsString());
+        Auction auction = database.getAuction(auctionId);
+        assertEquals(2, auction.getBidCount());
+        assertEquals("bob", auction.getTopBidder());
+    }
+
+    @Test
+    void pipelinedRepliesCarryTheirRequestIds() throws Exception {
+        UUID lamp = createAuction("lamp");
+        UUID vase = createAuction("vase");
+        // Sent back to back; each reply is matched to its request by id, whatever order they arrive in.
+        JsonObject placeBid = new JsonObject();
+        placeBid.addProperty("type", "PLACE_BID");
+        placeBid.addProperty("requestId", 7);
+        placeBid.add("data", bid(vase, "carol", 15));
+        JsonObject placeBids = new JsonObject();
+        placeBids.addProperty("type", "PLACE_BIDS");
+        placeBids.addProperty("requestId", "batch");
+        placeBids.add("data", batch(bid(lamp, "alice", 20), bid(vase, "bob", 30), bid(lamp, "bob", 20)));
+        handler.onMessage(client, placeBids.toString());
+        handler.onMessage(client, placeBid.toString());
+
+        JsonArray outcomes = client.reply("batch").getAsJsonArray("data");
+        assertEquals(3, outcomes.size());
+        String[] auctions = {lamp.toString(), vase.toString(), lamp.toString()};
+        String[] statuses = {"ACCEPTED", "ACCEPTED", "REJECTED"};
+        for (int i = 0; i < 3; i++) {
+            assertEquals(auctions[i], outcomes.get(i).getAsJsonObject().get("auctionId").getAsString());
+            assertEquals(statuses[i], outcomes.get(i).getAsJsonObject().get("status").getAsString());
+        }
+        // The batch went first and left the vase at 30, and a numeric id comes back as a string.
+        assertEquals("BID_REJECTED", client.reply("7").get("type").getAsString());
+    }
+
+    @Test
+    void anOversizedBatchIsRejectedUnderItsRequestId() throws Exception {
+        UUID auctionId = createAuction("lamp");
+        JsonObject[] bids = new JsonObject[101];
+        for (int i = 0; i < bids.length; i++) {
+            bids[i] = bid(auctionId, "alice", 20 + i);
+        }
+
+        assertEquals("BID_REJECTED", request("PLACE_BIDS", "too-many", batch(bids)).get("type").getAsString());
+        assertEquals("BID_REJECTED", request("PLACE_BIDS", "empty", batch()).get("type").getAsString());
+        assertEquals(0, database.getAuction(auctionId).getBidCount());
+    }
+
+    @Test
+    void aBatchBeyondTheConnectionsBurstIsAdmittedInPart() throws Exception {
+        // One bid a second with a ten second burst: ten tokens, and about a second for each one more.
+        handler = new AuctionHandler(database, lifecycle, new Metrics(), null, new AdmissionLimits(1, 0, 0, 10_000, 0));
+        handler.onConnect(client);
+        UUID auctionId = createAuction("lamp");
+        JsonObject[] bids = new JsonObject[15];
+        for (int i = 0; i < bids.length; i++) {
+            bids[i] = bid(auctionId, "bidder-" + i, 20 + i);
+        }
+
+        JsonArray outcomes = request("PLACE_BIDS", "batch", batch(bids)).getAsJsonArray("data");
+
+        long lastWait = 0;
+        for (int i = 0; i < bids.length; i++) {
+            JsonObject outcome = outcomes.get(i).getAsJsonObject();
+            if (i < 10) {
+                assertEquals("ACCEPTED", outcome.get("status").getAsString());
+                continue;
+            }
+            assertEquals("THROTTLED", outcome.get("status").getAsString());
+            long wait = outcome.get("retryAfterMillis").getAsLong();
+            assertTrue(wait > lastWait);
+            lastWait = wait;
+        }
+        assertEquals(10, database.getAuction(auctionId).getBidCount());
+        assertEquals("THROTTLED", request("PLACE_BID", "single", bid(auctionId, "alice", 100)).get("type").getAsString());
+    }
+}
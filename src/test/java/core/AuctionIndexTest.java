@@ -0,0 +1,133 @@
+package core;
+
+import model.Auction;
+import model.Bid;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuctionIndexTest {
+    private InMemoryDatabase database;
+    private long now;
+
+    @BeforeEach
+    void createDatabase() {
+        database = new InMemoryDatabase(new ConcurrentHashMap<>());
+        now = System.currentTimeMillis() / 1000;
+    }
+
+    private Auction openAuction(String name, String seller, long startingPrice, long endsIn) {
+        Auction auction = new Auction(name, 2, startingPrice, now + endsIn, seller, 100);
+        auction.setId(UUID.randomUUID());
+        database.createAuction(auction);
+        database.activateAuction(auction.getId());
+        return auction;
+    }
+
+    private void placeBid(Auction auction, String bidder, long price) {
+        database.placeBid(new Bid(UUID.randomUUID(), bidder, auction.getId(), price, auction.getScale())).join();
+    }
+
+    private static AuctionQuery query(AuctionQuery.Sort sort, String cursor, int limit) {
+        return new AuctionQuery(null, null, null, null, sort, cursor, limit);
+    }
+
+    // Follows the cursors to the last page and returns every auction in the order the pages gave them.
+    private List<Auction> allPages(AuctionQuery.Sort sort, int limit) {
+        List<Auction> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            AuctionPage page = database.queryAuctions(query(sort, cursor, limit));
+            assertTrue(page.auctions().size() <= limit);
+            seen.addAll(page.auctions());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    @Test
+    void pagesFollowTheSortOrderAndCoverEveryAuctionOnce() {
+        List<Auction> created = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Every end time and price is used twice, so ties are broken by id across page boundaries.
+            created.add(openAuction("lot-" + i, "seller", 1000 + (i / 2) * 100L, 3600 + i / 2));
+        }
+
+        for (AuctionQuery.Sort sort : AuctionQuery.Sort.values()) {
+            List<Auction> seen = allPages(sort, 4);
+            assertEquals(created.size(), seen.size());
+            assertEquals(created.size(), new HashSet<>(seen).size());
+            for (int i = 1; i < seen.size(); i++) {
+                long previous = AuctionQuery.sortValue(sort, seen.get(i - 1));
+                long value = AuctionQuery.sortValue(sort, seen.get(i));
+                assertTrue(sort.isDescending() ? previous >= value : previous <= value, sort + " out of order");
+            }
+        }
+    }
+
+    @Test
+    void aBidBetweenPagesMovesOnlyTheAuctionItRaised() {
+        List<Auction> created = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            created.add(openAuction("lot-" + i, "seller", 1000 + i * 100L, 3600));
+        }
+        AuctionPage first = database.queryAuctions(query(AuctionQuery.Sort.PRICE_ASCENDING, null, 5));
+        assertEquals(created.subList(0, 5), first.auctions());
+
+        // The cheapest auction, already seen, jumps past every other; the rest keep their places.
+        placeBid(created.get(0), "alice", 10_000);
+        AuctionPage second = database.queryAuctions(query(AuctionQuery.Sort.PRICE_ASCENDING, first.nextCursor(), 5));
+        assertEquals(created.subList(5, 10), second.auctions());
+        AuctionPage third = database.queryAuctions(query(AuctionQuery.Sort.PRICE_ASCENDING, second.nextCursor(), 5));
+        assertEquals(List.of(created.get(0)), third.auctions());
+        assertNull(third.nextCursor());
+    }
+
+    @Test
+    void filtersNarrowTheIndexAndEndedAuctionsLeaveIt() {
+        Auction cheap = openAuction("cheap", "alice", 500, 3600);
+        Auction mid = openAuction("mid", "alice", 2000, 7200);
+        Auction dear = openAuction("dear", "bob", 9000, 1800);
+        openAuction("other", "bob", 2500, 3600);
+
+        AuctionQuery bySeller = new AuctionQuery("alice", null, null, null, AuctionQuery.Sort.PRICE_DESCENDING, null, 10);
+        assertEquals(List.of(mid, cheap), database.queryAuctions(bySeller).auctions());
+
+        AuctionQuery byPrice = new AuctionQuery(null, new BigDecimal("10"), new BigDecimal("24.99"), null,
+                AuctionQuery.Sort.PRICE_ASCENDING, null, 10);
+        assertEquals(List.of(mid), database.queryAuctions(byPrice).auctions());
+
+        AuctionQuery endingSoon = new AuctionQuery(null, null, null, now + 3600, AuctionQuery.Sort.ENDING_SOONEST, null, 10);
+        assertEquals(List.of(dear), database.queryAuctions(endingSoon).auctions());
+
+        database.closeAuction(dear.getId());
+        Set<Auction> open = new HashSet<>(allPages(AuctionQuery.Sort.MOST_BIDS, 2));
+        assertEquals(3, open.size());
+        assertFalse(open.contains(dear));
+    }
+
+    @Test
+    void aCursorOnlyWorksForTheSortItWasMadeFor() {
+        for (int i = 0; i < 3; i++) {
+            openAuction("lot-" + i, "seller", 1000, 3600 + i);
+        }
+        String cursor = database.queryAuctions(query(AuctionQuery.Sort.ENDING_SOONEST, null, 1)).nextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> query(AuctionQuery.Sort.MOST_BIDS, cursor, 1).validate());
+        assertThrows(IllegalArgumentException.class, () -> query(AuctionQuery.Sort.ENDING_SOONEST, "not-a-cursor", 1).validate());
+        assertThrows(IllegalArgumentException.class, () -> query(AuctionQuery.Sort.ENDING_SOONEST, null, 0).validate());
+    }
+}
@@ -0,0 +1,61 @@
+package core;
+
+import core.persistence.Durability;
+import core.persistence.Journal;
+import model.Auction;
+import model.Bid;
+import model.BidResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryDatabaseTest {
+    @TempDir
+    Path directory;
+
+    private static Auction newAuction(String name) {
+        Auction auction = new Auction(name, 2, 1000, System.currentTimeMillis() / 1000 + 3600, "seller", 100);
+        auction.setId(UUID.randomUUID());
+        return auction;
+    }
+
+    private static Bid bid(Auction auction, String bidder, long price) {
+        return new Bid(UUID.randomUUID(), bidder, auction.getId(), price, auction.getScale());
+    }
+
+    @Test
+    void bidsAreRefusedWithoutTouchingTheAuctionOnceTheJournalHasFailed() throws Exception {
+        InMemoryDatabase database = new InMemoryDatabase(new ConcurrentHashMap<>());
+        Journal journal = Journal.open(directory.resolve("journal"), Durability.BATCHED);
+        database.setJournal(journal);
+        Auction auction = newAuction("lamp");
+        database.createAuction(auction);
+        database.activateAuction(auction.getId());
+        assertEquals(BidResult.Status.ACCEPTED, database.placeBid(bid(auction, "alice", 1100)).get(10, TimeUnit.SECONDS).status());
+
+        // A rotation to a file that cannot be created fails the journal.
+        CompletableFuture<Void> rotated = journal.rotate(directory.resolve("missing").resolve("journal"));
+        assertThrows(ExecutionException.class, () -> rotated.get(10, TimeUnit.SECONDS));
+        assertTrue(journal.isFailed());
+
+        ExecutionException refused = assertThrows(ExecutionException.class,
+                () -> database.placeBid(bid(auction, "bob", 1200)).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, refused.getCause());
+        assertThrows(ExecutionException.class, () -> database.setMaxBid(bid(auction, "bob", 5000)).get(10, TimeUnit.SECONDS));
+        assertEquals(1, auction.getBidCount());
+        assertEquals(1100, auction.getCurrentPrice());
+        assertEquals("alice", auction.getTopBidder());
+        journal.close();
+    }
+}
@@ -0,0 +1,146 @@
+package core;
+
+import core.metrics.Metrics;
+import model.Auction;
+import model.Bid;
+import model.BidResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedDatabaseTest {
+    private InMemoryDatabase store;
+    private ShardedDatabase database;
+
+    @BeforeEach
+    void startShards() {
+        store = new InMemoryDatabase(new ConcurrentHashMap<>());
+        database = new ShardedDatabase(store, 4, new Metrics());
+    }
+
+    @AfterEach
+    void stopShards() {
+        database.shutdown();
+    }
+
+    private Auction openAuction(String name) {
+        Auction auction = new Auction(name, 2, 1000, System.currentTimeMillis() / 1000 + 3600, "seller", 100);
+        auction.setId(UUID.randomUUID());
+        database.createAuction(auction);
+        database.activateAuction(auction.getId());
+        return auction;
+    }
+
+    private static Bid bid(Auction auction, String bidder, long price) {
+        return new Bid(UUID.randomUUID(), bidder, auction.getId(), price, auction.getScale());
+    }
+
+    @Test
+    void bidsOnOneAuctionAreAppliedAndCompletedInSubmissionOrder() throws Exception {
+        Auction auction = openAuction("lamp");
+        List<Integer> completed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<BidResult>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            CompletableFuture<BidResult> result = database.placeBid(bid(auction, "bidder-" + i, 1100 + i * 100L));
+            results.add(result);
+            result.thenRun(() -> completed.add(sequence));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        // Each bid raises the last one by exactly the increment, so any reordering would reject some.
+        for (CompletableFuture<BidResult> result : results) {
+            assertEquals(BidResult.Status.ACCEPTED, result.join().status());
+        }
+        assertEquals(1000, auction.getBidCount());
+        assertEquals("bidder-999", auction.getTopBidder());
+        for (int i = 0; i < completed.size(); i++) {
+            assertEquals(i, completed.get(i));
+        }
+    }
+
+    @Test
+    void concurrentSubmittersAcrossShardsAreAllSettled() throws Exception {
+        List<Auction> auctions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            auctions.add(openAuction("lot-" + i));
+        }
+        int threads = 8;
+        int bidsPerThread = 500;
+        List<CompletableFuture<BidResult>> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            submitters.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < bidsPerThread; i++) {
+                    Auction auction = auctions.get(i % auctions.size());
+                    results.add(database.placeBid(bid(auction, "bidder-" + thread, 1100 + (i * threads + thread) * 100L)));
+                }
+            }));
+        }
+        submitters.forEach(Thread::start);
+        start.countDown();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(threads * bidsPerThread, results.size());
+        long accepted = results.stream().filter(result -> result.join().accepted()).count();
+        long recorded = auctions.stream().mapToLong(Auction::getBidCount).sum();
+        assertEquals(accepted, recorded);
+        assertTrue(accepted >= auctions.size());
+    }
+
+    @Test
+    void bidsSubmittedWhileShuttingDownAreNeverLeftPending() throws Exception {
+        Auction auction = openAuction("lamp");
+        List<CompletableFuture<BidResult>> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch submitting = new CountDownLatch(1);
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                results.add(database.placeBid(bid(auction, "alice", 1100 + i * 100L)));
+                if (i == 100) {
+                    submitting.countDown();
+                }
+            }
+        });
+        submitter.start();
+        submitting.await();
+        database.shutdown();
+        submitter.join();
+
+        for (CompletableFuture<BidResult> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            }
+        }
+        ExecutionException late = assertThrows(ExecutionException.class,
+                () -> database.placeBid(bid(auction, "bob", Long.MAX_VALUE / 2)).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, late.getCause());
+    }
+}
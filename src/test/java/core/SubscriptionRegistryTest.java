@@ -0,0 +1,44 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriptionRegistryTest {
+    @Test
+    void aSubscriptionArrivingAfterTheConnectionWasRemovedIsDropped() {
+        SubscriptionRegistry subscriptions = new SubscriptionRegistry();
+        AuctionHandlerTest.RecordingConnection connection = new AuctionHandlerTest.RecordingConnection();
+        UUID auctionId = UUID.randomUUID();
+        subscriptions.subscribe(connection, auctionId);
+
+        connection.close();
+        subscriptions.removeConnection(connection);
+        // A bid placed before the disconnect settles afterwards and subscribes its bidder.
+        subscriptions.subscribe(connection, auctionId);
+        subscriptions.subscribeAll(connection);
+
+        assertTrue(subscriptions.watchedAuctions().isEmpty());
+        assertEquals(0, subscriptions.forEachWatcher(auctionId, watcher -> { }));
+    }
+
+    @Test
+    void eachWatcherIsVisitedOnceEvenOnTheFirehose() {
+        SubscriptionRegistry subscriptions = new SubscriptionRegistry();
+        AuctionHandlerTest.RecordingConnection watcher = new AuctionHandlerTest.RecordingConnection();
+        AuctionHandlerTest.RecordingConnection both = new AuctionHandlerTest.RecordingConnection();
+        UUID auctionId = UUID.randomUUID();
+        subscriptions.subscribe(watcher, auctionId);
+        subscriptions.subscribe(both, auctionId);
+        subscriptions.subscribeAll(both);
+
+        assertEquals(2, subscriptions.forEachWatcher(auctionId, connection -> { }));
+        assertEquals(1, subscriptions.forEachWatcher(UUID.randomUUID(), connection -> { }));
+
+        subscriptions.removeAuction(auctionId);
+        assertTrue(subscriptions.watchedAuctions().isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package core.admission;
+
+import core.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Rates of one a second with a ten second burst, so nothing refills while a test runs.
+class AdmissionControlTest {
+    private static AdmissionControl newAdmission() {
+        return new AdmissionControl(new AdmissionLimits(1, 1, 1, 10_000, 1), new Metrics());
+    }
+
+    @Test
+    void bidsAreAdmittedUpToTheBurstPerConnection() {
+        AdmissionControl admission = newAdmission();
+        UUID connection = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, admission.admitBid(connection));
+        }
+        long wait = admission.admitBid(connection);
+        assertTrue(wait > 0 && wait <= 1000, "wait was " + wait);
+        assertEquals(0, admission.admitBid(UUID.randomUUID()));
+    }
+
+    @Test
+    void aBidderIsLimitedAcrossConnections() {
+        AdmissionControl admission = newAdmission();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, admission.admitBidder("alice"));
+        }
+        assertTrue(admission.admitBidder("alice") > 0);
+        assertEquals(0, admission.admitBidder("bob"));
+        assertEquals(0, admission.admitBidder(null));
+    }
+
+    @Test
+    void aBatchLargerThanTheBurstIsAdmittedInPart() {
+        AdmissionControl admission = newAdmission();
+        UUID connection = UUID.randomUUID();
+        assertEquals(10, admission.admitBidsUpTo(connection, 25));
+        assertEquals(0, admission.admitBidsUpTo(connection, 1));
+        assertEquals(15_000, admission.connectionBidRefillMillis(15));
+    }
+
+    @Test
+    void forgettingAConnectionGivesItAFreshBucket() {
+        AdmissionControl admission = newAdmission();
+        UUID connection = UUID.randomUUID();
+        assertEquals(10, admission.admitBidsUpTo(connection, 10));
+        admission.forget(connection);
+        assertEquals(0, admission.admitBid(connection));
+    }
+
+    @Test
+    void concurrentListingsAreCapped() {
+        AdmissionControl admission = newAdmission();
+        assertTrue(admission.beginListing());
+        assertFalse(admission.beginListing());
+        admission.endListing();
+        assertTrue(admission.beginListing());
+    }
+
+    @Test
+    void unlimitedAdmitsEverything() {
+        AdmissionControl admission = new AdmissionControl(AdmissionLimits.UNLIMITED, new Metrics());
+        UUID connection = UUID.randomUUID();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, admission.admitBid(connection));
+            assertEquals(0, admission.admitListing(connection));
+        }
+        assertEquals(100_000, admission.admitBidsUpTo(connection, 100_000));
+        assertTrue(admission.beginListing());
+        assertTrue(admission.beginListing());
+    }
+}
@@ -0,0 +1,67 @@
+package core.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Times are passed in, so these run on a clock of their own: a token every 100ns, a burst of ten.
+class TokenBucketTest {
+    private static TokenBucket newBucket() {
+        return new TokenBucket(100, 1000, 0);
+    }
+
+    @Test
+    void aNewBucketAdmitsTheBurstAndThenReportsTheWait() {
+        TokenBucket bucket = newBucket();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.take(1, 0));
+        }
+        assertEquals(100, bucket.take(1, 0));
+        assertEquals(30, bucket.take(1, 70));
+    }
+
+    @Test
+    void tokensRefillAtTheRate() {
+        TokenBucket bucket = newBucket();
+        assertEquals(0, bucket.take(10, 0));
+        assertEquals(0, bucket.take(3, 300));
+        assertEquals(100, bucket.take(1, 300));
+        assertEquals(0, bucket.take(1, 400));
+    }
+
+    @Test
+    void refillStopsAtTheBurst() {
+        TokenBucket bucket = newBucket();
+        assertEquals(0, bucket.take(10, 0));
+        assertEquals(0, bucket.take(10, 1_000_000));
+        assertEquals(100, bucket.take(1, 1_000_000));
+    }
+
+    @Test
+    void aRefusedTakeTakesNothing() {
+        TokenBucket bucket = newBucket();
+        assertEquals(100, bucket.take(11, 0));
+        assertEquals(0, bucket.take(10, 0));
+    }
+
+    @Test
+    void takeUpToTakesWhatTheBucketHolds() {
+        TokenBucket bucket = newBucket();
+        assertEquals(10, bucket.takeUpTo(15, 0));
+        assertEquals(0, bucket.takeUpTo(1, 0));
+        assertEquals(2, bucket.takeUpTo(5, 250));
+        assertEquals(0, bucket.takeUpTo(1, 250));
+        assertEquals(1, bucket.takeUpTo(1, 300));
+    }
+
+    @Test
+    void aBucketIsFullOnceEveryTokenHasRefilled() {
+        TokenBucket bucket = newBucket();
+        assertTrue(bucket.isFull(0));
+        bucket.take(4, 0);
+        assertFalse(bucket.isFull(399));
+        assertTrue(bucket.isFull(400));
+    }
+}
@@ -0,0 +1,52 @@
+package core.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterTest {
+    private static final Node FIRST = Node.parse("10.0.0.1:7000");
+    private static final Node SECOND = Node.parse("10.0.0.2:7000");
+    private static final Node THIRD = Node.parse("10.0.0.3:7000");
+    private static final List<Node> MEMBERS = List.of(FIRST, SECOND, THIRD);
+
+    @Test
+    void auctionsCreatedHereAreOwnedHereAndEveryNodeAgrees() {
+        Cluster first = new Cluster(FIRST, MEMBERS, "secret");
+        Cluster second = new Cluster(SECOND, MEMBERS, "secret");
+
+        for (int i = 0; i < 100; i++) {
+            UUID id = first.newLocalId();
+            assertTrue(first.isLocal(id));
+            assertFalse(second.isLocal(id));
+            assertEquals(FIRST, second.ownerOf(id));
+        }
+    }
+
+    @Test
+    void anAuctionNameHasOneOwnerWhateverItsCase() {
+        Cluster first = new Cluster(FIRST, MEMBERS, "secret");
+        Cluster third = new Cluster(THIRD, MEMBERS, "secret");
+
+        assertEquals(first.ownerOfName("Vintage Lamp"), first.ownerOfName("vintage lamp"));
+        assertEquals(first.ownerOfName("Vintage Lamp"), third.ownerOfName("VINTAGE LAMP"));
+    }
+
+    @Test
+    void onlyOtherMembersWithTheSecretAreAdmittedAsPeers() {
+        Cluster first = new Cluster(FIRST, MEMBERS, "secret");
+
+        assertTrue(first.admitsPeer(SECOND, "secret"));
+        assertFalse(first.admitsPeer(SECOND, "guess"));
+        assertFalse(first.admitsPeer(FIRST, "secret"));
+        assertFalse(first.admitsPeer(Node.parse("10.0.0.9:7000"), "secret"));
+        assertThrows(IllegalArgumentException.class, () -> new Cluster(Node.parse("10.0.0.9:7000"), MEMBERS, "secret"));
+        assertThrows(IllegalArgumentException.class, () -> Node.parse("10.0.0.1"));
+    }
+}
@@ -0,0 +1,92 @@
+package core.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+    private static final int KEYS = 30_000;
+
+    private static List<Node> nodes(int count) {
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new Node("10.0.0." + (i + 1), 7000));
+        }
+        return nodes;
+    }
+
+    private static List<UUID> auctionIds() {
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return ids;
+    }
+
+    @Test
+    void everyMemberBuildsTheSameRingWhateverTheOrder() {
+        List<Node> members = nodes(5);
+        List<Node> reversed = new ArrayList<>(members);
+        Collections.reverse(reversed);
+        HashRing ring = new HashRing(members);
+        HashRing other = new HashRing(reversed);
+
+        for (UUID id : auctionIds()) {
+            assertEquals(ring.ownerOf(id), other.ownerOf(id));
+        }
+        assertEquals(ring.ownerOf("lamp"), other.ownerOf("lamp"));
+    }
+
+    @Test
+    void auctionsSpreadEvenlyOverTheNodes() {
+        List<Node> members = nodes(4);
+        HashRing ring = new HashRing(members);
+        Map<Node, Integer> owned = new HashMap<>();
+        for (UUID id : auctionIds()) {
+            owned.merge(ring.ownerOf(id), 1, Integer::sum);
+        }
+
+        assertEquals(members.size(), owned.size());
+        int fair = KEYS / members.size();
+        for (int count : owned.values()) {
+            assertTrue(Math.abs(count - fair) < fair / 4, "uneven share: " + owned);
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesAuctionsToIt() {
+        List<Node> members = nodes(4);
+        HashRing before = new HashRing(members);
+        List<Node> grown = new ArrayList<>(members);
+        Node added = new Node("10.0.0.99", 7000);
+        grown.add(added);
+        HashRing after = new HashRing(grown);
+
+        int moved = 0;
+        for (UUID id : auctionIds()) {
+            Node owner = after.ownerOf(id);
+            if (!owner.equals(before.ownerOf(id))) {
+                assertEquals(added, owner);
+                moved++;
+            }
+        }
+        // About a fifth of the auctions move, all of them to the new node.
+        assertTrue(moved > KEYS / 10 && moved < KEYS * 3 / 10, "moved " + moved);
+    }
+
+    @Test
+    void aRingNeedsANode() {
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of()));
+    }
+}
@@ -0,0 +1,81 @@
+package core.lifecycle;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A wheel of four 10ms ticks turns every 40ms, so most of these deadlines wait several turns.
+class TimingWheelTest {
+    private final Map<String, Long> firedAt = new ConcurrentHashMap<>();
+    private TimingWheel<String> wheel;
+
+    @AfterEach
+    void stopWheel() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    private CountDownLatch newWheel(int expected) {
+        CountDownLatch fired = new CountDownLatch(expected);
+        wheel = new TimingWheel<>("test-wheel", 10, 4, item -> {
+            firedAt.put(item, System.currentTimeMillis());
+            fired.countDown();
+        });
+        return fired;
+    }
+
+    @Test
+    void deadlinesSeveralTurnsAwayFireOnTimeNeverEarly() throws Exception {
+        CountDownLatch fired = newWheel(6);
+        long now = System.currentTimeMillis();
+        long[] delays = {0, 15, 35, 95, 170, 250};
+        for (long delay : delays) {
+            wheel.schedule(now + delay, "in-" + delay);
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        for (long delay : delays) {
+            long fireTime = firedAt.get("in-" + delay);
+            assertTrue(fireTime >= now + delay, "in-" + delay + " fired " + (now + delay - fireTime) + "ms early");
+        }
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    void deadlinesInTheSameBucketWaitForTheirOwnTurn() throws Exception {
+        CountDownLatch fired = newWheel(2);
+        long now = System.currentTimeMillis();
+        wheel.schedule(now + 200, "late");
+        wheel.schedule(now + 40, "early");
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(firedAt.get("early") < firedAt.get("late"));
+        assertTrue(firedAt.get("late") >= now + 200);
+    }
+
+    @Test
+    void aCancelledDeadlineNeverFires() throws Exception {
+        CountDownLatch fired = newWheel(1);
+        long now = System.currentTimeMillis();
+        TimingWheel.Timeout<String> cancelled = wheel.schedule(now + 50, "cancelled");
+        wheel.schedule(now + 120, "kept");
+        assertEquals(2, wheel.pendingCount());
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals("cancelled", cancelled.item());
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertFalse(firedAt.containsKey("cancelled"));
+        assertEquals(0, wheel.pendingCount());
+    }
+}
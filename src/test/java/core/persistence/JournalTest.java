@@ -0,0 +1,175 @@
+package core.persistence;
+
+import model.Bid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+    @TempDir
+    Path directory;
+
+    private record Record(byte type, byte[] payload) {
+    }
+
+    private static List<Record> replay(Path file) throws IOException {
+        List<Record> records = new ArrayList<>();
+        long count = Journal.replay(file, (type, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            records.add(new Record(type, bytes));
+        });
+        assertEquals(records.size(), count);
+        return records;
+    }
+
+    private static byte[] payload(int i) {
+        return ("record-" + i).getBytes();
+    }
+
+    // Appends the records and waits until each is written, then closes the journal.
+    private static void write(Path file, Durability durability, int from, int to) throws Exception {
+        Journal journal = Journal.open(file, durability);
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            written.add(journal.append(Journal.BID_PLACED, payload(i)));
+        }
+        CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        journal.close();
+    }
+
+    private static void assertRecords(List<Record> records, int count) {
+        assertEquals(count, records.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Journal.BID_PLACED, records.get(i).type());
+            assertArrayEquals(payload(i), records.get(i).payload());
+        }
+    }
+
+    @Test
+    void appendedRecordsReplayInOrder() throws Exception {
+        for (Durability durability : Durability.values()) {
+            Path file = directory.resolve("journal-" + durability);
+            write(file, durability, 0, 1000);
+            assertRecords(replay(file), 1000);
+        }
+    }
+
+    @Test
+    void reopeningAppendsAfterTheLastRecord() throws Exception {
+        Path file = directory.resolve("journal");
+        write(file, Durability.BATCHED, 0, 10);
+        write(file, Durability.BATCHED, 10, 20);
+        assertRecords(replay(file), 20);
+    }
+
+    @Test
+    void bidRecordsRoundTripThroughTheCodec() throws Exception {
+        Path file = directory.resolve("journal");
+        Bid bid = new Bid(UUID.randomUUID(), "alice", UUID.randomUUID(), 12_345, 2);
+        Journal journal = Journal.open(file, Durability.FSYNC);
+        journal.append(Journal.BID_PLACED, RecordCodec.encodeBid(bid, 7)).get(10, TimeUnit.SECONDS);
+        journal.close();
+
+        List<Record> records = replay(file);
+        assertEquals(1, records.size());
+        ByteBuffer in = ByteBuffer.wrap(records.get(0).payload());
+        assertEquals(7, in.getInt());
+        Bid read = RecordCodec.readBid(in);
+        assertEquals(bid.getId(), read.getId());
+        assertEquals("alice", read.getUserName());
+        assertEquals(bid.getAuctionId(), read.getAuctionId());
+        assertEquals(12_345, read.getPrice());
+        assertEquals(2, read.getScale());
+        assertEquals(bid.getTimestamp(), read.getTimestamp());
+    }
+
+    @Test
+    void aTornTailIsCutOffAndTheJournalRecovers() throws Exception {
+        Path file = directory.resolve("journal");
+        write(file, Durability.BATCHED, 0, 5);
+        long intact = Files.size(file);
+        byte[] frame = Journal.frame(Journal.BID_PLACED, payload(5));
+        Files.write(file, Arrays.copyOf(frame, frame.length - 3), StandardOpenOption.APPEND);
+
+        assertRecords(replay(file), 5);
+        assertEquals(intact, Files.size(file));
+
+        write(file, Durability.BATCHED, 5, 8);
+        assertRecords(replay(file), 8);
+    }
+
+    @Test
+    void aRecordFailingItsChecksumEndsTheReplay() throws Exception {
+        Path file = directory.resolve("journal");
+        write(file, Durability.BATCHED, 0, 5);
+        long intact = Files.size(file);
+        byte[] corrupt = Journal.frame(Journal.BID_PLACED, payload(5));
+        corrupt[6] ^= 1;
+        Files.write(file, corrupt, StandardOpenOption.APPEND);
+        Files.write(file, Journal.frame(Journal.BID_PLACED, payload(6)), StandardOpenOption.APPEND);
+
+        assertRecords(replay(file), 5);
+        assertEquals(intact, Files.size(file));
+    }
+
+    @Test
+    void anImpossibleLengthEndsTheReplay() throws Exception {
+        Path file = directory.resolve("journal");
+        write(file, Durability.BATCHED, 0, 3);
+        long intact = Files.size(file);
+        Files.write(file, ByteBuffer.allocate(8).putInt(-1).putInt(0).array(), StandardOpenOption.APPEND);
+
+        assertRecords(replay(file), 3);
+        assertEquals(intact, Files.size(file));
+    }
+
+    @Test
+    void rotationMovesLaterRecordsToTheNextFile() throws Exception {
+        Path first = directory.resolve("journal-1");
+        Path second = directory.resolve("journal-2");
+        Journal journal = Journal.open(first, Durability.BATCHED);
+        journal.append(Journal.BID_PLACED, payload(0)).get(10, TimeUnit.SECONDS);
+        journal.rotate(second).get(10, TimeUnit.SECONDS);
+        journal.append(Journal.BID_PLACED, payload(1)).get(10, TimeUnit.SECONDS);
+        journal.close();
+
+        assertRecords(replay(first), 1);
+        List<Record> records = replay(second);
+        assertEquals(1, records.size());
+        assertArrayEquals(payload(1), records.get(0).payload());
+    }
+
+    @Test
+    void aFailedWriteStopsTheJournal() throws Exception {
+        Path file = directory.resolve("journal");
+        Journal journal = Journal.open(file, Durability.BATCHED);
+        journal.append(Journal.BID_PLACED, payload(0)).get(10, TimeUnit.SECONDS);
+        // The next file cannot be created, so the writer fails while rotating.
+        CompletableFuture<Void> rotated = journal.rotate(directory.resolve("missing").resolve("journal-2"));
+        assertThrows(ExecutionException.class, () -> rotated.get(10, TimeUnit.SECONDS));
+
+        assertTrue(journal.isFailed());
+        CompletableFuture<Void> refused = journal.append(Journal.BID_PLACED, payload(1));
+        assertThrows(ExecutionException.class, () -> refused.get(10, TimeUnit.SECONDS));
+        journal.close();
+        assertRecords(replay(file), 1);
+    }
+}
@@ -0,0 +1,143 @@
+package core.persistence;
+
+import model.Auction;
+import model.Bid;
+import model.BidResult;
+import model.PriceState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+    @TempDir
+    Path directory;
+
+    private static Auction newAuction(String name) {
+        Auction auction = new Auction(name, 2, 100, System.currentTimeMillis() / 1000 + 3600, "seller", 5);
+        auction.setId(UUID.randomUUID());
+        auction.setDescription("a " + name);
+        auction.activate();
+        return auction;
+    }
+
+    private static Bid bid(Auction auction, String bidder, long price) {
+        return new Bid(UUID.randomUUID(), bidder, auction.getId(), price, auction.getScale());
+    }
+
+    // Loads the snapshot the way recovery does, keyed by auction id.
+    private static Map<UUID, Auction> read(Path file, boolean expectIntact) throws Exception {
+        Map<UUID, Auction> auctions = new HashMap<>();
+        boolean intact = Snapshot.read(file, new Snapshot.Loader() {
+            @Override
+            public void onAuction(Auction auction) {
+                auctions.put(auction.getId(), auction);
+            }
+
+            @Override
+            public void onBid(Bid bid, int sequence) {
+                auctions.get(bid.getAuctionId()).addBid(bid, sequence);
+            }
+
+            @Override
+            public void onMaximum(UUID auctionId, int sequence, long maximum) {
+                auctions.get(auctionId).restoreMaximum(sequence, maximum);
+            }
+        });
+        assertEquals(expectIntact, intact);
+        return auctions;
+    }
+
+    @Test
+    void auctionsAndBidsRoundTrip() throws Exception {
+        Auction empty = newAuction("vase");
+        Auction contested = newAuction("lamp");
+        contested.placeBid(bid(contested, "alice", 200));
+        contested.placeBid(bid(contested, "bob", 250));
+        Path file = directory.resolve("snapshot");
+
+        assertEquals(2, Snapshot.write(file, List.of(empty, contested)));
+        Map<UUID, Auction> restored = read(file, true);
+
+        assertEquals(2, restored.size());
+        Auction vase = restored.get(empty.getId());
+        assertEquals("vase", vase.getName());
+        assertEquals("a vase", vase.getDescription());
+        assertEquals(0, vase.getBidCount());
+        assertEquals(100, vase.getCurrentPrice());
+
+        Auction lamp = restored.get(contested.getId());
+        PriceState state = lamp.getPriceState();
+        assertEquals(contested.getPriceState(), state);
+        assertEquals(Auction.AuctionStatus.ACTIVE, lamp.getStatus());
+        assertEquals(2, lamp.getScale());
+        assertEquals(5, lamp.getMinimumBidIncrement());
+        assertEquals(contested.getEndTime(), lamp.getEndTime());
+        for (int i = 0; i < 2; i++) {
+            Bid original = contested.getBid(i);
+            Bid read = lamp.getBid(i);
+            assertEquals(original.getId(), read.getId());
+            assertEquals(original.getUserName(), read.getUserName());
+            assertEquals(original.getPrice(), read.getPrice());
+            assertEquals(original.getTimestamp(), read.getTimestamp());
+        }
+    }
+
+    @Test
+    void aRestoredMaximumStillBidsForItsOwner() throws Exception {
+        Auction auction = newAuction("lamp");
+        auction.placeBid(bid(auction, "alice", 200));
+        auction.setMaxBid(bid(auction, "carol", 1000));
+        Path file = directory.resolve("snapshot");
+        Snapshot.write(file, List.of(auction));
+
+        Auction restored = read(file, true).get(auction.getId());
+        assertEquals(auction.getPriceState(), restored.getPriceState());
+        assertEquals(1000, restored.getPriceState().maximum());
+
+        BidResult result = restored.placeBid(bid(restored, "dave", 500));
+        assertEquals(BidResult.Status.OUTBID, result.status());
+        assertEquals("carol", result.state().topBidder());
+        assertEquals(505, result.state().price());
+    }
+
+    @Test
+    void writingReplacesThePreviousSnapshot() throws Exception {
+        Auction auction = newAuction("lamp");
+        Path file = directory.resolve("snapshot");
+        Snapshot.write(file, List.of(auction));
+        auction.placeBid(bid(auction, "alice", 200));
+        Snapshot.write(file, List.of(auction));
+
+        assertEquals(200, read(file, true).get(auction.getId()).getCurrentPrice());
+        assertFalse(Files.exists(directory.resolve("snapshot.tmp")));
+    }
+
+    @Test
+    void aDamagedSnapshotIsRefusedWithoutLoadingAnything() throws Exception {
+        Auction auction = newAuction("lamp");
+        auction.placeBid(bid(auction, "alice", 200));
+        Path file = directory.resolve("snapshot");
+        Snapshot.write(file, List.of(auction));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        assertTrue(read(file, false).isEmpty());
+
+        Snapshot.write(file, List.of(auction));
+        bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertTrue(read(file, false).isEmpty());
+    }
+}
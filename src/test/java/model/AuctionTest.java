@@ -0,0 +1,187 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuctionTest {
+    private static final int THREADS = 8;
+
+    private static Auction newAuction(long startingPrice, long increment) {
+        Auction auction = new Auction("lamp", 2, startingPrice, System.currentTimeMillis() / 1000 + 3600, "seller", increment);
+        auction.setId(UUID.randomUUID());
+        auction.activate();
+        return auction;
+    }
+
+    private static Bid bid(Auction auction, String bidder, long price) {
+        return new Bid(UUID.randomUUID(), bidder, auction.getId(), price, auction.getScale());
+    }
+
+    // Runs one task per thread, all released at once, and returns their results.
+    private static <T> List<T> race(List<Callable<T>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void assertHistoryMatchesState(Auction auction) {
+        PriceState state = auction.getPriceState();
+        BidHistory history = auction.getHistory();
+        assertEquals(state.bidCount(), history.size());
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.amount(i) > history.amount(i - 1), "history prices must rise");
+        }
+        if (history.size() > 0) {
+            assertEquals(state.price(), history.amount(history.size() - 1));
+            assertEquals(state.topBidder(), history.bidder(history.size() - 1));
+        }
+    }
+
+    @Test
+    void racingBidsAreEachAcceptedOnceAndKeepHistoryInOrder() throws Exception {
+        Auction auction = newAuction(100, 1);
+        int bidsPerThread = 2000;
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                int accepted = 0;
+                for (int i = 1; i <= bidsPerThread; i++) {
+                    if (auction.placeBid(bid(auction, "bidder-" + thread, 100 + i * THREADS + thread)).accepted()) {
+                        accepted++;
+                    }
+                }
+                return accepted;
+            });
+        }
+
+        int accepted = race(tasks).stream().mapToInt(Integer::intValue).sum();
+
+        PriceState state = auction.getPriceState();
+        assertEquals(accepted, state.bidCount());
+        assertEquals(100 + bidsPerThread * THREADS + THREADS - 1, state.price());
+        assertEquals("bidder-" + (THREADS - 1), state.topBidder());
+        assertHistoryMatchesState(auction);
+    }
+
+    @Test
+    void racingMaximumBidsSettleOnTheHighestAtOneIncrementAboveTheRunnerUp() throws Exception {
+        Auction auction = newAuction(100, 5);
+        List<Callable<BidResult>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> auction.setMaxBid(bid(auction, "bidder-" + thread, 1000 + thread * 100)));
+        }
+
+        race(tasks);
+
+        PriceState state = auction.getPriceState();
+        long highest = 1000 + (THREADS - 1) * 100;
+        assertEquals("bidder-" + (THREADS - 1), state.topBidder());
+        assertEquals(highest - 100 + 5, state.price());
+        assertEquals(highest, state.maximum());
+        assertHistoryMatchesState(auction);
+    }
+
+    @Test
+    void racingBidsAgainstAMaximumAreOutbidUntilItIsSpent() throws Exception {
+        Auction auction = newAuction(100, 1);
+        assertEquals(BidResult.Status.ACCEPTED, auction.setMaxBid(bid(auction, "proxy", 5000)).status());
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                int outbid = 0;
+                for (int price = 101 + thread; price <= 6000; price += THREADS) {
+                    if (auction.placeBid(bid(auction, "bidder-" + thread, price)).status() == BidResult.Status.OUTBID) {
+                        outbid++;
+                    }
+                }
+                return outbid;
+            });
+        }
+
+        int outbid = race(tasks).stream().mapToInt(Integer::intValue).sum();
+
+        PriceState state = auction.getPriceState();
+        assertTrue(outbid > 0);
+        assertEquals(6000, state.price());
+        assertNotEquals("proxy", state.topBidder());
+        assertHistoryMatchesState(auction);
+    }
+
+    @Test
+    void bidsRacingCloseEitherLandBeforeItOrFail() throws Exception {
+        Auction auction = newAuction(100, 1);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                int accepted = 0;
+                for (int i = 1; i <= 5000; i++) {
+                    if (auction.placeBid(bid(auction, "bidder-" + thread, 100 + i * THREADS + thread)).accepted()) {
+                        accepted++;
+                    }
+                    if (thread == 0 && i == 500) {
+                        auction.close();
+                    }
+                }
+                return accepted;
+            });
+        }
+
+        int accepted = race(tasks).stream().mapToInt(Integer::intValue).sum();
+
+        PriceState state = auction.getPriceState();
+        assertTrue(state.closed());
+        assertEquals(Auction.AuctionStatus.SOLD, auction.getStatus());
+        assertEquals(accepted, state.bidCount());
+        assertEquals(BidResult.Status.NOT_OPEN, auction.placeBid(bid(auction, "late", Long.MAX_VALUE / 1000)).status());
+        assertNull(auction.close());
+        assertHistoryMatchesState(auction);
+    }
+
+    @Test
+    void bidsAfterTheEndTimeAreRefusedBeforeTheLifecycleClosesTheAuction() {
+        long now = System.currentTimeMillis() / 1000;
+        Auction auction = Auction.restore(UUID.randomUUID(), "lamp", null, 2, 100, now - 60, now - 1, now - 60,
+                "seller", 5, Auction.AuctionStatus.ACTIVE);
+
+        assertFalse(auction.canBid(200));
+        assertEquals(BidResult.Status.NOT_OPEN, auction.placeBid(bid(auction, "alice", 200)).status());
+        assertEquals(BidResult.Status.NOT_OPEN, auction.setMaxBid(bid(auction, "bob", 500)).status());
+        assertEquals(0, auction.getBidCount());
+    }
+}
@@ -0,0 +1,104 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BidHistoryTest {
+    private static final int BIDS = 3000;
+
+    private static UUID idOf(int sequence) {
+        return new UUID(sequence, -sequence);
+    }
+
+    private static void record(BidHistory history, int sequence) {
+        assertTrue(history.record(sequence, idOf(sequence), 1_000_000L + sequence, 100L * sequence, "bidder-" + sequence % 7));
+    }
+
+    private static void assertRecorded(BidHistory history, int count) {
+        assertEquals(count, history.size());
+        for (int i = 0; i < count; i++) {
+            int sequence = i + 1;
+            assertEquals(idOf(sequence), history.id(i));
+            assertEquals(1_000_000L + sequence, history.timestamp(i));
+            assertEquals(100L * sequence, history.amount(i));
+            assertEquals("bidder-" + sequence % 7, history.bidder(i));
+        }
+    }
+
+    @Test
+    void bidsReadBackAcrossChunkBoundaries() {
+        BidHistory history = new BidHistory();
+        for (int sequence = 1; sequence <= BIDS; sequence++) {
+            record(history, sequence);
+        }
+        assertRecorded(history, BIDS);
+    }
+
+    @Test
+    void sizeOnlyCountsTheGapFreePrefix() {
+        BidHistory history = new BidHistory();
+        record(history, 3);
+        record(history, 1);
+        assertEquals(1, history.size());
+        // A late bid beyond the first chunk leaves the gap open until it is filled.
+        record(history, 2000);
+        record(history, 2);
+        assertEquals(3, history.size());
+        for (int sequence = 4; sequence < 2000; sequence++) {
+            record(history, sequence);
+        }
+        assertRecorded(history, 2000);
+
+        assertFalse(history.record(2, UUID.randomUUID(), 0, 0, "mallory"));
+        assertThrows(IllegalArgumentException.class, () -> history.record(0, UUID.randomUUID(), 0, 0, "mallory"));
+        assertRecorded(history, 2000);
+    }
+
+    @Test
+    void threadsRecordingInAnyOrderFillTheWholeHistory() throws Exception {
+        BidHistory history = new BidHistory();
+        AtomicInteger next = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                int sequence;
+                while ((sequence = next.incrementAndGet()) <= BIDS) {
+                    record(history, sequence);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        history.awaitSize(BIDS);
+        assertRecorded(history, BIDS);
+    }
+
+    @Test
+    void auctionPagesOfTheHistoryAreClampedToWhatExists() {
+        Auction auction = new Auction("lamp", 2, 100, System.currentTimeMillis() / 1000 + 3600, "seller", 5);
+        auction.setId(UUID.randomUUID());
+        auction.activate();
+        for (int i = 0; i < 20; i++) {
+            auction.placeBid(new Bid(UUID.randomUUID(), "bidder-" + i, auction.getId(), 200 + i * 10L, 2));
+        }
+
+        List<Bid> page = auction.getBids(15, 10);
+        assertEquals(5, page.size());
+        assertEquals("bidder-15", page.get(0).getUserName());
+        assertEquals(390, page.get(4).getPrice());
+        assertTrue(auction.getBids(20, 10).isEmpty());
+        assertEquals(3, auction.getBids(-5, 3).size());
+        assertEquals("bidder-19", auction.getBiddingHistory().get(0).getUserName());
+    }
+}
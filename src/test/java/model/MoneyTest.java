@@ -0,0 +1,54 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+    @Test
+    void theCurrencyScaleCoversStartingPriceAndIncrement() {
+        assertEquals(2, Money.currencyScale(new BigDecimal("10"), new BigDecimal("1")));
+        assertEquals(2, Money.currencyScale(new BigDecimal("10.500"), new BigDecimal("0.10")));
+        assertEquals(3, Money.currencyScale(new BigDecimal("10"), new BigDecimal("0.005")));
+        assertThrows(IllegalArgumentException.class,
+                () -> Money.currencyScale(new BigDecimal("1"), new BigDecimal("0.000000001")));
+    }
+
+    @Test
+    void decimalsConvertToMinorUnitsAndBack() {
+        assertEquals(1234, Money.toMinorUnits(new BigDecimal("12.34"), 2));
+        assertEquals(1200, Money.toMinorUnits(new BigDecimal("12"), 2));
+        assertEquals(new BigDecimal("12.34"), Money.toDecimal(1234, 2));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(new BigDecimal("12.345"), 2));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinorUnits(new BigDecimal("1E+30"), 2));
+    }
+
+    @Test
+    void rescalingNeverLosesDigits() {
+        assertEquals(123_400, Money.rescale(1234, 2, 4));
+        assertEquals(1234, Money.rescale(123_400, 4, 2));
+        assertEquals(Money.UNREPRESENTABLE, Money.rescale(123_401, 4, 2));
+        assertEquals(Money.UNREPRESENTABLE, Money.rescale(Long.MAX_VALUE / 10, 0, 2));
+        assertEquals(0, Money.rescale(0, 0, 30));
+    }
+
+    @Test
+    void comparableOrdersPricesAcrossScales() {
+        assertEquals(Money.comparable(1250, 2), Money.comparable(12_500, 3));
+        assertEquals(Long.MAX_VALUE, Money.comparable(Long.MAX_VALUE, 0));
+        assertEquals(Money.comparable(1250, 2), Money.comparable(new BigDecimal("12.5"), RoundingMode.CEILING));
+        assertEquals(0, Money.comparable(new BigDecimal("-1"), RoundingMode.FLOOR));
+    }
+
+    @Test
+    void aBidIsReadAtTheAuctionsScale() {
+        Bid bid = new Bid(UUID.randomUUID(), "alice", UUID.randomUUID(), 125, 1);
+        assertEquals(1250, bid.getPriceAt(2));
+        assertEquals(Money.UNREPRESENTABLE, bid.getPriceAt(0));
+    }
+}